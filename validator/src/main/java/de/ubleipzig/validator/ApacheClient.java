@@ -16,39 +16,104 @@ package de.ubleipzig.validator;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpHead;
 import org.apache.http.client.methods.HttpOptions;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
 
 class ApacheClient {
 
+    // Without timeouts a stalled server blocks the calling rule indefinitely
+    private static final RequestConfig REQUEST_CONFIG = RequestConfig.custom()
+            .setConnectTimeout(10000).setConnectionRequestTimeout(10000)
+            .setSocketTimeout(30000).build();
+
+    private static final int MAX_CONNECTIONS = 64;
+
+    private static final int MAX_CONNECTIONS_PER_ROUTE = 8;
+
+    private static final long MAX_IDLE_SECONDS = 60;
+
+    // One pool for all requests, so connections and their TLS sessions are reused
+    private static final CloseableHttpClient CLIENT = create();
+
+    // Bodies are decoded by ContentDecoding, which limits their decoded size
+    private static CloseableHttpClient create() {
+        final Registry<ConnectionSocketFactory> sockets =
+                RegistryBuilder.<ConnectionSocketFactory>create()
+                        .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                        .register("https", new SSLConnectionSocketFactory(TrustStore.context()))
+                        .build();
+        final PoolingHttpClientConnectionManager pool =
+                new PoolingHttpClientConnectionManager(sockets);
+        pool.setMaxTotal(MAX_CONNECTIONS);
+        pool.setDefaultMaxPerRoute(MAX_CONNECTIONS_PER_ROUTE);
+        return HttpClients.custom().setConnectionManager(pool)
+                .setDefaultRequestConfig(REQUEST_CONFIG).disableContentCompression()
+                .evictIdleConnections(MAX_IDLE_SECONDS, TimeUnit.SECONDS).build();
+    }
+
+    private static CloseableHttpClient client() {
+        return CLIENT;
+    }
+
     static InputStream getApacheClientResponse(String uri, String accept) throws IOException {
-        CloseableHttpClient client = HttpClients.createDefault();
+        return getApacheClientResponse(uri, accept, ContentDecoding.DEFAULT_MAX_SIZE);
+    }
+
+    static InputStream getApacheClientResponse(String uri, String accept, long maxSize)
+            throws IOException {
+        CloseableHttpClient client = client();
         HttpGet get = new HttpGet(uri);
         get.setHeader("Accept", accept);
-        HttpResponse response = client.execute(get);
-        HttpEntity out = response.getEntity();
-        return out.getContent();
+        get.setHeader("Accept-Encoding", ContentDecoding.ACCEPT_ENCODING);
+        CloseableHttpResponse response = client.execute(get);
+        try {
+            HttpEntity out = response.getEntity();
+            Header encoding = out.getContentEncoding();
+            return ContentDecoding.decode(out.getContent(),
+                    encoding != null ? encoding.getValue() : null, maxSize);
+        } catch (IOException | RuntimeException ex) {
+            // return the connection to the pool
+            response.close();
+            throw ex;
+        }
     }
 
     static HttpResponse headApacheClientResponse(String requestUri, String accept)
             throws IOException {
-        CloseableHttpClient client = HttpClients.createDefault();
+        CloseableHttpClient client = client();
         HttpHead head = new HttpHead(requestUri);
         head.setHeader("Accept", accept);
-        return client.execute(head);
+        return released(client.execute(head));
     }
 
     static HttpResponse optionsApacheClientResponse(String requestUri, String accept)
             throws IOException {
-        CloseableHttpClient client = HttpClients.createDefault();
+        CloseableHttpClient client = client();
         HttpOptions options = new HttpOptions(requestUri);
         options.setHeader("Accept", accept);
-        return client.execute(options);
+        return released(client.execute(options));
+    }
+
+    // Callers only read the headers; consuming the body returns the connection to the pool
+    private static HttpResponse released(final HttpResponse response) throws IOException {
+        EntityUtils.consume(response.getEntity());
+        return response;
     }
 }
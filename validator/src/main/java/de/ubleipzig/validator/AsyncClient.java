@@ -0,0 +1,320 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static de.ubleipzig.validator.IO.expandDocumentToN3Parallel;
+import static java.util.Objects.requireNonNull;
+import static org.apache.jena.riot.WebContent.contentTypeJSONLD;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import com.github.jsonldjava.core.JsonLdError;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+import org.apache.commons.rdf.api.Graph;
+import org.slf4j.Logger;
+import org.trellisldp.api.RuntimeRepositoryException;
+
+/**
+ * AsyncClient.
+ *
+ * <p>A non-blocking fetch layer on the JDK {@link HttpClient}. Requests prefer HTTP/2, so
+ * requests to the same host are multiplexed over one connection. At most {@code maxInFlight}
+ * requests are outstanding at a time; further requests are queued without blocking the caller
+ * and are sent as earlier ones complete. Given a {@link HostScheduler}, every request also passes
+ * through its per-host limits, retries and deadlines. TLS connections use the shared
+ * {@link TrustStore} context and resume its cached sessions.
+ *
+ * <p>Documents are requested with gzip or deflate content coding and decoded as they are
+ * parsed; a document decoding to more than {@code maxDocumentSize} bytes fails.
+ *
+ * @author christopher-johnson
+ */
+public class AsyncClient {
+
+    private static final Logger LOGGER = getLogger(AsyncClient.class);
+
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+
+    private final HttpClient client;
+
+    private final Executor parser;
+
+    private final Semaphore permits;
+
+    private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+
+    private final HostScheduler scheduler;
+
+    private final long maxDocumentSize;
+
+    /**
+     * A GET request answered with a status other than {@code 200}.
+     */
+    static final class StatusException extends RuntimeRepositoryException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        StatusException(final String uri, final int status) {
+            super("GET " + uri + " returned " + status);
+            this.status = status;
+        }
+
+        int getStatus() {
+            return status;
+        }
+    }
+
+    /**
+     * Create an async client with its own worker threads.
+     *
+     * @param maxInFlight the maximum number of outstanding requests
+     */
+    public AsyncClient(final int maxInFlight) {
+        this(maxInFlight, Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors(), r -> {
+                    final Thread thread = new Thread(r, "async-client");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+    }
+
+    /**
+     * Create an async client.
+     *
+     * @param maxInFlight the maximum number of outstanding requests
+     * @param executor the executor for JSON-LD parsing; parsers block on the response body,
+     *                 so this must not be an executor the HTTP client delivers the body on
+     */
+    public AsyncClient(final int maxInFlight, final ExecutorService executor) {
+        this(maxInFlight, executor, null);
+    }
+
+    /**
+     * Create an async client that schedules its requests per host.
+     *
+     * @param maxInFlight the maximum number of outstanding requests
+     * @param executor the executor for JSON-LD parsing; parsers block on the response body,
+     *                 so this must not be an executor the HTTP client delivers the body on
+     * @param scheduler the host scheduler, may be null
+     */
+    public AsyncClient(final int maxInFlight, final ExecutorService executor,
+                       final HostScheduler scheduler) {
+        this(maxInFlight, executor, scheduler, ContentDecoding.DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Create an async client that schedules its requests per host and limits document sizes.
+     *
+     * @param maxInFlight the maximum number of outstanding requests
+     * @param executor the executor for JSON-LD parsing; parsers block on the response body,
+     *                 so this must not be an executor the HTTP client delivers the body on
+     * @param scheduler the host scheduler, may be null
+     * @param maxDocumentSize the maximum decoded size of a document in bytes
+     */
+    public AsyncClient(final int maxInFlight, final ExecutorService executor,
+                       final HostScheduler scheduler, final long maxDocumentSize) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be positive");
+        }
+        this.permits = new Semaphore(maxInFlight);
+        this.parser = requireNonNull(executor, "The executor may not be null!");
+        this.client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL).connectTimeout(CONNECT_TIMEOUT)
+                .sslContext(TrustStore.context()).build();
+        this.scheduler = scheduler;
+        this.maxDocumentSize = maxDocumentSize;
+    }
+
+    /**
+     * Get a JSON-LD document as a graph. The response body is streamed into the JSON-LD parser
+     * as it arrives; the request counts as in flight until the document is parsed.
+     *
+     * @param uri the document location
+     * @return the expanded graph
+     */
+    public CompletableFuture<Graph> getGraph(final String uri) {
+        return submit(() -> sendAsync(get(uri), BodyHandlers.ofInputStream())
+                .thenApplyAsync(response -> {
+                    if (response.statusCode() != 200) {
+                        try {
+                            response.body().close();
+                        } catch (final IOException ex) {
+                            throw new UncheckedIOException(ex);
+                        }
+                        throw new StatusException(uri, response.statusCode());
+                    }
+                    try (InputStream body = ContentDecoding.decode(response.body(),
+                            response.headers().firstValue("Content-Encoding").orElse(null),
+                            maxDocumentSize)) {
+                        return IO.getGraph(expandDocumentToN3Parallel(body));
+                    } catch (final IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    } catch (final JsonLdError ex) {
+                        throw new RuntimeRepositoryException(ex.getMessage());
+                    }
+                }, parser));
+    }
+
+    /**
+     * Open a JSON-LD document once the response headers have been received. The body is decoded
+     * as it is read. The caller must close the stream; closing it before the end of the body
+     * aborts the transfer.
+     *
+     * @param uri the document location
+     * @return the document body
+     */
+    public CompletableFuture<InputStream> open(final String uri) {
+        return send(get(uri), BodyHandlers.ofInputStream()).thenApply(response -> {
+            final InputStream body = response.body();
+            try {
+                if (response.statusCode() != 200) {
+                    body.close();
+                    throw new StatusException(uri, response.statusCode());
+                }
+                return ContentDecoding.decode(body,
+                        response.headers().firstValue("Content-Encoding").orElse(null),
+                        maxDocumentSize);
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+
+    /**
+     * Send a HEAD request.
+     *
+     * @param uri the resource location
+     * @param accept the accepted media type
+     * @return the response
+     */
+    public CompletableFuture<HttpResponse<Void>> head(final String uri, final String accept) {
+        return send(request(uri, accept).method("HEAD", HttpRequest.BodyPublishers.noBody())
+                .build(), BodyHandlers.discarding());
+    }
+
+    /**
+     * Send an OPTIONS request.
+     *
+     * @param uri the resource location
+     * @param accept the accepted media type
+     * @return the response
+     */
+    public CompletableFuture<HttpResponse<Void>> options(final String uri, final String accept) {
+        return send(request(uri, accept).method("OPTIONS", HttpRequest.BodyPublishers.noBody())
+                .build(), BodyHandlers.discarding());
+    }
+
+    /**
+     * Send a request. For streaming body handlers the request stops counting as in flight once
+     * the response headers have been received.
+     *
+     * @param request the request
+     * @param handler the response body handler
+     * @param <T> the response body type
+     * @return the response
+     */
+    public <T> CompletableFuture<HttpResponse<T>> send(final HttpRequest request,
+                                                       final BodyHandler<T> handler) {
+        return submit(() -> sendAsync(request, handler));
+    }
+
+    /**
+     * Get the number of requests waiting for a free slot.
+     *
+     * @return the number of queued requests
+     */
+    public int getQueued() {
+        return waiting.size();
+    }
+
+    private <T> CompletableFuture<HttpResponse<T>> sendAsync(final HttpRequest request,
+                                                             final BodyHandler<T> handler) {
+        if (scheduler == null) {
+            return client.sendAsync(request, handler);
+        }
+        return scheduler.send(request.uri(), () -> client.sendAsync(request, handler));
+    }
+
+    private static HttpRequest get(final String uri) {
+        return request(uri, contentTypeJSONLD)
+                .header("Accept-Encoding", ContentDecoding.ACCEPT_ENCODING).GET().build();
+    }
+
+    private static HttpRequest.Builder request(final String uri, final String accept) {
+        return HttpRequest.newBuilder(URI.create(uri)).header("Accept", accept);
+    }
+
+    // The task is started once a permit is free; the permit is handed on when its result completes
+    private <T> CompletableFuture<T> submit(final Supplier<CompletableFuture<T>> task) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        waiting.add(() -> {
+            final CompletableFuture<T> started;
+            try {
+                started = task.get();
+            } catch (final RuntimeException ex) {
+                release();
+                result.completeExceptionally(ex);
+                return;
+            }
+            started.whenComplete((value, error) -> {
+                release();
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            });
+        });
+        drain();
+        return result;
+    }
+
+    private void release() {
+        permits.release();
+        drain();
+    }
+
+    private void drain() {
+        while (!waiting.isEmpty() && permits.tryAcquire()) {
+            final Runnable next = waiting.poll();
+            if (next == null) {
+                permits.release();
+            } else {
+                next.run();
+            }
+        }
+        LOGGER.trace("{} requests queued", waiting.size());
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.graph.impl.GraphBase;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.apache.jena.util.iterator.NullIterator;
+import org.apache.jena.util.iterator.WrappedIterator;
+
+/**
+ * BulkGraph.
+ *
+ * <p>An immutable Jena graph for validation. All triples are known when the graph is built, so
+ * the triple array and the subject, predicate and object indexes are allocated at their final
+ * size and filled in one pass each, instead of growing and rehashing as triples are added.
+ *
+ * <p>An index maps a node to the ascending positions of the triples it occurs in. A lookup uses
+ * the subject index if the subject is bound, then the object index and then the predicate index,
+ * and filters the candidates by the remaining terms. Terms are matched by RDF term equality.
+ *
+ * <p>Nothing is written after construction, so a graph can be read by any number of threads
+ * without locking; it serves as the snapshot that rules are evaluated against concurrently.
+ *
+ * @author christopher-johnson
+ */
+final class BulkGraph extends GraphBase {
+
+    private static final int[] NONE = new int[0];
+
+    private final Triple[] triples;
+
+    private final Map<Node, int[]> bySubject;
+
+    private final Map<Node, int[]> byPredicate;
+
+    private final Map<Node, int[]> byObject;
+
+    private BulkGraph(final Triple[] triples) {
+        this.triples = triples;
+        this.bySubject = index(triples, 0);
+        this.byPredicate = index(triples, 1);
+        this.byObject = index(triples, 2);
+        // GraphBase creates these on first use; create them now so concurrent readers never race
+        getPrefixMapping();
+        getCapabilities();
+        getEventManager();
+    }
+
+    /**
+     * Build a graph. Duplicate triples are removed.
+     *
+     * @param triples the triples
+     * @return the graph
+     */
+    static BulkGraph of(final Collection<Triple> triples) {
+        final Set<Triple> distinct = new HashSet<>(capacity(triples.size()));
+        final Triple[] array = triples.stream().filter(distinct::add).toArray(Triple[]::new);
+        return new BulkGraph(array);
+    }
+
+    /**
+     * Freeze a graph into an immutable snapshot. A {@link BulkGraph} is returned as is.
+     *
+     * @param graph the graph, which must not be modified while it is copied
+     * @return the snapshot
+     */
+    static BulkGraph copyOf(final Graph graph) {
+        if (graph instanceof BulkGraph) {
+            return (BulkGraph) graph;
+        }
+        return new BulkGraph(graph.find().toList().toArray(new Triple[0]));
+    }
+
+    private static int capacity(final int size) {
+        return (int) Math.min(Integer.MAX_VALUE, size * 4L / 3 + 1);
+    }
+
+    private static Node term(final Triple triple, final int position) {
+        return position == 0 ? triple.getSubject() :
+                position == 1 ? triple.getPredicate() : triple.getObject();
+    }
+
+    // Counts first so that every posting list is allocated once at its final length
+    private static Map<Node, int[]> index(final Triple[] triples, final int position) {
+        final Map<Node, int[]> counts = new HashMap<>(capacity(triples.length));
+        for (final Triple triple : triples) {
+            counts.computeIfAbsent(term(triple, position), n -> new int[1])[0]++;
+        }
+        final Map<Node, int[]> index = new HashMap<>(capacity(counts.size()));
+        counts.forEach((node, count) -> index.put(node, new int[count[0]]));
+        counts.replaceAll((node, count) -> new int[1]);
+        for (int i = 0; i < triples.length; i++) {
+            final Node node = term(triples[i], position);
+            index.get(node)[counts.get(node)[0]++] = i;
+        }
+        return index;
+    }
+
+    @Override
+    protected ExtendedIterator<Triple> graphBaseFind(final Triple match) {
+        final Node subject = match.getMatchSubject();
+        final Node predicate = match.getMatchPredicate();
+        final Node object = match.getMatchObject();
+        final int[] candidates;
+        if (subject != null) {
+            candidates = bySubject.getOrDefault(subject, NONE);
+        } else if (object != null) {
+            candidates = byObject.getOrDefault(object, NONE);
+        } else if (predicate != null) {
+            candidates = byPredicate.getOrDefault(predicate, NONE);
+        } else {
+            return WrappedIterator.create(Arrays.asList(triples).iterator());
+        }
+        if (candidates.length == 0) {
+            return NullIterator.instance();
+        }
+        return WrappedIterator.create(IntStream.of(candidates).mapToObj(i -> triples[i])
+                .filter(t -> (predicate == null || predicate.equals(t.getPredicate())) &&
+                        (object == null || object.equals(t.getObject())) &&
+                        (subject == null || subject.equals(t.getSubject()))).iterator());
+    }
+
+    @Override
+    protected int graphBaseSize() {
+        return triples.length;
+    }
+}
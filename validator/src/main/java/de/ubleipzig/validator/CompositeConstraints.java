@@ -0,0 +1,103 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.stream.Collectors.toList;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Triple;
+import org.slf4j.Logger;
+import org.trellisldp.api.ConstraintService;
+import org.trellisldp.api.ConstraintViolation;
+
+/**
+ * CompositeConstraints.
+ *
+ * <p>Evaluates several constraint services. The per-triple checks of all
+ * {@link TripleConstraintService}s are applied together in a single pass over the graph; any other
+ * service scans the graph on its own. Given an executor, the fused pass and the other services
+ * run concurrently against an immutable snapshot of the graph.
+ *
+ * @author christopher-johnson
+ */
+public class CompositeConstraints implements ConstraintService {
+
+    private static final Logger LOGGER = getLogger(CompositeConstraints.class);
+
+    private final List<TripleConstraintService> fused;
+
+    private final List<ConstraintService> opaque;
+
+    /**
+     * Create a composite constraint service.
+     *
+     * @param services the constraint services
+     */
+    public CompositeConstraints(final List<? extends ConstraintService> services) {
+        requireNonNull(services, "The constraint services may not be null!");
+        this.fused = services.stream().filter(s -> s instanceof TripleConstraintService)
+                .map(s -> (TripleConstraintService) s).collect(toList());
+        this.opaque = services.stream().filter(s -> !(s instanceof TripleConstraintService))
+                .collect(toList());
+        LOGGER.debug("{} services fused, {} evaluated separately", fused.size(), opaque.size());
+    }
+
+    @Override
+    public Stream<ConstraintViolation> constrainedBy(final IRI model, final String domain,
+                                                     final Graph graph) {
+        return Stream.concat(pass(model, domain, graph),
+                opaque.stream().flatMap(s -> s.constrainedBy(model, domain, graph)));
+    }
+
+    /**
+     * Evaluate the services concurrently. The fused pass and each other service run as separate
+     * tasks on an immutable snapshot of the graph.
+     *
+     * @param model the interaction model
+     * @param domain the domain
+     * @param graph the graph
+     * @param executor the executor
+     * @return the violations, in the order {@link #constrainedBy(IRI, String, Graph)} reports them
+     */
+    public CompletableFuture<List<ConstraintViolation>> constrainedBy(final IRI model,
+            final String domain, final Graph graph, final Executor executor) {
+        final Graph snapshot = new ValidationTarget(null, graph).snapshot().getGraph();
+        final List<CompletableFuture<List<ConstraintViolation>>> tasks = new ArrayList<>();
+        tasks.add(supplyAsync(() -> pass(model, domain, snapshot).collect(toList()), executor));
+        opaque.forEach(s -> tasks.add(supplyAsync(() -> s.constrainedBy(model, domain, snapshot)
+                .collect(toList()), executor)));
+        return CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0]))
+                .thenApply(x -> tasks.stream().flatMap(t -> t.join().stream()).collect(toList()));
+    }
+
+    private Stream<ConstraintViolation> pass(final IRI model, final String domain,
+                                             final Graph graph) {
+        final List<Function<Triple, Stream<ConstraintViolation>>> checks = fused.stream()
+                .map(s -> s.checkModelConstraints(model, domain)).collect(toList());
+        return checks.isEmpty() ? Stream.empty() :
+                graph.stream().flatMap(t -> checks.stream().flatMap(c -> c.apply(t)));
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * ContentDecoding.
+ *
+ * <p>Decodes compressed response bodies as they are read, so a compressed manifest is inflated
+ * straight into the JSON parser without being buffered. The decoded size is limited to guard
+ * against bodies that inflate far beyond any real manifest.
+ *
+ * @author christopher-johnson
+ */
+final class ContentDecoding {
+
+    /**
+     * The content codings that can be decoded, for the {@code Accept-Encoding} request header.
+     */
+    static final String ACCEPT_ENCODING = "gzip, deflate";
+
+    /**
+     * The default limit of a decoded body.
+     */
+    static final long DEFAULT_MAX_SIZE = 256L * 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private ContentDecoding() {
+        // prevent instantiation
+    }
+
+    /**
+     * Decode a response body.
+     *
+     * @param body the body
+     * @param contentEncoding the {@code Content-Encoding} header, may be null
+     * @param maxSize the maximum number of decoded bytes
+     * @return the decoded body, failing with an {@link IOException} once more than
+     *         {@code maxSize} bytes have been read
+     * @throws IOException if a coding is not supported or the body is not validly encoded; the
+     *         body is closed
+     */
+    static InputStream decode(final InputStream body, final String contentEncoding,
+                              final long maxSize) throws IOException {
+        InputStream decoded = body;
+        try {
+            if (contentEncoding != null) {
+                // Codings are listed in the order they were applied
+                final String[] codings = contentEncoding.split(",");
+                for (int i = codings.length - 1; i >= 0; i--) {
+                    decoded = decode(decoded, codings[i].trim().toLowerCase());
+                }
+            }
+        } catch (final IOException | RuntimeException ex) {
+            try {
+                decoded.close();
+            } catch (final IOException closing) {
+                ex.addSuppressed(closing);
+            }
+            throw ex;
+        }
+        return new LimitedInputStream(decoded, maxSize);
+    }
+
+    private static InputStream decode(final InputStream body, final String coding)
+            throws IOException {
+        switch (coding) {
+            case "":
+            case "identity":
+                return body;
+            case "gzip":
+            case "x-gzip":
+                return new GZIPInputStream(body, BUFFER_SIZE);
+            case "deflate":
+                return inflate(body);
+            default:
+                throw new IOException("Unsupported content encoding: " + coding);
+        }
+    }
+
+    // Servers send deflate both zlib-wrapped, as specified, and raw
+    private static InputStream inflate(final InputStream body) throws IOException {
+        final BufferedInputStream buffered = new BufferedInputStream(body, BUFFER_SIZE);
+        buffered.mark(2);
+        final int cmf = buffered.read();
+        final int flg = buffered.read();
+        buffered.reset();
+        final boolean zlib = cmf >= 0 && flg >= 0 && (cmf & 0x0f) == 8 &&
+                ((cmf << 8) | flg) % 31 == 0;
+        final Inflater inflater = new Inflater(!zlib);
+        return new InflaterInputStream(buffered, inflater, BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    inflater.end();
+                }
+            }
+        };
+    }
+
+    private static final class LimitedInputStream extends FilterInputStream {
+
+        private final long maxSize;
+
+        private long count;
+
+        private LimitedInputStream(final InputStream in, final long maxSize) {
+            super(in);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            final int n = super.read(b, off, len);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            final long skipped = super.skip(n);
+            count(skipped);
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private void count(final long n) throws IOException {
+            count += n;
+            if (count > maxSize) {
+                throw new IOException("The decoded body exceeds " + maxSize + " bytes");
+            }
+        }
+    }
+}
@@ -0,0 +1,590 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static de.ubleipzig.validator.IO.expandDocumentToN3Parallel;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import com.github.jsonldjava.core.JsonLdError;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.slf4j.Logger;
+
+/**
+ * Corpus.
+ *
+ * <p>Reads manifests from local disk: a single JSON-LD file, an NDJSON dump with one manifest per
+ * line, a tar archive of JSON-LD files, or a directory tree of any of these. Large files are
+ * memory-mapped in windows, and each record is a slice of its window rather than a copy.
+ * Records are split sequentially and processed in parallel, with a bounded number in flight.
+ *
+ * @author christopher-johnson
+ */
+public final class Corpus {
+
+    private static final Logger LOGGER = getLogger(Corpus.class);
+
+    // Files up to this size are read into memory rather than mapped
+    private static final long MAP_THRESHOLD = 1024 * 1024;
+
+    private static final int DEFAULT_WINDOW_SIZE = 1024 * 1024 * 1024;
+
+    private static final int BLOCK = 512;
+
+    private final Path path;
+
+    private final int windowSize;
+
+    private Corpus(final Path path, final int windowSize) {
+        this.path = requireNonNull(path, "The corpus path may not be null!");
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Create a corpus.
+     *
+     * @param path a JSON-LD, NDJSON ({@code .ndjson}, {@code .jsonl}) or tar file, or a directory
+     * @return the corpus
+     */
+    public static Corpus of(final Path path) {
+        return new Corpus(path, DEFAULT_WINDOW_SIZE);
+    }
+
+    static Corpus of(final Path path, final int windowSize) {
+        return new Corpus(path, windowSize);
+    }
+
+    /**
+     * A manifest document of the corpus.
+     */
+    public static final class Record {
+
+        private final String name;
+
+        private final ByteBuffer content;
+
+        Record(final String name, final ByteBuffer content) {
+            this.name = name;
+            this.content = content;
+        }
+
+        /**
+         * Get the record name: the file path, the file path and tar entry name, or the file
+         * path and line number.
+         *
+         * @return the name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Get the document bytes.
+         *
+         * @return a read-only view of the document
+         */
+        public ByteBuffer getContent() {
+            return content.asReadOnlyBuffer();
+        }
+
+        /**
+         * Get the document size.
+         *
+         * @return the size in bytes
+         */
+        public int getSize() {
+            return content.remaining();
+        }
+
+        /**
+         * Read the document.
+         *
+         * @return a stream over the document bytes
+         */
+        public InputStream openStream() {
+            return new BufferInputStream(content.duplicate());
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * Get the records in file order. The stream must be closed.
+     *
+     * @return the records
+     */
+    public Stream<Record> records() {
+        final Records records = new Records(files());
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(records,
+                Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(records::close);
+    }
+
+    /**
+     * Process all records. Records are read on the calling thread and processed on the executor;
+     * the caller blocks while {@code maxInFlight} records are being processed. The sink is called
+     * for one record at a time. The first failing task or sink call stops reading; the records
+     * in flight are completed and the failure is thrown.
+     *
+     * @param task the processing of a record
+     * @param sink the consumer of the results
+     * @param executor the executor
+     * @param maxInFlight the maximum number of records processed at a time
+     * @param <T> the result type
+     * @return the number of records processed
+     * @throws CompletionException if a task or the sink failed
+     */
+    public <T> long process(final Function<Record, ? extends T> task,
+                            final BiConsumer<Record, ? super T> sink, final Executor executor,
+                            final int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be positive");
+        }
+        final Semaphore permits = new Semaphore(maxInFlight);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final Object lock = new Object();
+        long count = 0;
+        try (Records records = new Records(files())) {
+            while (failure.get() == null && records.hasNext()) {
+                final Record record = records.next();
+                permits.acquire();
+                count++;
+                CompletableFuture.supplyAsync(() -> task.apply(record), executor)
+                        .whenComplete((value, error) -> {
+                            try {
+                                if (error != null) {
+                                    failure.compareAndSet(null, error);
+                                } else {
+                                    synchronized (lock) {
+                                        sink.accept(record, value);
+                                    }
+                                }
+                            } catch (final RuntimeException ex) {
+                                failure.compareAndSet(null, ex);
+                            } finally {
+                                permits.release();
+                            }
+                        });
+            }
+            permits.acquire(maxInFlight);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while processing the corpus", ex);
+        }
+        final Throwable error = failure.get();
+        if (error != null) {
+            throw error instanceof CompletionException ? (CompletionException) error :
+                    new CompletionException(error);
+        }
+        LOGGER.info("Processed {} records of {}", count, path);
+        return count;
+    }
+
+    /**
+     * Validate all records. Records that are not well-formed JSON-LD are logged and skipped.
+     *
+     * @param rules the rules
+     * @param executor the executor
+     * @param maxInFlight the maximum number of records validated at a time
+     * @param sink the consumer of the results of each record, in rule order
+     * @return the number of records read
+     */
+    public long validate(final List<Rule> rules, final Executor executor, final int maxInFlight,
+                         final BiConsumer<Record, List<RuleResult>> sink) {
+        final Projection projection = Projection.of(rules);
+        final RuleEngine engine = new RuleEngine(rules);
+        return process(record -> {
+            try (InputStream document = record.openStream()) {
+                return engine.evaluate(projection.load(null,
+                        expandDocumentToN3Parallel(document)));
+            } catch (final IOException | JsonLdError | RuntimeException ex) {
+                LOGGER.warn("Skipping {}: {}", record, ex.getMessage());
+                return null;
+            }
+        }, (record, results) -> {
+            if (results != null) {
+                sink.accept(record, results);
+            }
+        }, executor, maxInFlight);
+    }
+
+    // The files in path order; the records are read from one file at a time
+    private List<Path> files() {
+        if (!Files.isDirectory(path)) {
+            return List.of(path);
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            return files.filter(Files::isRegularFile).sorted().collect(toList());
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * The records of a list of files. Each file is opened when the records of the previous one
+     * have been read, and closed when its own records have been read.
+     */
+    private final class Records implements Iterator<Record>, AutoCloseable {
+
+        private final Iterator<Path> files;
+
+        private Iterator<Record> current = Collections.emptyIterator();
+
+        private MappedFile mapped;
+
+        Records(final List<Path> files) {
+            this.files = files.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext()) {
+                close();
+                if (!files.hasNext()) {
+                    return false;
+                }
+                current = open(files.next());
+            }
+            return true;
+        }
+
+        @Override
+        public Record next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+
+        @Override
+        public void close() {
+            if (mapped != null) {
+                final MappedFile file = mapped;
+                mapped = null;
+                current = Collections.emptyIterator();
+                file.close();
+            }
+        }
+
+        private Iterator<Record> open(final Path file) {
+            final String name = file.getFileName().toString();
+            try {
+                if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+                    mapped = new MappedFile(file, windowSize);
+                    return new LineIterator(mapped);
+                } else if (name.endsWith(".tar")) {
+                    mapped = new MappedFile(file, windowSize);
+                    return new TarIterator(mapped);
+                } else if (name.endsWith(".json") || name.endsWith(".jsonld")) {
+                    final long size = Files.size(file);
+                    if (size <= MAP_THRESHOLD) {
+                        return List.of(new Record(file.toString(),
+                                ByteBuffer.wrap(Files.readAllBytes(file)))).iterator();
+                    }
+                    try (MappedFile whole = new MappedFile(file, windowSize)) {
+                        return List.of(new Record(file.toString(), whole.slice(0, size)))
+                                .iterator();
+                    }
+                }
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            LOGGER.debug("Skipping {}", file);
+            return Collections.emptyIterator();
+        }
+    }
+
+    /**
+     * A file mapped one window at a time.
+     */
+    private static final class MappedFile implements AutoCloseable {
+
+        private final Path path;
+
+        private final FileChannel channel;
+
+        private final long size;
+
+        private final int windowSize;
+
+        private ByteBuffer window;
+
+        private long base;
+
+        MappedFile(final Path path, final int windowSize) throws IOException {
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            this.size = channel.size();
+            this.windowSize = windowSize;
+        }
+
+        byte get(final long offset) throws IOException {
+            map(offset, 1);
+            return window.get((int) (offset - base));
+        }
+
+        // A view of the bytes; it stays valid after the window has moved on
+        ByteBuffer slice(final long offset, final long length) throws IOException {
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("Record at " + offset + " of " + path + " is too large");
+            }
+            map(offset, (int) length);
+            final int start = (int) (offset - base);
+            return window.duplicate().position(start).limit(start + (int) length).slice();
+        }
+
+        private void map(final long offset, final int length) throws IOException {
+            if (offset < 0 || offset + length > size) {
+                throw new IOException("Unexpected end of " + path);
+            }
+            if (window == null || offset < base || offset + length > base + window.limit()) {
+                base = offset;
+                window = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                        Math.min(Math.max(windowSize, length), size - offset));
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                channel.close();
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    /**
+     * The non-blank lines of an NDJSON file.
+     */
+    private static final class LineIterator implements Iterator<Record> {
+
+        private final MappedFile file;
+
+        private long position;
+
+        private long line;
+
+        private Record next;
+
+        LineIterator(final MappedFile file) {
+            this.file = file;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (next == null && position < file.size) {
+                    final long start = position;
+                    boolean blank = true;
+                    long end = start;
+                    for (byte b; end < file.size && (b = file.get(end)) != '\n'; end++) {
+                        blank &= b == ' ' || b == '\t' || b == '\r';
+                    }
+                    position = end + 1;
+                    line++;
+                    if (!blank) {
+                        next = new Record(file.path + ":" + line, file.slice(start, end - start));
+                    }
+                }
+                return next != null;
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        @Override
+        public Record next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final Record record = next;
+            next = null;
+            return record;
+        }
+    }
+
+    /**
+     * The JSON and JSON-LD entries of a tar archive, in ustar, GNU or pax format.
+     */
+    private static final class TarIterator implements Iterator<Record> {
+
+        private final MappedFile file;
+
+        private long position;
+
+        private String longName;
+
+        private Record next;
+
+        private boolean end;
+
+        TarIterator(final MappedFile file) {
+            this.file = file;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (next == null && !end) {
+                    if (position + BLOCK > file.size) {
+                        end = true;
+                        break;
+                    }
+                    final ByteBuffer header = file.slice(position, BLOCK);
+                    if (header.get(0) == 0) {
+                        end = true;
+                        break;
+                    }
+                    final long size = octal(header, 124, 12);
+                    final byte type = header.get(156);
+                    final ByteBuffer data = file.slice(position + BLOCK, size);
+                    position += BLOCK + (size + BLOCK - 1) / BLOCK * BLOCK;
+                    if (type == 'L') {
+                        longName = string(data, 0, (int) size);
+                    } else if (type == 'x') {
+                        longName = paxPath(data);
+                    } else if (type == '0' || type == 0) {
+                        final String name = longName != null ? longName : name(header);
+                        longName = null;
+                        if (name.endsWith(".json") || name.endsWith(".jsonld")) {
+                            next = new Record(file.path + "!" + name, data);
+                        }
+                    } else {
+                        longName = null;
+                    }
+                }
+                return next != null;
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        @Override
+        public Record next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final Record record = next;
+            next = null;
+            return record;
+        }
+
+        private static String name(final ByteBuffer header) {
+            final String name = string(header, 0, 100);
+            final boolean ustar = string(header, 257, 5).equals("ustar");
+            final String prefix = ustar ? string(header, 345, 155) : "";
+            return prefix.isEmpty() ? name : prefix + "/" + name;
+        }
+
+        // The path of a pax extended header, if any
+        private static String paxPath(final ByteBuffer data) {
+            for (final String entry : string(data, 0, data.remaining()).split("\n")) {
+                final int key = entry.indexOf(' ');
+                if (key > 0 && entry.startsWith("path=", key + 1)) {
+                    return entry.substring(key + 6);
+                }
+            }
+            return null;
+        }
+
+        private static long octal(final ByteBuffer header, final int offset, final int length)
+                throws IOException {
+            long value = 0;
+            for (int i = offset; i < offset + length; i++) {
+                final byte b = header.get(i);
+                if (b >= '0' && b <= '7') {
+                    value = value * 8 + (b - '0');
+                } else if (b != ' ' && b != 0) {
+                    throw new IOException("Invalid tar header field at " + i);
+                }
+            }
+            return value;
+        }
+
+        private static String string(final ByteBuffer buffer, final int offset, final int length) {
+            final byte[] bytes = new byte[length];
+            buffer.duplicate().position(offset).get(bytes);
+            int end = 0;
+            while (end < length && bytes[end] != 0) {
+                end++;
+            }
+            return new String(bytes, 0, end, UTF_8);
+        }
+    }
+
+    /**
+     * An input stream over a byte buffer.
+     */
+    private static final class BufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        BufferInputStream(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            final int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,464 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Collections.unmodifiableMap;
+import static java.util.Objects.requireNonNull;
+import static java.util.Optional.ofNullable;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.slf4j.Logger;
+
+/**
+ * CrawlJournal.
+ *
+ * <p>The durable state of a crawl: the frontier of pending URLs and the outcome of every
+ * completed one, with the hash of the fetched document and its rule results. Each change is
+ * appended to a journal file as one line, written with a single system call, so a crawl
+ * interrupted at any point resumes from the last recorded change. A line torn by a crash is
+ * dropped when the journal is opened.
+ *
+ * <p>A URL that could not be fetched stays pending and is retried when the crawl resumes, up to
+ * {@link #MAX_ATTEMPTS} times. A URL that was fetched but could not be validated is recorded as
+ * failed and is not retried.
+ *
+ * <p>Every {@code compactionInterval} appends, the journal is rewritten to hold only the
+ * current state and atomically replaces the old file.
+ *
+ * @author christopher-johnson
+ */
+public class CrawlJournal implements AutoCloseable {
+
+    private static final Logger LOGGER = getLogger(CrawlJournal.class);
+
+    /**
+     * The default number of appends between compactions.
+     */
+    public static final int DEFAULT_COMPACTION_INTERVAL = 10000;
+
+    /**
+     * The number of failed fetches after which a URL is recorded as failed.
+     */
+    public static final int MAX_ATTEMPTS = 5;
+
+    private static final String FILE_NAME = "crawl.journal";
+
+    private static final char PENDING = 'P';
+
+    private static final char DONE = 'D';
+
+    private static final char FAILED = 'F';
+
+    private static final char RETRY = 'R';
+
+    /**
+     * The recorded outcome of a completed URL.
+     */
+    public static final class Entry {
+
+        private final String url;
+
+        private final String hash;
+
+        private final Map<String, Boolean> results;
+
+        private final String failure;
+
+        Entry(final String url, final String hash, final Map<String, Boolean> results,
+              final String failure) {
+            this.url = url;
+            this.hash = hash;
+            this.results = unmodifiableMap(results);
+            this.failure = failure;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        /**
+         * Get the hash of the fetched document.
+         *
+         * @return the SHA-256 hash in hex, or empty if the URL failed
+         */
+        public Optional<String> getHash() {
+            return ofNullable(hash);
+        }
+
+        /**
+         * Get the rule results.
+         *
+         * @return whether each rule passed, by rule id, in rule order
+         */
+        public Map<String, Boolean> getResults() {
+            return results;
+        }
+
+        /**
+         * Get the reason the URL could not be fetched or validated.
+         *
+         * @return the failure, if any
+         */
+        public Optional<String> getFailure() {
+            return ofNullable(failure);
+        }
+
+        public boolean isFailed() {
+            return failure != null;
+        }
+    }
+
+    private final Path file;
+
+    private final int compactionInterval;
+
+    private final Set<String> pending = new LinkedHashSet<>();
+
+    private final Set<String> taken = new HashSet<>();
+
+    private final Map<String, Entry> completed = new LinkedHashMap<>();
+
+    // The failed fetches of pending URLs
+    private final Map<String, Integer> attempts = new HashMap<>();
+
+    private FileChannel channel;
+
+    private int appends;
+
+    private CrawlJournal(final Path directory, final int compactionInterval) {
+        this.file = directory.resolve(FILE_NAME);
+        this.compactionInterval = compactionInterval;
+    }
+
+    /**
+     * Open a journal, resuming the crawl recorded in it.
+     *
+     * @param directory the directory of the journal; it is created if missing
+     * @return the journal
+     * @throws IOException if the journal cannot be read or written
+     */
+    public static CrawlJournal open(final Path directory) throws IOException {
+        return open(directory, DEFAULT_COMPACTION_INTERVAL);
+    }
+
+    /**
+     * Open a journal, resuming the crawl recorded in it.
+     *
+     * @param directory the directory of the journal; it is created if missing
+     * @param compactionInterval the number of appends between compactions
+     * @return the journal
+     * @throws IOException if the journal cannot be read or written
+     */
+    public static CrawlJournal open(final Path directory, final int compactionInterval)
+            throws IOException {
+        requireNonNull(directory, "The journal directory may not be null!");
+        if (compactionInterval < 1) {
+            throw new IllegalArgumentException("compactionInterval must be positive");
+        }
+        Files.createDirectories(directory);
+        final CrawlJournal journal = new CrawlJournal(directory, compactionInterval);
+        journal.replay();
+        return journal;
+    }
+
+    /**
+     * Add a URL to the frontier unless it is pending or completed already.
+     *
+     * @param url the URL
+     * @return true if the URL was added
+     */
+    public synchronized boolean enqueue(final String url) {
+        if (url.indexOf('\n') >= 0 || url.indexOf('\t') >= 0) {
+            throw new IllegalArgumentException("Invalid URL: " + url);
+        }
+        if (completed.containsKey(url) || !pending.add(url)) {
+            return false;
+        }
+        append(PENDING + "\t" + url);
+        return true;
+    }
+
+    /**
+     * Take the next pending URL. It stays in the frontier until it is completed, so it is taken
+     * again after a restart.
+     *
+     * @return the URL, or empty if no URL is waiting to be taken
+     */
+    public synchronized Optional<String> take() {
+        for (final String url : pending) {
+            if (taken.add(url)) {
+                return Optional.of(url);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Record the results of a URL.
+     *
+     * @param url the URL
+     * @param hash the SHA-256 hash of the document in hex
+     * @param results whether each rule passed, by rule id
+     */
+    public synchronized void complete(final String url, final String hash,
+                                      final Map<String, Boolean> results) {
+        final StringBuilder line = new StringBuilder().append(DONE).append('\t').append(url)
+                .append('\t').append(hash).append('\t');
+        results.forEach((id, passed) -> line.append(id).append(passed ? '+' : '-').append(','));
+        record(new Entry(url, hash, new LinkedHashMap<>(results), null));
+        append(line.toString());
+    }
+
+    /**
+     * Record that a URL could not be fetched. It stays pending, but is not taken again until the
+     * journal is reopened. After {@link #MAX_ATTEMPTS} failed fetches it is recorded as failed.
+     *
+     * @param url the URL
+     * @param failure the reason
+     * @return true if the URL will be retried
+     */
+    public synchronized boolean retry(final String url, final String failure) {
+        final String reason = String.valueOf(failure).replaceAll("\\s+", " ");
+        final int attempt = attempts.merge(url, 1, Integer::sum);
+        if (attempt >= MAX_ATTEMPTS) {
+            fail(url, reason + " (after " + attempt + " attempts)");
+            return false;
+        }
+        append(RETRY + "\t" + url + "\t" + attempt + "\t" + reason);
+        return true;
+    }
+
+    /**
+     * Get the number of failed fetches of a pending URL.
+     *
+     * @param url the URL
+     * @return the number of failed fetches
+     */
+    public synchronized int getAttempts(final String url) {
+        return attempts.getOrDefault(url, 0);
+    }
+
+    /**
+     * Record that a URL was fetched but could not be validated. It is not retried on resume.
+     *
+     * @param url the URL
+     * @param failure the reason
+     */
+    public synchronized void fail(final String url, final String failure) {
+        final String reason = String.valueOf(failure).replaceAll("\\s+", " ");
+        record(new Entry(url, null, Map.of(), reason));
+        append(FAILED + "\t" + url + "\t" + reason);
+    }
+
+    /**
+     * Get the outcome of a completed URL.
+     *
+     * @param url the URL
+     * @return the entry, if the URL was completed
+     */
+    public synchronized Optional<Entry> getCompleted(final String url) {
+        return ofNullable(completed.get(url));
+    }
+
+    /**
+     * Get the completed URLs.
+     *
+     * @return the entries, in completion order
+     */
+    public synchronized List<Entry> getCompleted() {
+        return new ArrayList<>(completed.values());
+    }
+
+    /**
+     * Get the pending URLs, including those taken but not completed.
+     *
+     * @return the URLs, in frontier order
+     */
+    public synchronized List<String> getPending() {
+        return new ArrayList<>(pending);
+    }
+
+    /**
+     * Rewrite the journal to hold only the current state.
+     *
+     * @throws IOException if the journal cannot be written
+     */
+    public synchronized void compact() throws IOException {
+        final Path temp = file.resolveSibling(FILE_NAME + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            final StringBuilder lines = new StringBuilder();
+            for (final Entry entry : completed.values()) {
+                if (entry.isFailed()) {
+                    lines.append(FAILED).append('\t').append(entry.url).append('\t')
+                            .append(entry.failure).append('\n');
+                } else {
+                    lines.append(DONE).append('\t').append(entry.url).append('\t')
+                            .append(entry.hash).append('\t');
+                    entry.results.forEach((id, passed) ->
+                            lines.append(id).append(passed ? '+' : '-').append(','));
+                    lines.append('\n');
+                }
+                flush(out, lines);
+            }
+            for (final String url : pending) {
+                lines.append(PENDING).append('\t').append(url).append('\n');
+                if (attempts.containsKey(url)) {
+                    lines.append(RETRY).append('\t').append(url).append('\t')
+                            .append(attempts.get(url)).append("\t\n");
+                }
+                flush(out, lines);
+            }
+            write(out, lines.toString());
+            out.force(true);
+        }
+        channel.close();
+        Files.move(temp, file, ATOMIC_MOVE, REPLACE_EXISTING);
+        channel = FileChannel.open(file, WRITE, APPEND);
+        appends = 0;
+        LOGGER.debug("Compacted {} to {} completed and {} pending URLs", file, completed.size(),
+                pending.size());
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null && channel.isOpen()) {
+            compact();
+            channel.close();
+        }
+    }
+
+    private void replay() throws IOException {
+        long valid = 0;
+        if (Files.exists(file)) {
+            final byte[] bytes = Files.readAllBytes(file);
+            int start = 0;
+            for (int i = 0; i < bytes.length; i++) {
+                if (bytes[i] == '\n') {
+                    replay(new String(bytes, start, i - start, UTF_8));
+                    start = i + 1;
+                    valid = start;
+                }
+            }
+            if (valid < bytes.length) {
+                LOGGER.warn("Dropping a torn record at the end of {}", file);
+            }
+        }
+        channel = FileChannel.open(file, CREATE, WRITE);
+        channel.truncate(valid);
+        channel.position(valid);
+        LOGGER.info("Resuming {} with {} completed and {} pending URLs", file, completed.size(),
+                pending.size());
+    }
+
+    private void replay(final String line) {
+        final String[] fields = line.split("\t", -1);
+        if (fields.length < 2 || fields[0].length() != 1) {
+            LOGGER.warn("Skipping an invalid journal record: {}", line);
+            return;
+        }
+        final String url = fields[1];
+        switch (fields[0].charAt(0)) {
+            case PENDING:
+                if (!completed.containsKey(url)) {
+                    pending.add(url);
+                }
+                break;
+            case DONE:
+                if (fields.length == 4) {
+                    final Map<String, Boolean> results = new LinkedHashMap<>();
+                    for (final String result : fields[3].split(",")) {
+                        if (!result.isEmpty()) {
+                            results.put(result.substring(0, result.length() - 1),
+                                    result.charAt(result.length() - 1) == '+');
+                        }
+                    }
+                    record(new Entry(url, fields[2], results, null));
+                }
+                break;
+            case FAILED:
+                record(new Entry(url, null, Map.of(), fields.length > 2 ? fields[2] : ""));
+                break;
+            case RETRY:
+                if (fields.length > 2 && pending.contains(url)) {
+                    try {
+                        attempts.put(url, Integer.parseInt(fields[2]));
+                    } catch (final NumberFormatException ex) {
+                        LOGGER.warn("Skipping an invalid journal record: {}", line);
+                    }
+                }
+                break;
+            default:
+                LOGGER.warn("Skipping an invalid journal record: {}", line);
+        }
+    }
+
+    private void record(final Entry entry) {
+        attempts.remove(entry.url);
+        pending.remove(entry.url);
+        taken.remove(entry.url);
+        completed.put(entry.url, entry);
+    }
+
+    // The state must be updated first, as the append may compact the journal
+    private void append(final String line) {
+        try {
+            write(channel, line + "\n");
+            if (++appends >= compactionInterval) {
+                compact();
+            }
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // Writes the buffered lines once they are large enough
+    private static void flush(final FileChannel out, final StringBuilder lines)
+            throws IOException {
+        if (lines.length() >= 1 << 16) {
+            write(out, lines.toString());
+            lines.setLength(0);
+        }
+    }
+
+    private static void write(final FileChannel out, final String text) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(UTF_8));
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import com.github.jsonldjava.core.JsonLdError;
+import com.github.jsonldjava.core.JsonLdOptions;
+import com.github.jsonldjava.utils.JsonUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+
+/**
+ * Crawler.
+ *
+ * <p>Crawls IIIF collections and validates the manifests they reference. The frontier and the
+ * results live in a {@link CrawlJournal}, so a crawl that was interrupted resumes with the URLs
+ * still pending; completed collections and manifests are neither fetched nor validated again.
+ * URLs that could not be fetched because of a network failure, a timeout or a server error are
+ * retried when the crawl resumes; documents that cannot be parsed or validated are recorded as
+ * failed.
+ *
+ * @author christopher-johnson
+ */
+public class Crawler {
+
+    private static final Logger LOGGER = getLogger(Crawler.class);
+
+    private static final String SC = "http://iiif.io/api/presentation/2#";
+
+    private static final List<String> MEMBER_PROPERTIES =
+            List.of("collections", "manifests", "members");
+
+    private final CrawlJournal journal;
+
+    private final AsyncClient client;
+
+    private final Projection projection;
+
+    private final RuleEngine engine;
+
+    /**
+     * Create a crawler.
+     *
+     * @param journal the journal; add the seed URLs with {@link CrawlJournal#enqueue(String)}
+     * @param client the client
+     * @param rules the rules the manifests are validated against
+     */
+    public Crawler(final CrawlJournal journal, final AsyncClient client, final List<Rule> rules) {
+        this.journal = requireNonNull(journal, "The journal may not be null!");
+        this.client = requireNonNull(client, "The client may not be null!");
+        this.projection = Projection.of(rules);
+        this.engine = new RuleEngine(rules);
+    }
+
+    /**
+     * Crawl until the frontier is empty.
+     *
+     * @param executor the executor validating the documents
+     * @param parallelism the maximum number of URLs processed at a time
+     * @return the number of URLs completed by this run
+     */
+    public long run(final Executor executor, final int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        final Semaphore permits = new Semaphore(parallelism);
+        final AtomicLong count = new AtomicLong();
+        try {
+            while (true) {
+                Optional<String> next = journal.take();
+                if (!next.isPresent()) {
+                    // the URLs in flight may add collection members to the frontier
+                    permits.acquire(parallelism);
+                    permits.release(parallelism);
+                    next = journal.take();
+                    if (!next.isPresent()) {
+                        break;
+                    }
+                }
+                final String url = next.get();
+                permits.acquire();
+                CompletableFuture.runAsync(() -> crawl(url), executor).whenComplete((x, ex) -> {
+                    if (ex != null) {
+                        final Throwable cause = ex instanceof CompletionException &&
+                                ex.getCause() != null ? ex.getCause() : ex;
+                        LOGGER.warn("Cannot validate {}: {}", url, cause.getMessage());
+                        journal.fail(url, cause.getMessage());
+                    }
+                    count.incrementAndGet();
+                    permits.release();
+                });
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while crawling", ex);
+        }
+        LOGGER.info("Crawled {} URLs", count.get());
+        return count.get();
+    }
+
+    private void crawl(final String url) {
+        final byte[] document;
+        try (InputStream body = client.open(url).join()) {
+            document = body.readAllBytes();
+        } catch (final IOException | RuntimeException ex) {
+            final Throwable cause = ex instanceof CompletionException ||
+                    ex instanceof UncheckedIOException ? ex.getCause() : ex;
+            if (!isTransient(cause)) {
+                throw new CompletionException(cause);
+            }
+            final String reason = cause.getMessage() != null ? cause.getMessage() :
+                    cause.toString();
+            if (journal.retry(url, reason)) {
+                LOGGER.warn("Cannot fetch {}, retrying on resume: {}", url, reason);
+            } else {
+                LOGGER.warn("Cannot fetch {}, giving up: {}", url, reason);
+            }
+            return;
+        }
+        try {
+            final Object json = JsonUtils.fromInputStream(new ByteArrayInputStream(document));
+            final List<String> members = members(json);
+            if (members != null) {
+                members.forEach(journal::enqueue);
+                journal.complete(url, hash(document), Map.of());
+                return;
+            }
+            final ValidationTarget target = projection.load(url, new ByteArrayInputStream(
+                    ParallelExpansion.toNQuads(json, new JsonLdOptions()).getBytes(UTF_8)));
+            final Map<String, Boolean> results = new LinkedHashMap<>();
+            engine.evaluate(target).forEach(r -> results.put(r.getRule().getId(), r.isPassed()));
+            journal.complete(url, hash(document), results);
+        } catch (final IOException | JsonLdError ex) {
+            throw new CompletionException(ex);
+        }
+    }
+
+    // Network failures and responses that may succeed later, unlike a missing document
+    private static boolean isTransient(final Throwable failure) {
+        if (failure instanceof AsyncClient.StatusException) {
+            final int status = ((AsyncClient.StatusException) failure).getStatus();
+            return status >= 500 || status == 408 || status == 429;
+        }
+        return failure instanceof IOException || failure instanceof TimeoutException;
+    }
+
+    // The member URLs of a collection, or null if the document is not a collection
+    private static List<String> members(final Object json) {
+        if (!(json instanceof Map)) {
+            return null;
+        }
+        final Map<?, ?> document = (Map<?, ?>) json;
+        final Object type = document.get("@type");
+        final List<?> types = type instanceof List ? (List<?>) type : List.of(String.valueOf(type));
+        if (!types.contains("sc:Collection") && !types.contains(SC + "Collection")) {
+            return null;
+        }
+        final List<String> members = new ArrayList<>();
+        for (final String property : MEMBER_PROPERTIES) {
+            final Object values = document.get(property);
+            if (values instanceof List) {
+                for (final Object member : (List<?>) values) {
+                    final Object id = member instanceof Map ? ((Map<?, ?>) member).get("@id")
+                            : member;
+                    if (id instanceof String) {
+                        members.add((String) id);
+                    }
+                }
+            }
+        }
+        return members;
+    }
+
+    private static String hash(final byte[] document) {
+        try {
+            final StringBuilder hex = new StringBuilder();
+            for (final byte b : MessageDigest.getInstance("SHA-256").digest(document)) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16))
+                        .append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (final NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
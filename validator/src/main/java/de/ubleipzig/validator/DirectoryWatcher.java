@@ -0,0 +1,344 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static de.ubleipzig.validator.IO.expandDocumentToN3Parallel;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import com.github.jsonldjava.core.JsonLdError;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+
+/**
+ * DirectoryWatcher.
+ *
+ * <p>Watches a directory tree and validates each JSON-LD file that is created or changed. Change
+ * events are debounced: a file is validated once it has not changed for the debounce interval,
+ * so an editor's burst of writes leads to a single validation. A file whose content is unchanged
+ * since its last validation is not validated again.
+ *
+ * <p>The rules, their projection and the rule engine are set up once and reused for every file,
+ * as are the caches of the JSON-LD context loader and of compiled queries and shapes.
+ *
+ * @author christopher-johnson
+ */
+public class DirectoryWatcher implements AutoCloseable {
+
+    private static final Logger LOGGER = getLogger(DirectoryWatcher.class);
+
+    /**
+     * The default debounce interval.
+     */
+    public static final Duration DEFAULT_DEBOUNCE = Duration.ofMillis(250);
+
+    /**
+     * Receives the validation results of the watched files.
+     */
+    public interface Sink {
+
+        /**
+         * Called when a file has been validated.
+         *
+         * @param file the file
+         * @param target the validation target, with the constraint violations found while loading
+         * @param results the rule results, in rule order
+         */
+        void validated(Path file, ValidationTarget target, List<RuleResult> results);
+
+        /**
+         * Called when a file could not be read or expanded.
+         *
+         * @param file the file
+         * @param error the error
+         */
+        void failed(Path file, Exception error);
+
+        /**
+         * A sink that writes one line per file, and one per failed rule and violation group, to
+         * the execution log.
+         *
+         * @param logger the logger
+         * @return the sink
+         */
+        static Sink logging(final Logger logger) {
+            return new Sink() {
+                @Override
+                public void validated(final Path file, final ValidationTarget target,
+                                      final List<RuleResult> results) {
+                    final List<RuleResult> failed = results.stream().filter(r -> !r.isPassed())
+                            .collect(toList());
+                    logger.info("{}: {} of {} rules failed", file, failed.size(), results.size());
+                    failed.forEach(r -> logger.info("{}: {}", file, r));
+                    target.getViolations().ifPresent(v -> v.log(logger));
+                }
+
+                @Override
+                public void failed(final Path file, final Exception error) {
+                    logger.warn("{}: {}", file, error.getMessage());
+                }
+            };
+        }
+    }
+
+    private final Path root;
+
+    private final Sink sink;
+
+    private final Duration debounce;
+
+    private final ExecutorService executor;
+
+    private final Projection projection;
+
+    private final RuleEngine engine;
+
+    private final WatchService watcher;
+
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+
+    // Files changed since their last validation, with the time they are due
+    private final Map<Path, Long> pending = new HashMap<>();
+
+    private final Set<Path> running = ConcurrentHashMap.newKeySet();
+
+    private final Map<Path, byte[]> digests = new ConcurrentHashMap<>();
+
+    private Thread thread;
+
+    /**
+     * Create a directory watcher with the default debounce interval and worker threads.
+     *
+     * @param root the directory
+     * @param rules the rules
+     * @param sink the sink for the results
+     * @throws IOException if the directory cannot be watched
+     */
+    public DirectoryWatcher(final Path root, final List<Rule> rules, final Sink sink)
+            throws IOException {
+        this(root, rules, sink, DEFAULT_DEBOUNCE, Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors(), r -> {
+                    final Thread thread = new Thread(r, "directory-watcher-worker");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+    }
+
+    /**
+     * Create a directory watcher.
+     *
+     * @param root the directory
+     * @param rules the rules
+     * @param sink the sink for the results; it is called from the worker threads
+     * @param debounce the time a file must be left unchanged before it is validated
+     * @param executor the executor validating the files; it is shut down on {@link #close()}
+     * @throws IOException if the directory cannot be watched
+     */
+    public DirectoryWatcher(final Path root, final List<Rule> rules, final Sink sink,
+                            final Duration debounce, final ExecutorService executor)
+            throws IOException {
+        this.root = requireNonNull(root, "The directory may not be null!");
+        this.sink = requireNonNull(sink, "The sink may not be null!");
+        this.debounce = requireNonNull(debounce, "The debounce interval may not be null!");
+        this.executor = requireNonNull(executor, "The executor may not be null!");
+        this.projection = Projection.of(rules);
+        this.engine = new RuleEngine(rules);
+        this.watcher = root.getFileSystem().newWatchService();
+    }
+
+    /**
+     * Start watching. The files already in the directory are validated first.
+     *
+     * @throws IOException if the directory cannot be read
+     */
+    public synchronized void start() throws IOException {
+        if (thread != null) {
+            throw new IllegalStateException("The watcher has already been started");
+        }
+        register(root, System.nanoTime());
+        thread = new Thread(this::run, "directory-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        LOGGER.info("Watching {}", root);
+    }
+
+    /**
+     * Stop watching.
+     */
+    @Override
+    public void close() {
+        try {
+            watcher.close();
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                final long now = System.nanoTime();
+                final long next = dispatch(now);
+                final WatchKey key = next == Long.MAX_VALUE ? watcher.take() :
+                        watcher.poll(next - now, TimeUnit.NANOSECONDS);
+                if (key != null) {
+                    handle(key, System.nanoTime());
+                }
+            }
+        } catch (final ClosedWatchServiceException | InterruptedException ex) {
+            LOGGER.info("Stopped watching {}", root);
+        }
+    }
+
+    // Submits the files that are due and returns the time the next one is due
+    private long dispatch(final long now) {
+        long next = Long.MAX_VALUE;
+        for (final Iterator<Map.Entry<Path, Long>> it = pending.entrySet().iterator();
+             it.hasNext(); ) {
+            final Map.Entry<Path, Long> entry = it.next();
+            if (entry.getValue() - now > 0) {
+                next = Math.min(next, entry.getValue());
+            } else if (running.add(entry.getKey())) {
+                final Path file = entry.getKey();
+                it.remove();
+                executor.execute(() -> {
+                    try {
+                        validate(file);
+                    } finally {
+                        running.remove(file);
+                    }
+                });
+            } else {
+                // a validation of an earlier version is still running
+                entry.setValue(now + debounce.toNanos());
+                next = Math.min(next, entry.getValue());
+            }
+        }
+        return next;
+    }
+
+    private void handle(final WatchKey key, final long now) {
+        final Path directory = directories.get(key);
+        for (final WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                LOGGER.warn("Events lost, rescanning {}", root);
+                rescan(now);
+                continue;
+            }
+            final Path path = directory.resolve((Path) event.context());
+            if (event.kind() == ENTRY_DELETE) {
+                pending.remove(path);
+                digests.remove(path);
+            } else if (Files.isDirectory(path)) {
+                if (event.kind() == ENTRY_CREATE) {
+                    try {
+                        register(path, now);
+                    } catch (final IOException ex) {
+                        LOGGER.warn("Cannot watch {}: {}", path, ex.getMessage());
+                    }
+                }
+            } else if (isDocument(path)) {
+                pending.put(path, now + debounce.toNanos());
+            }
+        }
+        if (!key.reset()) {
+            directories.remove(key);
+        }
+    }
+
+    // Watches a directory tree and schedules the documents in it
+    private void register(final Path directory, final long now) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (final Path path : (Iterable<Path>) paths::iterator) {
+                if (Files.isDirectory(path)) {
+                    directories.put(path.register(watcher, ENTRY_CREATE, ENTRY_MODIFY,
+                            ENTRY_DELETE), path);
+                } else if (isDocument(path)) {
+                    pending.put(path, now);
+                }
+            }
+        }
+    }
+
+    private void rescan(final long now) {
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.filter(DirectoryWatcher::isDocument).forEach(p -> pending.put(p, now));
+        } catch (final IOException ex) {
+            LOGGER.warn("Cannot rescan {}: {}", root, ex.getMessage());
+        }
+    }
+
+    private static boolean isDocument(final Path path) {
+        final String name = path.getFileName().toString();
+        return (name.endsWith(".json") || name.endsWith(".jsonld")) && !Files.isDirectory(path);
+    }
+
+    private void validate(final Path file) {
+        final ValidationTarget target;
+        try {
+            final byte[] document = Files.readAllBytes(file);
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(document);
+            if (Arrays.equals(digest, digests.put(file, digest))) {
+                LOGGER.debug("{} is unchanged", file);
+                return;
+            }
+            target = projection.load(null,
+                    expandDocumentToN3Parallel(new ByteArrayInputStream(document)));
+        } catch (final NoSuchFileException ex) {
+            digests.remove(file);
+            return;
+        } catch (final IOException | JsonLdError | RuntimeException ex) {
+            // a failed version is validated again when it is saved next
+            digests.remove(file);
+            sink.failed(file, ex);
+            return;
+        } catch (final NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+        sink.validated(file, target, engine.evaluate(target));
+    }
+}
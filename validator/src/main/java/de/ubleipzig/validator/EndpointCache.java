@@ -0,0 +1,279 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.CompletableFuture.failedFuture;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+
+/**
+ * EndpointCache.
+ *
+ * <p>Caches the responses of HEAD and OPTIONS requests by method, accepted media type and
+ * normalized URL for a fixed time. Concurrent lookups of the same key share one request, so
+ * checking every canvas of a collection costs one request per distinct URL rather than one per
+ * reference. Failed requests are not cached. Expired responses are removed at most once per time
+ * to live as new requests are sent, so a long-lived cache holds about one time to live's worth of
+ * distinct URLs.
+ *
+ * @author christopher-johnson
+ */
+public class EndpointCache {
+
+    private static final Logger LOGGER = getLogger(EndpointCache.class);
+
+    /**
+     * Sends a request for the cache.
+     */
+    @FunctionalInterface
+    public interface Fetcher {
+
+        /**
+         * Send a request.
+         *
+         * @param method the method, {@code HEAD} or {@code OPTIONS}
+         * @param uri the normalized URL
+         * @param accept the accepted media type
+         * @return the response
+         */
+        CompletableFuture<EndpointResponse> fetch(String method, String uri, String accept);
+    }
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    private final long ttl;
+
+    private final Fetcher fetcher;
+
+    private final LongSupplier clock;
+
+    private final AtomicLong requests = new AtomicLong();
+
+    private final AtomicLong lastEviction;
+
+    /**
+     * Create an endpoint cache.
+     *
+     * @param ttl how long a response is reused
+     * @param fetcher the fetcher sending the requests
+     */
+    public EndpointCache(final Duration ttl, final Fetcher fetcher) {
+        this(ttl, fetcher, System::nanoTime);
+    }
+
+    EndpointCache(final Duration ttl, final Fetcher fetcher, final LongSupplier clock) {
+        requireNonNull(ttl, "The time to live may not be null!");
+        requireNonNull(fetcher, "The fetcher may not be null!");
+        this.ttl = ttl.toNanos();
+        this.fetcher = fetcher;
+        this.clock = clock;
+        this.lastEviction = new AtomicLong(clock.getAsLong());
+    }
+
+    /**
+     * A fetcher using the blocking Apache HTTP client on the calling thread.
+     *
+     * @param method the method
+     * @param uri the URL
+     * @param accept the accepted media type
+     * @return the completed response
+     */
+    public static CompletableFuture<EndpointResponse> apache(final String method,
+                                                             final String uri,
+                                                             final String accept) {
+        try {
+            final org.apache.http.HttpResponse response = "OPTIONS".equals(method) ?
+                    ApacheClient.optionsApacheClientResponse(uri, accept) :
+                    ApacheClient.headApacheClientResponse(uri, accept);
+            try {
+                return completedFuture(EndpointResponse.of(response));
+            } finally {
+                if (response instanceof Closeable) {
+                    ((Closeable) response).close();
+                }
+            }
+        } catch (final IOException ex) {
+            return failedFuture(ex);
+        }
+    }
+
+    /**
+     * A fetcher using an {@link AsyncClient}.
+     *
+     * @param client the client
+     * @return the fetcher
+     */
+    public static Fetcher async(final AsyncClient client) {
+        return (method, uri, accept) -> ("OPTIONS".equals(method) ? client.options(uri, accept) :
+                client.head(uri, accept)).thenApply(EndpointResponse::of);
+    }
+
+    /**
+     * Get the response to a HEAD request.
+     *
+     * @param uri the URL
+     * @param accept the accepted media type
+     * @return the response
+     */
+    public CompletableFuture<EndpointResponse> head(final String uri, final String accept) {
+        return get("HEAD", uri, accept);
+    }
+
+    /**
+     * Get the response to an OPTIONS request.
+     *
+     * @param uri the URL
+     * @param accept the accepted media type
+     * @return the response
+     */
+    public CompletableFuture<EndpointResponse> options(final String uri, final String accept) {
+        return get("OPTIONS", uri, accept);
+    }
+
+    /**
+     * Get the number of requests sent.
+     *
+     * @return the number of requests
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * Remove the expired responses.
+     */
+    public void evictExpired() {
+        final long now = clock.getAsLong();
+        lastEviction.set(now);
+        entries.values().removeIf(e -> e.isExpired(now));
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private CompletableFuture<EndpointResponse> get(final String method, final String uri,
+                                                    final String accept) {
+        final Key key = new Key(method, normalize(uri), accept);
+        final Entry created = new Entry();
+        final Entry entry = entries.compute(key, (k, old) ->
+                old == null || old.isExpired(clock.getAsLong()) ? created : old);
+        if (entry == created) {
+            final long now = clock.getAsLong();
+            final long last = lastEviction.get();
+            if (now - last >= ttl && lastEviction.compareAndSet(last, now)) {
+                entries.values().removeIf(e -> e.isExpired(now));
+            }
+            requests.incrementAndGet();
+            LOGGER.debug("{} {}", method, key.uri);
+            final CompletableFuture<EndpointResponse> response;
+            try {
+                response = fetcher.fetch(method, key.uri, accept);
+            } catch (final RuntimeException ex) {
+                entries.remove(key, created);
+                created.response.completeExceptionally(ex);
+                return created.response;
+            }
+            response.whenComplete((value, error) -> {
+                if (error != null) {
+                    entries.remove(key, created);
+                    created.response.completeExceptionally(error);
+                } else {
+                    created.expires = clock.getAsLong() + ttl;
+                    created.response.complete(value);
+                }
+            });
+        }
+        return entry.response;
+    }
+
+    /**
+     * Normalize a URL: the scheme and host are lower-cased, a default port and the fragment are
+     * removed, dot segments are resolved and an empty path becomes {@code /}.
+     *
+     * @param uri the URL
+     * @return the normalized URL
+     */
+    static String normalize(final String uri) {
+        final URI parsed = URI.create(uri).normalize();
+        if (parsed.isOpaque() || parsed.getHost() == null) {
+            return parsed.toString();
+        }
+        final String scheme = parsed.getScheme().toLowerCase();
+        final int port = parsed.getPort() == 80 && scheme.equals("http") ||
+                parsed.getPort() == 443 && scheme.equals("https") ? -1 : parsed.getPort();
+        final String path = parsed.getRawPath() == null || parsed.getRawPath().isEmpty() ? "/" :
+                parsed.getRawPath();
+        return scheme + "://" + (parsed.getRawUserInfo() != null ? parsed.getRawUserInfo() +
+                "@" : "") + parsed.getHost().toLowerCase() + (port != -1 ? ":" + port : "") +
+                path + (parsed.getRawQuery() != null ? "?" + parsed.getRawQuery() : "");
+    }
+
+    private static final class Entry {
+
+        private final CompletableFuture<EndpointResponse> response = new CompletableFuture<>();
+
+        // Long.MAX_VALUE while the request is in flight
+        private volatile long expires = Long.MAX_VALUE;
+
+        private boolean isExpired(final long now) {
+            return expires != Long.MAX_VALUE && now - expires >= 0;
+        }
+    }
+
+    private static final class Key {
+
+        private final String method;
+
+        private final String uri;
+
+        private final String accept;
+
+        private Key(final String method, final String uri, final String accept) {
+            this.method = method;
+            this.uri = uri;
+            this.accept = accept;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return method.equals(other.method) && uri.equals(other.uri) &&
+                    Objects.equals(accept, other.accept);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(method, uri, accept);
+        }
+    }
+}
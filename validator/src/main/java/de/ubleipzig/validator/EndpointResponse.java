@@ -0,0 +1,112 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static java.lang.String.CASE_INSENSITIVE_ORDER;
+import static java.util.Collections.unmodifiableMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * EndpointResponse.
+ *
+ * <p>The parts of a HEAD or OPTIONS response that the endpoint rules check: the status and the
+ * {@code Content-Type}, {@code Link} and CORS headers. Other headers are dropped, so a response
+ * can be cached without holding on to the connection or the full header set.
+ *
+ * @author christopher-johnson
+ */
+public class EndpointResponse {
+
+    private final int status;
+
+    private final Map<String, List<String>> headers;
+
+    /**
+     * Create an endpoint response.
+     *
+     * @param status the status code
+     * @param headers the response headers; headers the rules do not check are dropped
+     */
+    public EndpointResponse(final int status, final Map<String, List<String>> headers) {
+        final Map<String, List<String>> kept = new TreeMap<>(CASE_INSENSITIVE_ORDER);
+        headers.forEach((name, values) -> {
+            if (isKept(name)) {
+                kept.computeIfAbsent(name, n -> new ArrayList<>()).addAll(values);
+            }
+        });
+        kept.replaceAll((name, values) -> List.copyOf(values));
+        this.status = status;
+        this.headers = unmodifiableMap(kept);
+    }
+
+    static boolean isKept(final String name) {
+        final String header = name.toLowerCase();
+        return header.equals("content-type") || header.equals("link") ||
+                header.startsWith("access-control-");
+    }
+
+    /**
+     * Create an endpoint response from an Apache HTTP client response.
+     *
+     * @param response the response
+     * @return the endpoint response
+     */
+    static EndpointResponse of(final org.apache.http.HttpResponse response) {
+        final Map<String, List<String>> headers = new TreeMap<>(CASE_INSENSITIVE_ORDER);
+        for (final org.apache.http.Header header : response.getAllHeaders()) {
+            headers.computeIfAbsent(header.getName(), n -> new ArrayList<>())
+                    .add(header.getValue());
+        }
+        return new EndpointResponse(response.getStatusLine().getStatusCode(), headers);
+    }
+
+    /**
+     * Create an endpoint response from a JDK HTTP client response.
+     *
+     * @param response the response
+     * @return the endpoint response
+     */
+    static EndpointResponse of(final java.net.http.HttpResponse<?> response) {
+        return new EndpointResponse(response.statusCode(), response.headers().map());
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * Get the first value of a header.
+     *
+     * @param name the header name, matched case-insensitively
+     * @return the value, if the header is present and kept
+     */
+    public Optional<String> getHeader(final String name) {
+        return Optional.ofNullable(headers.get(name)).filter(v -> !v.isEmpty()).map(v -> v.get(0));
+    }
+
+    public Map<String, List<String>> getHeaders() {
+        return headers;
+    }
+
+    @Override
+    public String toString() {
+        return status + " " + headers;
+    }
+}
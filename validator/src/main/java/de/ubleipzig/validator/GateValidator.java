@@ -0,0 +1,365 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static de.ubleipzig.validator.IO.expandDocumentToN3Parallel;
+import static de.ubleipzig.validator.Severity.MUST;
+import static java.util.Comparator.comparing;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.stream.Collectors.toList;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import com.github.jsonldjava.core.JsonLdError;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.trellisldp.api.RuntimeRepositoryException;
+
+/**
+ * GateValidator.
+ *
+ * <p>Evaluates rules ordered by severity and estimated cost and stops at the first failing
+ * {@link Severity#MUST} rule. Network-bound must rules are started in the background as soon as
+ * the check begins and are cancelled once the verdict is known.
+ *
+ * <p>Documents fetched with {@link #fetch(String, AsyncClient)} are pre-validated while they are
+ * downloaded, and the transfer is aborted as soon as the header rules decide the verdict.
+ *
+ * @author christopher-johnson
+ */
+public class GateValidator {
+
+    private static final Logger LOGGER = getLogger(GateValidator.class);
+
+    static final Comparator<Rule> EVALUATION_ORDER =
+            comparing(Rule::getSeverity).thenComparingInt(Rule::getCost);
+
+    private final List<Rule> rules;
+
+    private final ExecutorService executor;
+
+    private final JsonPreValidator preValidator = new JsonPreValidator();
+
+    private final Projection projection;
+
+    /**
+     * Create a gate validator with a default executor for network-bound rules.
+     *
+     * @param rules the rules
+     */
+    public GateValidator(final List<Rule> rules) {
+        this(rules, Executors.newCachedThreadPool(r -> {
+            final Thread thread = new Thread(r, "gate-validator");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    /**
+     * Create a gate validator. A {@link #check(ValidationTarget)} waits on the executor for the
+     * network-bound rules, so checks called from tasks of a bounded executor should use a
+     * different one; {@link #fetch(String, AsyncClient)} does not wait on it.
+     *
+     * @param rules the rules
+     * @param executor the executor for network-bound rules and background evaluation
+     */
+    public GateValidator(final List<Rule> rules, final ExecutorService executor) {
+        this.rules = rules.stream().sorted(EVALUATION_ORDER).collect(toList());
+        this.executor = executor;
+        this.projection = Projection.of(rules);
+    }
+
+    /**
+     * Check whether any must rule fails.
+     *
+     * @param target the validation target
+     * @return the verdict
+     */
+    public Verdict check(final ValidationTarget target) {
+        final Map<Rule, RuleResult> known = new ConcurrentHashMap<>();
+        final CompletionService<RuleResult> remote = new ExecutorCompletionService<>(executor);
+        final Map<Future<RuleResult>, Rule> pending = new HashMap<>();
+        rules.stream().filter(r -> r.getSeverity() == MUST && r.isRemote())
+                .forEach(r -> pending.put(remote.submit(() -> r.evaluate(target)), r));
+        try {
+            for (final Rule rule : rules) {
+                if (rule.getSeverity() == MUST && !rule.isRemote()) {
+                    final RuleResult result = rule.evaluate(target);
+                    known.put(rule, result);
+                    if (!result.isPassed()) {
+                        return failed(target, known, result, pending);
+                    }
+                }
+            }
+            for (int i = pending.size(); i > 0; i--) {
+                final Future<RuleResult> future = remote.take();
+                final Rule rule = pending.remove(future);
+                final RuleResult result = result(rule, future);
+                known.put(rule, result);
+                if (!result.isPassed()) {
+                    return failed(target, known, result, pending);
+                }
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            pending.keySet().forEach(f -> f.cancel(true));
+            throw new IllegalStateException("Interrupted while waiting for remote rules", ex);
+        }
+        LOGGER.debug("Gate passed after {} rules", known.size());
+        return new Verdict(null, () -> evaluateAll(target, known));
+    }
+
+    /**
+     * Check a raw JSON-LD document. The document header is pre-validated on the raw JSON first;
+     * a failing must rule is reported without expanding the document to RDF.
+     *
+     * @param resource the requested resource, may be null
+     * @param document the JSON-LD document
+     * @return the verdict
+     */
+    public Verdict check(final String resource, final byte[] document) {
+        final List<RuleResult> header;
+        try {
+            header = preValidator.validate(document, resource);
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        final Optional<RuleResult> failure = header.stream()
+                .filter(r -> !r.isPassed() && r.getRule().getSeverity() == MUST
+                        && rules.contains(r.getRule())).findFirst();
+        if (failure.isPresent()) {
+            LOGGER.info("Gate failed before expansion: {}", failure.get());
+            return new Verdict(failure.get(), () -> supplyAsync(() -> expand(resource, document),
+                    executor).thenCompose(target -> evaluateAll(target,
+                    new ConcurrentHashMap<>())));
+        }
+        return check(expand(resource, document));
+    }
+
+    /**
+     * Fetch and check a JSON-LD document. The header rules are checked on the response body as
+     * it arrives, and the transfer is aborted as soon as one of them fails as a must rule, or
+     * once they have passed and no other must rule remains. Otherwise the rest of the body is
+     * read and the document is expanded and checked. The full results of an aborted check fetch
+     * the document again. No executor task waits for the network-bound rules, so any number of
+     * fetches may share a bounded executor.
+     *
+     * @param resource the document location
+     * @param client the client
+     * @return the verdict
+     */
+    public CompletableFuture<Verdict> fetch(final String resource, final AsyncClient client) {
+        final List<Rule> gating = rules.stream().filter(r -> r.getSeverity() == MUST)
+                .collect(toList());
+        return client.open(resource).thenComposeAsync(body -> {
+            final ByteArrayOutputStream read = new ByteArrayOutputStream();
+            try (InputStream document = new RecordingInputStream(body, read)) {
+                final List<RuleResult> header =
+                        preValidator.validate(document, resource, gating);
+                final Optional<RuleResult> failure = header.stream()
+                        .filter(r -> !r.isPassed()).findFirst();
+                if (failure.isPresent() || header.size() == gating.size()) {
+                    LOGGER.info("Gate decided after {} bytes of {}", read.size(), resource);
+                    return completedFuture(new Verdict(failure.orElse(null),
+                            () -> client.open(resource)
+                            .thenApplyAsync(refetched -> {
+                                try (InputStream is = refetched) {
+                                    return expand(resource, is.readAllBytes());
+                                } catch (final IOException ex) {
+                                    throw new UncheckedIOException(ex);
+                                }
+                            }, executor).thenCompose(target -> evaluateAll(target,
+                                    new ConcurrentHashMap<>()))));
+                }
+                document.transferTo(OutputStream.nullOutputStream());
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            return checkAsync(expand(resource, read.toByteArray()));
+        }, executor);
+    }
+
+    // As check, but completing with the first failing remote rule rather than waiting for it.
+    // The remote rules still pending at the verdict are cancelled; the results known by then
+    // are reused for the full results.
+    private CompletableFuture<Verdict> checkAsync(final ValidationTarget target) {
+        final Map<Rule, RuleResult> known = new ConcurrentHashMap<>();
+        final CompletableFuture<Verdict> verdict = new CompletableFuture<>();
+        final List<Rule> remote = rules.stream()
+                .filter(r -> r.getSeverity() == MUST && r.isRemote()).collect(toList());
+        // the remote rules and the local rules as a whole
+        final AtomicInteger remaining = new AtomicInteger(remote.size() + 1);
+        final List<Future<?>> pending = new CopyOnWriteArrayList<>();
+        for (final Rule rule : remote) {
+            final Future<?> task = executor.submit(() -> {
+                RuleResult result;
+                try {
+                    result = rule.evaluate(target);
+                } catch (final RuntimeException ex) {
+                    result = RuleResult.fail(rule, ex.getMessage());
+                }
+                // an evaluation ending after the verdict was cancelled, and may have been
+                // interrupted; its result is not reliable
+                if (verdict.isDone()) {
+                    return;
+                }
+                known.put(rule, result);
+                if (!result.isPassed()) {
+                    final RuleResult failure = result;
+                    if (verdict.complete(new Verdict(failure, () -> evaluateAll(target,
+                            known)))) {
+                        pending.forEach(f -> f.cancel(true));
+                        LOGGER.info("Gate failed: {}", failure);
+                    }
+                } else if (remaining.decrementAndGet() == 0) {
+                    LOGGER.debug("Gate passed after {} rules", known.size());
+                    verdict.complete(new Verdict(null, () -> evaluateAll(target, known)));
+                }
+            });
+            pending.add(task);
+            if (verdict.isDone()) {
+                task.cancel(true);
+            }
+        }
+        for (final Rule rule : rules) {
+            if (rule.getSeverity() == MUST && !rule.isRemote() && !verdict.isDone()) {
+                final RuleResult result = rule.evaluate(target);
+                known.put(rule, result);
+                if (!result.isPassed() && verdict.complete(new Verdict(result,
+                        () -> evaluateAll(target, known)))) {
+                    pending.forEach(f -> f.cancel(true));
+                    LOGGER.info("Gate failed: {}", result);
+                }
+            }
+        }
+        if (!verdict.isDone() && remaining.decrementAndGet() == 0) {
+            LOGGER.debug("Gate passed after {} rules", known.size());
+            verdict.complete(new Verdict(null, () -> evaluateAll(target, known)));
+        }
+        return verdict;
+    }
+
+    // Copies every byte read from the stream
+    private static final class RecordingInputStream extends FilterInputStream {
+
+        private final OutputStream copy;
+
+        RecordingInputStream(final InputStream in, final OutputStream copy) {
+            super(in);
+            this.copy = copy;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+            if (b >= 0) {
+                copy.write(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            final int n = super.read(b, off, len);
+            if (n > 0) {
+                copy.write(b, off, n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            return n <= 0 ? 0 : Math.max(read(new byte[(int) Math.min(n, 8192)]), 0);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+
+    private ValidationTarget expand(final String resource, final byte[] document) {
+        try {
+            return projection.load(resource,
+                    expandDocumentToN3Parallel(new ByteArrayInputStream(document)));
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        } catch (final JsonLdError ex) {
+            throw new RuntimeRepositoryException(ex.getMessage());
+        }
+    }
+
+    private Verdict failed(final ValidationTarget target, final Map<Rule, RuleResult> known,
+                           final RuleResult failure, final Map<Future<RuleResult>, Rule> pending) {
+        pending.keySet().forEach(f -> f.cancel(true));
+        LOGGER.info("Gate failed: {}", failure);
+        return new Verdict(failure, () -> evaluateAll(target, known));
+    }
+
+    private static RuleResult result(final Rule rule, final Future<RuleResult> future)
+            throws InterruptedException {
+        try {
+            return future.get();
+        } catch (final ExecutionException ex) {
+            return RuleResult.fail(rule, ex.getCause().getMessage());
+        }
+    }
+
+    // Local rules run sequentially on one task, remote rules each on their own
+    private CompletableFuture<List<RuleResult>> evaluateAll(final ValidationTarget target,
+                                                            final Map<Rule, RuleResult> known) {
+        final CompletableFuture<Void> local = supplyAsync(() -> {
+            rules.stream().filter(r -> !r.isRemote() && !known.containsKey(r))
+                    .forEach(r -> known.put(r, r.evaluate(target)));
+            return null;
+        }, executor);
+        final List<CompletableFuture<RuleResult>> results = new ArrayList<>();
+        for (final Rule rule : rules) {
+            if (known.containsKey(rule)) {
+                results.add(completedFuture(known.get(rule)));
+            } else if (rule.isRemote()) {
+                results.add(supplyAsync(() -> rule.evaluate(target), executor));
+            } else {
+                results.add(local.thenApply(x -> known.get(rule)));
+            }
+        }
+        return CompletableFuture.allOf(results.toArray(new CompletableFuture[0]))
+                .thenApply(x -> results.stream().map(CompletableFuture::join).collect(toList()));
+    }
+}
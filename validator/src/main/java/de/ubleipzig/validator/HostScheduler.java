@@ -0,0 +1,372 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static java.time.format.DateTimeFormatter.RFC_1123_DATE_TIME;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+
+/**
+ * HostScheduler.
+ *
+ * <p>Schedules outbound requests per host. The number of concurrent requests to a host adapts
+ * additively-increase, multiplicatively-decrease: it grows by one per window of successful
+ * responses faster than the target latency and halves on a {@code 429} or {@code 503} response,
+ * a failed request or a slow response.
+ *
+ * <p>Requests answered with {@code 429} or {@code 503}, or failing with an exception, are
+ * retried with full-jitter exponential backoff. A {@code Retry-After} header sets the least delay
+ * and holds back all requests to the host until it has passed. Retries draw on a budget that
+ * every request adds a fraction of a retry to, so a failing origin cannot multiply the request
+ * rate. No retry is scheduled past the deadline of a request, and a request still outstanding at
+ * its deadline fails with a {@link java.util.concurrent.TimeoutException}. The bodies of retried
+ * responses and of responses arriving after the deadline are closed.
+ *
+ * @author christopher-johnson
+ */
+public class HostScheduler {
+
+    private static final Logger LOGGER = getLogger(HostScheduler.class);
+
+    private static final int DEFAULT_MAX_PER_HOST = 8;
+
+    private static final Duration DEFAULT_TARGET_LATENCY = Duration.ofSeconds(2);
+
+    private static final Duration DEFAULT_DEADLINE = Duration.ofSeconds(30);
+
+    private static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    private static final Duration DEFAULT_BASE_BACKOFF = Duration.ofMillis(200);
+
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(10);
+
+    // Every request adds this fraction of a retry to the budget
+    private static final double RETRY_RATIO = 0.2;
+
+    private static final double RETRY_CAPACITY = 10;
+
+    private final int maxPerHost;
+
+    private final long targetLatency;
+
+    private final long deadline;
+
+    private final int maxAttempts;
+
+    private final long baseBackoff;
+
+    private final Map<String, Host> hosts = new ConcurrentHashMap<>();
+
+    private double retryTokens = RETRY_CAPACITY;
+
+    /**
+     * Create a host scheduler with default limits.
+     */
+    public HostScheduler() {
+        this(DEFAULT_MAX_PER_HOST, DEFAULT_TARGET_LATENCY, DEFAULT_DEADLINE, DEFAULT_MAX_ATTEMPTS);
+    }
+
+    /**
+     * Create a host scheduler.
+     *
+     * @param maxPerHost the maximum number of concurrent requests to one host
+     * @param targetLatency responses slower than this reduce the concurrency of their host
+     * @param deadline the time a request may take, including its retries
+     * @param maxAttempts the maximum number of attempts per request
+     */
+    public HostScheduler(final int maxPerHost, final Duration targetLatency,
+                         final Duration deadline, final int maxAttempts) {
+        this(maxPerHost, targetLatency, deadline, maxAttempts, DEFAULT_BASE_BACKOFF);
+    }
+
+    HostScheduler(final int maxPerHost, final Duration targetLatency, final Duration deadline,
+                  final int maxAttempts, final Duration baseBackoff) {
+        if (maxPerHost < 1 || maxAttempts < 1) {
+            throw new IllegalArgumentException("maxPerHost and maxAttempts must be positive");
+        }
+        this.maxPerHost = maxPerHost;
+        this.targetLatency = requireNonNull(targetLatency,
+                "The target latency may not be null!").toNanos();
+        this.deadline = requireNonNull(deadline, "The deadline may not be null!").toNanos();
+        this.maxAttempts = maxAttempts;
+        this.baseBackoff = baseBackoff.toNanos();
+    }
+
+    /**
+     * Send a request through the scheduler.
+     *
+     * @param uri the request URI, whose authority identifies the host
+     * @param attempt sends one attempt of the request
+     * @param <T> the response body type
+     * @return the final response, or the last response if no retry was possible
+     */
+    public <T> CompletableFuture<HttpResponse<T>> send(final URI uri,
+            final Supplier<CompletableFuture<HttpResponse<T>>> attempt) {
+        final Host host = hosts.computeIfAbsent(String.valueOf(uri.getRawAuthority()),
+                Host::new);
+        deposit();
+        final CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+        host.enqueue(new Attempt<>(host, attempt, result, System.nanoTime() + deadline));
+        return result.orTimeout(deadline, NANOSECONDS);
+    }
+
+    /**
+     * Get the current concurrency limit of a host.
+     *
+     * @param authority the host and port
+     * @return the limit, if a request has been sent to the host
+     */
+    public Optional<Integer> getLimit(final String authority) {
+        return Optional.ofNullable(hosts.get(authority)).map(Host::getLimit);
+    }
+
+    private synchronized void deposit() {
+        retryTokens = Math.min(RETRY_CAPACITY, retryTokens + RETRY_RATIO);
+    }
+
+    private synchronized boolean withdraw() {
+        if (retryTokens >= 1) {
+            retryTokens--;
+            return true;
+        }
+        return false;
+    }
+
+    static boolean isRetryable(final int status) {
+        return status == 429 || status == 503;
+    }
+
+    /**
+     * Parse a {@code Retry-After} value, either a number of seconds or an HTTP date.
+     *
+     * @param value the header value
+     * @param now the current time
+     * @return the delay, if the value is valid
+     */
+    static Optional<Duration> retryAfter(final String value, final Instant now) {
+        try {
+            return Optional.of(Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim()))));
+        } catch (final NumberFormatException ex) {
+            try {
+                final Duration delay = Duration.between(now,
+                        ZonedDateTime.parse(value.trim(), RFC_1123_DATE_TIME).toInstant());
+                return Optional.of(delay.isNegative() ? Duration.ZERO : delay);
+            } catch (final DateTimeParseException ex2) {
+                return Optional.empty();
+            }
+        }
+    }
+
+    // Closes the body of a response that is not handed on, so a streamed body releases its
+    // connection
+    static void discard(final HttpResponse<?> response) {
+        final Object body = response.body();
+        if (body instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) body).close();
+            } catch (final Exception ex) {
+                LOGGER.debug("Failed to close a discarded response: {}", ex.getMessage());
+            }
+        }
+    }
+
+    // Full jitter: a uniform delay up to the capped exponential backoff
+    private long backoff(final int attempt) {
+        final long cap = Math.min(MAX_BACKOFF.toNanos(), baseBackoff << Math.min(attempt, 20));
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    private final class Attempt<T> implements Runnable {
+
+        private final Host host;
+
+        private final Supplier<CompletableFuture<HttpResponse<T>>> attempt;
+
+        private final CompletableFuture<HttpResponse<T>> result;
+
+        private final long deadlineAt;
+
+        private int attempts;
+
+        private Attempt(final Host host, final Supplier<CompletableFuture<HttpResponse<T>>> attempt,
+                        final CompletableFuture<HttpResponse<T>> result, final long deadlineAt) {
+            this.host = host;
+            this.attempt = attempt;
+            this.result = result;
+            this.deadlineAt = deadlineAt;
+        }
+
+        @Override
+        public void run() {
+            if (result.isDone()) {
+                host.release();
+                return;
+            }
+            attempts++;
+            final long start = System.nanoTime();
+            final CompletableFuture<HttpResponse<T>> sent;
+            try {
+                sent = attempt.get();
+            } catch (final RuntimeException ex) {
+                host.release();
+                result.completeExceptionally(ex);
+                return;
+            }
+            sent.whenComplete((response, error) -> {
+                final long latency = System.nanoTime() - start;
+                if (error == null && !isRetryable(response.statusCode())) {
+                    host.onResponse(latency);
+                    host.release();
+                    if (!result.complete(response)) {
+                        discard(response);
+                    }
+                    return;
+                }
+                host.onCongestion();
+                host.release();
+                long delay = backoff(attempts);
+                if (error == null) {
+                    final Optional<Duration> retryAfter = response.headers()
+                            .firstValue("Retry-After").flatMap(v -> retryAfter(v, Instant.now()));
+                    if (retryAfter.isPresent()) {
+                        delay = Math.max(delay, retryAfter.get().toNanos());
+                        host.holdFor(retryAfter.get().toNanos());
+                    }
+                }
+                if (attempts < maxAttempts && System.nanoTime() + delay < deadlineAt &&
+                        withdraw()) {
+                    LOGGER.debug("Retrying request to {} in {} ms", host.name, delay / 1000000);
+                    if (response != null) {
+                        discard(response);
+                    }
+                    CompletableFuture.delayedExecutor(delay, NANOSECONDS)
+                            .execute(() -> host.enqueue(this));
+                } else if (error != null) {
+                    result.completeExceptionally(error);
+                } else if (!result.complete(response)) {
+                    discard(response);
+                }
+            });
+        }
+    }
+
+    private final class Host {
+
+        private final String name;
+
+        private final Queue<Runnable> waiting = new ArrayDeque<>();
+
+        private double limit = 1;
+
+        private int inFlight;
+
+        private long heldUntil;
+
+        private boolean wakeUpScheduled;
+
+        private long lastDecrease;
+
+        private Host(final String name) {
+            this.name = name;
+            this.lastDecrease = System.nanoTime() - targetLatency;
+        }
+
+        private synchronized int getLimit() {
+            return (int) limit;
+        }
+
+        private void enqueue(final Runnable task) {
+            synchronized (this) {
+                waiting.add(task);
+            }
+            dispatch();
+        }
+
+        private void release() {
+            synchronized (this) {
+                inFlight--;
+            }
+            dispatch();
+        }
+
+        // Additive increase: one more request per window of limit successful responses
+        private synchronized void onResponse(final long latency) {
+            if (latency > targetLatency) {
+                onCongestion();
+            } else {
+                limit = Math.min(maxPerHost, limit + 1 / limit);
+            }
+        }
+
+        // Multiplicative decrease, at most once per target latency so one burst halves it once
+        private synchronized void onCongestion() {
+            final long now = System.nanoTime();
+            if (now - lastDecrease >= targetLatency) {
+                limit = Math.max(1, limit / 2);
+                lastDecrease = now;
+                LOGGER.debug("Reduced the concurrency of {} to {}", name, (int) limit);
+            }
+        }
+
+        private synchronized void holdFor(final long delay) {
+            heldUntil = Math.max(heldUntil, System.nanoTime() + delay);
+        }
+
+        private void dispatch() {
+            while (true) {
+                final Runnable next;
+                synchronized (this) {
+                    final long wait = heldUntil - System.nanoTime();
+                    if (waiting.isEmpty() || inFlight >= (int) limit) {
+                        return;
+                    }
+                    if (wait > 0) {
+                        if (!wakeUpScheduled) {
+                            wakeUpScheduled = true;
+                            CompletableFuture.delayedExecutor(wait, NANOSECONDS).execute(() -> {
+                                synchronized (this) {
+                                    wakeUpScheduled = false;
+                                }
+                                dispatch();
+                            });
+                        }
+                        return;
+                    }
+                    next = waiting.poll();
+                    inFlight++;
+                }
+                next.run();
+            }
+        }
+    }
+}
@@ -36,6 +36,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.UncheckedIOException;
 import java.io.Writer;
 import java.net.URL;
 import java.util.Map;
@@ -46,11 +47,8 @@ import org.apache.commons.rdf.api.Graph;
 import org.apache.commons.rdf.api.Triple;
 import org.apache.commons.rdf.jena.JenaRDF;
 import org.apache.jena.rdf.model.Model;
-import org.apache.jena.riot.Lang;
-import org.apache.jena.riot.RDFDataMgr;
 import org.slf4j.Logger;
 import org.trellisldp.api.IOService;
-import org.trellisldp.api.RuntimeRepositoryException;
 import org.trellisldp.io.JenaIOService;
 
 public class IO {
@@ -89,15 +87,21 @@ public class IO {
         return new ByteArrayInputStream(out.toByteArray());
     }
 
+    static InputStream expandDocumentToN3Parallel(final InputStream is)
+            throws IOException, JsonLdError {
+        final String expanded =
+                ParallelExpansion.toNQuads(JsonUtils.fromInputStream(is), new JsonLdOptions());
+        return new ByteArrayInputStream(expanded.getBytes(UTF_8));
+    }
+
     static InputStream expandDocumentToN3(final URL testUri)
             throws IOException, JsonLdError {
         JsonLdOptions options = new JsonLdOptions();
         options.format = JsonLdConsts.APPLICATION_NQUADS;
-        Object expanded = JsonLdProcessor
-                .toRDF(
-                        JsonUtils.fromInputStream(
-                                getApacheClientResponse(testUri.toString(), contentTypeJSONLD)),
-                        options);
+        final Object expanded;
+        try (InputStream body = getApacheClientResponse(testUri.toString(), contentTypeJSONLD)) {
+            expanded = JsonLdProcessor.toRDF(JsonUtils.fromInputStream(body), options);
+        }
         final ByteArrayOutputStream out = new ByteArrayOutputStream();
         final Writer writer = new OutputStreamWriter(out, UTF_8);
         writer.write(String.valueOf(expanded));
@@ -112,11 +116,11 @@ public class IO {
     }
 
     static Graph getGraph(InputStream stream) {
-        final Model model = createDefaultModel();
-        final Lang lang = rdf.asJenaLang(NTRIPLES).orElseThrow(() -> new RuntimeRepositoryException(
-                "Unsupported RDF Syntax: " + NTRIPLES.mediaType));
-        RDFDataMgr.read(model, stream, null, lang);
-        return rdf.asGraph(model);
+        try {
+            return rdf.asGraph(BulkGraph.of(ParallelParser.parse(stream.readAllBytes())));
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
     }
 
     public static void saveFile(String graphs) throws IOException {
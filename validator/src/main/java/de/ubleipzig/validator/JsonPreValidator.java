@@ -0,0 +1,341 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static de.ubleipzig.validator.Severity.MUST;
+import static java.util.Map.entry;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * JsonPreValidator.
+ *
+ * <p>Evaluates the structural IIIF Presentation 2 rules {@code r0001}-{@code r0012} directly on
+ * the JSON token stream, without building a tree, expanding JSON-LD or converting to RDF. The
+ * {@code canvases} of each sequence and all other nested values that no rule looks at are
+ * skipped by the tokenizer.
+ *
+ * <p>Given the rules a caller needs, a document stream can also be validated incrementally: each
+ * rule is decided as soon as the top-level fields it depends on have been read, and reading stops
+ * once all requested rules are decided or one of them fails as a {@link Severity#MUST} rule.
+ *
+ * @author christopher-johnson
+ */
+public class JsonPreValidator {
+
+    private static final JsonFactory factory = new JsonFactory();
+
+    private static final String SC = "http://iiif.io/api/presentation/2#";
+
+    private static final String RDFS = "http://www.w3.org/2000/01/rdf-schema#";
+
+    private static final String DC = "http://purl.org/dc/elements/1.1/";
+
+    private static final String FOAF = "http://xmlns.com/foaf/0.1/";
+
+    // An absolute IRI; blank node identifiers and relative references are not
+    private static final Pattern absoluteIRI =
+            Pattern.compile("^[A-Za-z][A-Za-z0-9+.-]*:[^\\s<>\"{}|\\\\^`]*$");
+
+    // Compact and expanded spellings of the manifest properties, keyed to the context term
+    private static final Map<String, String> aliases = Map.ofEntries(
+            entry("sc:hasSequences", "sequences"), entry(SC + "hasSequences", "sequences"),
+            entry("sc:hasRanges", "structures"), entry(SC + "hasRanges", "structures"),
+            entry("sc:metadataLabels", "metadata"), entry(SC + "metadataLabels", "metadata"),
+            entry("rdfs:label", "label"), entry(RDFS + "label", "label"),
+            entry("dc:description", "description"), entry(DC + "description", "description"),
+            entry("foaf:thumbnail", "thumbnail"), entry(FOAF + "thumbnail", "thumbnail"));
+
+    // The top-level fields whose values decide each rule
+    private static final Map<String, List<String>> dependencies = Map.ofEntries(
+            entry("r0001", List.of("@type")), entry("r0002", List.of("@type")),
+            entry("r0003", List.of("@type", "@id")), entry("r0004", List.of("label")),
+            entry("r0005", List.of("thumbnail")), entry("r0006", List.of("description")),
+            entry("r0007", List.of("metadata")), entry("r0008", List.of("structures")),
+            entry("r0009", List.of("structures")), entry("r0010", List.of("sequences")),
+            entry("r0011", List.of("sequences")), entry("r0012", List.of("sequences")));
+
+    // Rules about properties of the requested resource, which also depend on the @id
+    private static final Set<String> anchoredRules =
+            Set.of("r0001", "r0002", "r0004", "r0005", "r0006", "r0007", "r0008", "r0010");
+
+    // Rules that fail once the document is known not to be a manifest
+    private static final Set<String> typedRules = Set.of("r0001", "r0002", "r0003");
+
+    /**
+     * The facts about a manifest document that the structural rules need.
+     */
+    static final class Facts {
+        final Set<String> seen = new HashSet<>();
+        boolean manifestType;
+        String id;
+        boolean label;
+        boolean thumbnail;
+        boolean description;
+        boolean metadata;
+        boolean structures;
+        boolean rangeIdsValid = true;
+        boolean hasSequences;
+        int sequences;
+        boolean sequenceIdsValid = true;
+    }
+
+    /**
+     * Validate a manifest document.
+     *
+     * @param document the JSON document
+     * @param resource the requested resource, may be null for local documents
+     * @return the results for the structural rules
+     * @throws IOException if the document is not well-formed JSON
+     */
+    public List<RuleResult> validate(final byte[] document, final String resource)
+            throws IOException {
+        try (JsonParser parser = factory.createParser(document)) {
+            return results(scan(parser), resource);
+        }
+    }
+
+    /**
+     * Validate a manifest document.
+     *
+     * @param document the JSON document
+     * @param resource the requested resource, may be null for local documents
+     * @return the results for the structural rules
+     * @throws IOException if the document cannot be read or is not well-formed JSON
+     */
+    public List<RuleResult> validate(final InputStream document, final String resource)
+            throws IOException {
+        try (JsonParser parser = factory.createParser(document)) {
+            return results(scan(parser), resource);
+        }
+    }
+
+    /**
+     * Validate a manifest document as it is read. Reading stops as soon as all requested rules
+     * are decided or one of them fails as a {@link Severity#MUST} rule; the rest of the document
+     * is left unread and the stream is not closed.
+     *
+     * @param document the JSON document
+     * @param resource the requested resource, may be null for local documents
+     * @param requested the rules to decide; rules other than the structural rules are ignored
+     * @return the results for the requested structural rules decided so far, in rule order
+     * @throws IOException if the document cannot be read or is not well-formed JSON
+     */
+    public List<RuleResult> validate(final InputStream document, final String resource,
+                                     final Collection<Rule> requested) throws IOException {
+        final Set<String> ids = requested.stream().map(Rule::getId)
+                .filter(dependencies::containsKey).collect(toSet());
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        try (JsonParser parser = factory.createParser(document)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            final Facts facts = new Facts();
+            if (parser.nextToken() == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    field(parser, facts);
+                    final List<RuleResult> decided = results(facts, resource).stream()
+                            .filter(r -> ids.contains(r.getRule().getId())
+                                    && isDecided(facts, r.getRule().getId(), resource))
+                            .collect(toList());
+                    if (decided.size() == ids.size() || decided.stream().anyMatch(r ->
+                            !r.isPassed() && r.getRule().getSeverity() == MUST)) {
+                        return decided;
+                    }
+                }
+            }
+            return results(facts, resource).stream()
+                    .filter(r -> ids.contains(r.getRule().getId())).collect(toList());
+        }
+    }
+
+    // Whether no later top-level field can change the result of a rule
+    private static boolean isDecided(final Facts facts, final String id, final String resource) {
+        final boolean anchored = anchoredRules.contains(id) && resource != null;
+        if (anchored && facts.seen.contains("@id") && !resource.equals(facts.id)) {
+            return true;
+        }
+        if (typedRules.contains(id) && facts.seen.contains("@type") && !facts.manifestType) {
+            return true;
+        }
+        return facts.seen.containsAll(dependencies.get(id))
+                && (!anchored || facts.seen.contains("@id"));
+    }
+
+    static Facts scan(final JsonParser parser) throws IOException {
+        final Facts facts = new Facts();
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return facts;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            field(parser, facts);
+        }
+        return facts;
+    }
+
+    // Handles one top-level field; the parser is left on the last token of its value
+    static void field(final JsonParser parser, final Facts facts) throws IOException {
+        final String name = parser.getCurrentName();
+        final JsonToken value = parser.nextToken();
+        final String term = aliases.getOrDefault(name, name);
+        facts.seen.add(term);
+        switch (term) {
+            case "@type":
+                facts.manifestType = hasType(parser, value, "Manifest");
+                break;
+            case "@id":
+                facts.id = value == JsonToken.VALUE_STRING ? parser.getText() : null;
+                parser.skipChildren();
+                break;
+            case "label":
+                facts.label = present(value);
+                parser.skipChildren();
+                break;
+            case "thumbnail":
+                facts.thumbnail = present(value);
+                parser.skipChildren();
+                break;
+            case "description":
+                facts.description = present(value);
+                parser.skipChildren();
+                break;
+            case "metadata":
+                facts.metadata = present(value);
+                parser.skipChildren();
+                break;
+            case "structures":
+                facts.structures = present(value);
+                members(parser, value, member -> facts.rangeIdsValid &= isIRI(member.id));
+                break;
+            case "sequences":
+                facts.hasSequences = present(value);
+                members(parser, value, member -> {
+                    if (member.sequenceType) {
+                        facts.sequences++;
+                        facts.sequenceIdsValid &= isIRI(member.id);
+                    }
+                });
+                break;
+            default:
+                parser.skipChildren();
+        }
+    }
+
+    /**
+     * The facts about an embedded object of the manifest.
+     */
+    private static final class Member {
+        String id;
+        boolean sequenceType;
+    }
+
+    // Reads @id and @type of each object in an array, skipping everything else
+    private static void members(final JsonParser parser, final JsonToken value,
+                                final Consumer<Member> consumer) throws IOException {
+        if (value != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            final Member member = new Member();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String name = parser.getCurrentName();
+                final JsonToken v = parser.nextToken();
+                if (name.equals("@id") && v == JsonToken.VALUE_STRING) {
+                    member.id = parser.getText();
+                } else if (name.equals("@type")) {
+                    member.sequenceType = hasType(parser, v, "Sequence");
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            consumer.accept(member);
+        }
+    }
+
+    private static boolean hasType(final JsonParser parser, final JsonToken value,
+                                   final String type) throws IOException {
+        if (value == JsonToken.VALUE_STRING) {
+            return isType(parser.getText(), type);
+        }
+        boolean found = false;
+        if (value == JsonToken.START_ARRAY) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+                found |= token == JsonToken.VALUE_STRING && isType(parser.getText(), type);
+                parser.skipChildren();
+            }
+        } else {
+            parser.skipChildren();
+        }
+        return found;
+    }
+
+    private static boolean isType(final String value, final String type) {
+        return value.equals("sc:" + type) || value.equals(SC + type);
+    }
+
+    private static boolean present(final JsonToken value) {
+        return value != JsonToken.VALUE_NULL;
+    }
+
+    static boolean isIRI(final String id) {
+        return id != null && !id.startsWith("_:") && absoluteIRI.matcher(id).matches();
+    }
+
+    static List<RuleResult> results(final Facts facts, final String resource) {
+        // properties are only those of the requested resource if the document is about it
+        final boolean anchored = resource == null || resource.equals(facts.id);
+        final List<RuleResult> results = new ArrayList<>();
+        results.add(result("r0001", anchored && facts.manifestType));
+        results.add(result("r0002", anchored && facts.manifestType));
+        results.add(result("r0003", facts.manifestType && isIRI(facts.id)));
+        results.add(result("r0004", anchored && facts.label));
+        results.add(result("r0005", anchored && facts.thumbnail));
+        results.add(result("r0006", anchored && facts.description));
+        results.add(result("r0007", anchored && facts.metadata));
+        results.add(result("r0008", anchored && facts.structures));
+        results.add(result("r0009", facts.rangeIdsValid));
+        results.add(result("r0010", anchored && facts.hasSequences));
+        results.add(result("r0011", facts.sequences > 0));
+        results.add(result("r0012", facts.sequences > 0 && facts.sequenceIdsValid));
+        return results;
+    }
+
+    private static RuleResult result(final String id, final boolean passed) {
+        final Rule rule = ManifestRules.byId(id);
+        return passed ? RuleResult.pass(rule) : RuleResult.fail(rule, "pre-validation");
+    }
+}
@@ -17,6 +17,8 @@ package de.ubleipzig.validator;
 import static java.util.Collections.unmodifiableSet;
 import static java.util.Objects.requireNonNull;
 import static java.util.Optional.of;
+import static java.util.Spliterator.ORDERED;
+import static java.util.Spliterators.spliteratorUnknownSize;
 import static java.util.stream.Collectors.counting;
 import static java.util.stream.Collectors.groupingBy;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -24,12 +26,19 @@ import static org.slf4j.LoggerFactory.getLogger;
 import de.ubleipzig.vocabulary.EXIF;
 import de.ubleipzig.vocabulary.SC;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.apache.commons.rdf.api.BlankNode;
 import org.apache.commons.rdf.api.BlankNodeOrIRI;
@@ -37,8 +46,11 @@ import org.apache.commons.rdf.api.Graph;
 import org.apache.commons.rdf.api.IRI;
 import org.apache.commons.rdf.api.Literal;
 import org.apache.commons.rdf.api.Triple;
+import org.apache.commons.rdf.jena.JenaRDF;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.sparql.core.Quad;
 import org.slf4j.Logger;
-import org.trellisldp.api.ConstraintService;
 import org.trellisldp.api.ConstraintViolation;
 import org.trellisldp.vocabulary.OA;
 import org.trellisldp.vocabulary.RDF;
@@ -51,10 +63,12 @@ import org.trellisldp.vocabulary.Trellis;
  * @author acoburn
  * @author christopher-johnson
  */
-public class ManifestConstraints implements ConstraintService {
+public class ManifestConstraints implements TripleConstraintService {
 
     private static final Logger LOGGER = getLogger(ManifestConstraints.class);
 
+    private static final JenaRDF rdf = new JenaRDF();
+
     // Identify those predicates that are not allowed in the given ixn model
     private static final Predicate<Triple> basicConstraints =
             triple -> triple.getPredicate().equals(OA.hasPurpose);
@@ -117,9 +131,11 @@ public class ManifestConstraints implements ConstraintService {
 
 
     // Verify that the range of the property is an Literal (if the property is in rangeProperties)
+    // whose lexical form is valid for its datatype
     private static Predicate<Triple> literalRangeFilter = invalidRangeProperty
             .or(triple -> propertiesWithLiteralRange.contains(triple.getPredicate()) &&
-                    !(triple.getObject() instanceof Literal));
+                    !(triple.getObject() instanceof Literal &&
+                            TypedLiterals.isValid((Literal) triple.getObject())));
 
     private static Boolean hasValidProps(final Map<IRI, Long> data) {
         Long val = data.getOrDefault(RDF.rest, 0L);
@@ -142,9 +158,9 @@ public class ManifestConstraints implements ConstraintService {
         };
     }
 
-    private Function<Triple, Stream<ConstraintViolation>> checkModelConstraints(final IRI model,
-                                                                                final String
-                                                                                        domain) {
+    @Override
+    public Function<Triple, Stream<ConstraintViolation>> checkModelConstraints(
+            final IRI model, final String domain) {
         requireNonNull(model, "The interaction model must not be null!");
 
         return triple -> {
@@ -182,7 +198,52 @@ public class ManifestConstraints implements ConstraintService {
     public Stream<ConstraintViolation> constrainedBy(final IRI model, final String domain,
                                                      final Graph graph) {
         return graph.stream().flatMap(checkModelConstraints(model, domain))
-                .peek(x -> LOGGER.info("Constraint violation: {}", x));
+                .peek(x -> LOGGER.debug("Constraint violation: {}", x));
+    }
+
+    /**
+     * Publish the violations of a graph. The graph is checked as the subscriber requests
+     * violations and the check stops when the subscription is cancelled.
+     *
+     * @param model the interaction model
+     * @param domain the domain
+     * @param graph the graph
+     * @param executor the executor delivering the violations
+     * @return the publisher
+     */
+    public Flow.Publisher<ConstraintViolation> publish(final IRI model, final String domain,
+                                                       final Graph graph,
+                                                       final Executor executor) {
+        return new StreamPublisher<>(() -> constrainedBy(model, domain, graph), executor);
+    }
+
+    /**
+     * Publish the violations of an N-Quads document. The document is parsed one statement at a
+     * time as the subscriber requests violations; the input stream is closed when the document
+     * is exhausted or the subscription is cancelled.
+     *
+     * @param model the interaction model
+     * @param domain the domain
+     * @param nquads the N-Quads
+     * @param executor the executor parsing the document and delivering the violations
+     * @return the publisher, which can be subscribed to once
+     */
+    public Flow.Publisher<ConstraintViolation> publish(final IRI model, final String domain,
+                                                       final InputStream nquads,
+                                                       final Executor executor) {
+        return new StreamPublisher<>(() -> {
+            final Iterator<Quad> quads = RDFDataMgr.createIteratorQuads(nquads, Lang.NQUADS,
+                    null);
+            return StreamSupport.stream(spliteratorUnknownSize(quads, ORDERED), false)
+                    .map(q -> rdf.asTriple(q.asTriple()))
+                    .flatMap(checkModelConstraints(model, domain)).onClose(() -> {
+                        try {
+                            nquads.close();
+                        } catch (final IOException ex) {
+                            throw new UncheckedIOException(ex);
+                        }
+                    });
+        }, executor);
     }
 }
 
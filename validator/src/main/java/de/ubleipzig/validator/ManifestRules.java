@@ -0,0 +1,375 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static de.ubleipzig.validator.IO.closeableFindAny;
+import static de.ubleipzig.validator.RuleDefinition.SCAN;
+import static de.ubleipzig.validator.RuleDefinition.TRAVERSAL;
+import static de.ubleipzig.validator.RuleDefinition.pattern;
+import static de.ubleipzig.validator.RuleDefinition.predicate;
+import static de.ubleipzig.validator.RuleDefinition.remote;
+import static de.ubleipzig.validator.RuleDefinition.sparql;
+import static de.ubleipzig.validator.Severity.MAY;
+import static de.ubleipzig.validator.Severity.MUST;
+import static de.ubleipzig.validator.Severity.SHOULD;
+import static de.ubleipzig.validator.TriplePattern.resource;
+import static de.ubleipzig.validator.TypedLiterals.bodies;
+import static de.ubleipzig.validator.TypedLiterals.canvases;
+import static de.ubleipzig.validator.TypedLiterals.hasFormats;
+import static de.ubleipzig.validator.TypedLiterals.hasIntegerBounds;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+import static org.apache.jena.riot.WebContent.contentTypeJSONLD;
+
+import de.ubleipzig.vocabulary.DCElements;
+import de.ubleipzig.vocabulary.DCTypes;
+import de.ubleipzig.vocabulary.DOAP;
+import de.ubleipzig.vocabulary.EXIF;
+import de.ubleipzig.vocabulary.SC;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Literal;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+import org.apache.commons.rdf.jena.JenaRDF;
+import org.apache.jena.sparql.vocabulary.FOAF;
+import org.trellisldp.api.ConstraintService;
+import org.trellisldp.api.ConstraintViolation;
+import org.trellisldp.vocabulary.OA;
+import org.trellisldp.vocabulary.RDF;
+import org.trellisldp.vocabulary.RDFS;
+import org.trellisldp.vocabulary.Trellis;
+
+/**
+ * ManifestRules.
+ *
+ * <p>The IIIF Presentation 2 rules exercised by {@code RemoteManifestTest} and
+ * {@code EndpointResponseTest}, as evaluable {@link Rule}s.
+ *
+ * @author christopher-johnson
+ */
+public final class ManifestRules {
+
+    private static final JenaRDF rdf = new JenaRDF();
+
+    static final String PRESENTATION_CONTEXT = "http://iiif.io/api/presentation/2/context.json";
+
+    private static final IRI thumbnail = rdf.createIRI(FOAF.thumbnail.getURI());
+
+    private static final ConstraintService constraints = new ManifestConstraints();
+
+    private static final List<Rule> structural = List.of(
+            pattern("r0001", "ManifestMustHaveType", MUST, "3.3",
+                    resource(RDF.type, SC.Manifest)),
+            predicate("r0002", "ManifestIdMustEqualTestResource", MUST, "3.3", SCAN,
+                    t -> t.getResource().map(r -> typed(t.getGraph(), SC.Manifest).stream()
+                            .anyMatch(s -> s instanceof IRI && ((IRI) s).getIRIString().equals(r)))
+                            .orElseGet(() -> !typed(t.getGraph(), SC.Manifest).isEmpty()))
+                    .reads(RDF.type),
+            predicate("r0003", "ManifestIdMustBeIRI", MUST, "3.3", SCAN,
+                    t -> allIRIs(typed(t.getGraph(), SC.Manifest), SC.Manifest)).reads(RDF.type),
+            pattern("r0004", "ManifestMustHaveLabel", MUST, "3.1", resource(RDFS.label, null)),
+            pattern("r0005", "ManifestShouldHaveThumbnail", SHOULD, "3.1",
+                    resource(thumbnail, null)),
+            pattern("r0006", "ManifestShouldHaveDescription", SHOULD, "3.1",
+                    resource(DCElements.description, null)),
+            pattern("r0007", "ManifestShouldHaveMetadata", SHOULD, "3.1",
+                    resource(SC.metadataLabels, null)),
+            pattern("r0008", "ManifestMayHaveStructures", MAY, "5.1",
+                    resource(SC.hasRanges, null)),
+            predicate("r0009", "RangeIdMustBeIRI", MUST, "3.3", SCAN,
+                    t -> typed(t.getGraph(), SC.Range).stream().allMatch(s -> s instanceof IRI))
+                    .reads(RDF.type),
+            pattern("r0010", "hasSequenceMustBePresent", MUST, "5.1",
+                    resource(SC.hasSequences, null)),
+            pattern("r0011", "SequenceMustHaveType", MUST, "3.3",
+                    TriplePattern.pattern(null, RDF.type, SC.Sequence)),
+            predicate("r0012", "SequenceIdMustBeIRI", MUST, "3.3", SCAN,
+                    t -> allIRIs(typed(t.getGraph(), SC.Sequence), SC.Sequence)).reads(RDF.type),
+            pattern("r0013", "SequenceMayHaveStartCanvas", MAY, "3.4",
+                    TriplePattern.pattern(null, SC.hasStartCanvas, null)),
+            predicate("r0014", "MultipleSequencesMustHaveLabel", MUST, "3.1", SCAN, t -> {
+                final List<BlankNodeOrIRI> sequences = typed(t.getGraph(), SC.Sequence);
+                return sequences.size() < 2 || sequences.stream()
+                        .allMatch(s -> exists(t.getGraph(), s, RDFS.label, null));
+            }).reads(RDF.type, RDFS.label),
+            sparql("r0015", "SequenceMustHaveCanvas", MUST, "5.2", "/queries/0015.rq",
+                    qs -> qs.getLiteral("canvascount").getInt() >= 1),
+            predicate("r0016", "CanvasIdMustBeIRI", MUST, "3.3", SCAN,
+                    t -> allIRIs(typed(t.getGraph(), SC.Canvas), SC.Canvas)).reads(RDF.type),
+            predicate("r0018", "CanvasesMustHaveType", MUST, "3.3", SCAN,
+                    t -> subjects(t.getGraph(), SC.hasImageAnnotations).stream()
+                            .allMatch(c -> exists(t.getGraph(), c, RDF.type, SC.Canvas)))
+                    .reads(SC.hasImageAnnotations, RDF.type),
+            sparql("r0019", "CanvasesMustHaveLabel", MUST, "3.1", "/queries/0019.rq",
+                    qs -> qs.getLiteral("canvascount").getInt() ==
+                            qs.getLiteral("labelcount").getInt()),
+            predicate("r0020", "CanvasesMustHaveIntegerBounds", MUST, "3.3", TRAVERSAL,
+                    t -> hasIntegerBounds(t.getGraph(), canvases(t.getGraph())))
+                    .reads(SC.hasCanvases, RDF.first, RDF.rest, SC.hasImageAnnotations,
+                            EXIF.height, EXIF.width),
+            predicate("r0021", "AnnotationsMustHaveType", MUST, "3.3", TRAVERSAL,
+                    t -> imageAnnotations(t.getGraph()).stream().allMatch(
+                            a -> exists(t.getGraph(), a, RDF.type, OA.Annotation)))
+                    .reads(SC.hasImageAnnotations, RDF.first, RDF.rest, RDF.type),
+            predicate("r0022", "AnnotationsMustBeMotivated", MUST, "5.4", TRAVERSAL,
+                    t -> imageAnnotations(t.getGraph()).stream().allMatch(
+                            a -> exists(t.getGraph(), a, OA.motivatedBy, SC.painting)))
+                    .reads(SC.hasImageAnnotations, RDF.first, RDF.rest, OA.motivatedBy),
+            predicate("r0023", "AnnotationsMustHaveTarget", MUST, "5.4", TRAVERSAL,
+                    t -> imageAnnotations(t.getGraph()).stream().allMatch(
+                            a -> exists(t.getGraph(), a, OA.hasTarget, null)))
+                    .reads(SC.hasImageAnnotations, RDF.first, RDF.rest, OA.hasTarget),
+            predicate("r0024", "AnnotationsMustHaveBody", MUST, "5.4", TRAVERSAL,
+                    t -> imageAnnotations(t.getGraph()).stream().allMatch(
+                            a -> exists(t.getGraph(), a, OA.hasBody, null)))
+                    .reads(SC.hasImageAnnotations, RDF.first, RDF.rest, OA.hasBody),
+            sparql("r0025", "BodiesMustHaveType", MUST, "5.4", "/queries/0025.rq",
+                    qs -> qs.getResource("type").isURIResource()),
+            sparql("r0026", "BodiesShouldHaveDCType", SHOULD, "5.4", "/queries/0026.rq",
+                    qs -> DCTypes.Image.getIRIString().equals(qs.getResource("type").getURI())),
+            sparql("r0027", "BodiesMustBeIRI", MUST, "5.4", "/queries/0027.rq",
+                    qs -> qs.getResource("body").isURIResource()),
+            predicate("r0028", "BodiesMayHaveFormat", MAY, "3.3", TRAVERSAL,
+                    t -> hasFormats(t.getGraph(), bodies(t.getGraph(),
+                            subjects(t.getGraph(), SC.hasImageAnnotations))))
+                    .reads(SC.hasImageAnnotations, RDF.first, OA.hasBody, DCElements.format),
+            predicate("r0029", "BodiesMayHaveIntegerBounds", MAY, "3.3", TRAVERSAL,
+                    t -> hasIntegerBounds(t.getGraph(), bodies(t.getGraph(),
+                            canvases(t.getGraph()))))
+                    .reads(SC.hasCanvases, RDF.first, RDF.rest, SC.hasImageAnnotations,
+                            OA.hasBody, EXIF.height, EXIF.width),
+            predicate("r0031", "InvalidPropertyPresent", MUST, "", TRAVERSAL,
+                    t -> noViolation(t, Trellis.InvalidProperty)).reads(),
+            predicate("r0032", "InvalidRangePresent", MUST, "", TRAVERSAL,
+                    t -> noViolation(t, Trellis.InvalidRange)).reads());
+
+    // How long the endpoint responses are reused
+    private static final Duration RESPONSE_TTL = Duration.ofMinutes(10);
+
+    private static final List<Rule> endpoints = endpoints(new EndpointCache(RESPONSE_TTL,
+            EndpointCache::apache));
+
+    private static final Map<String, Rule> rulesById = Stream.concat(structural.stream(),
+            endpoints.stream()).collect(toMap(Rule::getId, identity()));
+
+    private ManifestRules() {
+        // prevent instantiation
+    }
+
+    /**
+     * Get the rules that are evaluated on the graph alone.
+     *
+     * @return the structural rules
+     */
+    public static List<Rule> structural() {
+        return structural;
+    }
+
+    /**
+     * Get the rules that dereference the manifest and the resources it references. The rules
+     * share one response cache.
+     *
+     * @return the endpoint rules
+     */
+    public static List<Rule> endpoints() {
+        return endpoints;
+    }
+
+    /**
+     * Get the endpoint rules with their own response cache, e.g. one shared by the validation
+     * of all manifests of a collection.
+     *
+     * @param cache the response cache
+     * @return the endpoint rules
+     */
+    public static List<Rule> endpoints(final EndpointCache cache) {
+        return List.of(
+            remote("a0001", "CanvasShouldBeDereferenceable", SHOULD, "3.3", t -> {
+                final EndpointResponse response = join(cache.head(iri(first(
+                        typed(t.getGraph(), SC.Canvas), SC.Canvas)), contentTypeJSONLD));
+                return response.getStatus() == 200;
+            }).reads(RDF.type),
+            remote("a0002", "BodywithFormatMustBeDereferenceableWithContentType", MUST, "3.3",
+                    t -> {
+                        final Triple format = closeableFindAny(
+                                t.getGraph().stream(null, DCElements.format, null)).orElseThrow(
+                                    () -> new RuntimeException(
+                                            DCElements.format.getIRIString() + " type not found"));
+                        final EndpointResponse response = join(cache.head(
+                                iri(format.getSubject()), contentTypeJSONLD));
+                        return response.getStatus() == 200 &&
+                                format.getObject() instanceof Literal &&
+                                response.getHeader("Content-Type").filter(((Literal) format
+                                        .getObject()).getLexicalForm()::equals).isPresent();
+                    }).reads(DCElements.format),
+            remote("a0003", "ManifestContentTypeShouldBeJsonLD", SHOULD, "4", t -> {
+                final EndpointResponse response = join(cache.head(manifestLocation(t),
+                        contentTypeJSONLD));
+                return response.getStatus() == 200 && response.getHeader("Content-Type")
+                        .filter(c -> c.startsWith(contentTypeJSONLD)).isPresent();
+            }).reads(RDF.type),
+            remote("a0004", "ResponseMustIncludeLinkHeaderWithContext", MUST, "4", t -> {
+                final EndpointResponse response = join(cache.head(manifestLocation(t),
+                        contentTypeJSONLD));
+                return response.getStatus() == 200 && response.getHeader("Link")
+                        .filter(("<" + PRESENTATION_CONTEXT +
+                                ">; rel=\"http://www.w3.org/ns/json-ld#context\"; " +
+                                "type=\"application/ld+json\"")::equals).isPresent();
+            }).reads(RDF.type),
+            remote("a0005", "IIIFImageServiceMustAllowOPTIONS", MUST, "I-5.1", t -> {
+                final Triple service = closeableFindAny(
+                        t.getGraph().stream(null, DOAP.implement, null)).orElseThrow(
+                            () -> new RuntimeException(
+                                    DOAP.implement.getIRIString() + " type not found"));
+                final EndpointResponse response = join(cache.options(
+                        iri(service.getSubject()) + "/info.json", contentTypeJSONLD));
+                return response.getStatus() == 200 &&
+                        response.getHeader("Access-Control-Allow-Origin").isPresent();
+            }).reads(DOAP.implement));
+    }
+
+    /**
+     * Get all rules.
+     *
+     * @return the rules
+     */
+    public static List<Rule> all() {
+        final List<Rule> rules = new ArrayList<>(structural);
+        rules.addAll(endpoints);
+        return rules;
+    }
+
+    /**
+     * Get a rule by its identifier.
+     *
+     * @param id the rule id
+     * @return the rule
+     */
+    public static Rule byId(final String id) {
+        final Rule rule = rulesById.get(id);
+        if (rule == null) {
+            throw new IllegalArgumentException("Unknown rule: " + id);
+        }
+        return rule;
+    }
+
+    private static String manifestLocation(final ValidationTarget target) {
+        return typed(target.getGraph(), SC.Manifest).stream().filter(s -> s instanceof IRI)
+                .map(s -> ((IRI) s).getIRIString()).findFirst()
+                .orElseGet(() -> target.getResource().orElseThrow(() -> new RuntimeException(
+                        SC.Manifest.getIRIString() + " type not found")));
+    }
+
+    static boolean exists(final Graph graph, final BlankNodeOrIRI subject, final IRI predicate,
+                          final RDFTerm object) {
+        return closeableFindAny(graph.stream(subject, predicate, object)).isPresent();
+    }
+
+    static List<BlankNodeOrIRI> typed(final Graph graph, final IRI type) {
+        try (Stream<? extends Triple> stream = graph.stream(null, RDF.type, type)) {
+            return stream.map(Triple::getSubject).distinct().collect(toList());
+        }
+    }
+
+    static List<BlankNodeOrIRI> subjects(final Graph graph, final IRI predicate) {
+        try (Stream<? extends Triple> stream = graph.stream(null, predicate, null)) {
+            return stream.map(Triple::getSubject).distinct().collect(toList());
+        }
+    }
+
+    static List<RDFTerm> objects(final Graph graph, final BlankNodeOrIRI subject,
+                                 final IRI predicate) {
+        try (Stream<? extends Triple> stream = graph.stream(subject, predicate, null)) {
+            return stream.map(Triple::getObject).collect(toList());
+        }
+    }
+
+    // Follow an RDF collection, guarding against cycles
+    static List<RDFTerm> members(final Graph graph, final RDFTerm list) {
+        final List<RDFTerm> members = new ArrayList<>();
+        final Set<RDFTerm> visited = new HashSet<>();
+        RDFTerm node = list;
+        while (node instanceof BlankNodeOrIRI && !RDF.nil.equals(node) && visited.add(node)) {
+            final BlankNodeOrIRI current = (BlankNodeOrIRI) node;
+            members.addAll(objects(graph, current, RDF.first));
+            node = objects(graph, current, RDF.rest).stream().findFirst().orElse(null);
+        }
+        return members;
+    }
+
+    static List<BlankNodeOrIRI> imageAnnotations(final Graph graph) {
+        final List<BlankNodeOrIRI> annotations = new ArrayList<>();
+        try (Stream<? extends Triple> stream = graph.stream(null, SC.hasImageAnnotations, null)) {
+            stream.map(Triple::getObject).forEach(list -> members(graph, list).stream()
+                    .filter(m -> m instanceof BlankNodeOrIRI)
+                    .forEach(m -> annotations.add((BlankNodeOrIRI) m)));
+        }
+        return annotations;
+    }
+
+    private static boolean allIRIs(final List<BlankNodeOrIRI> subjects, final IRI type) {
+        if (subjects.isEmpty()) {
+            throw new RuntimeException(type.getIRIString() + " type not found");
+        }
+        return subjects.stream().allMatch(s -> s instanceof IRI);
+    }
+
+    // Uses the violations recorded while a projected graph was loaded, if there are any
+    private static boolean noViolation(final ValidationTarget target, final IRI constraint) {
+        return target.getViolations().map(v -> v.getGroups().stream()
+                .map(ViolationSummary.Group::getConstraint)).orElseGet(() -> constraints
+                .constrainedBy(SC.Manifest, null, target.getGraph())
+                .map(ConstraintViolation::getConstraint)).noneMatch(constraint::equals);
+    }
+
+    private static BlankNodeOrIRI first(final List<BlankNodeOrIRI> subjects, final IRI type) {
+        return subjects.stream().findFirst().orElseThrow(
+                () -> new RuntimeException(type.getIRIString() + " type not found"));
+    }
+
+    private static String iri(final BlankNodeOrIRI subject) {
+        if (subject instanceof IRI) {
+            return ((IRI) subject).getIRIString();
+        }
+        throw new RuntimeException(subject.ntriplesString() + " is not dereferenceable");
+    }
+
+    private static EndpointResponse join(final CompletableFuture<EndpointResponse> response) {
+        try {
+            return response.join();
+        } catch (final CompletionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw new UncheckedIOException((IOException) ex.getCause());
+            }
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static java.util.Collections.newSetFromMap;
+import static java.util.stream.Collectors.joining;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import com.github.jsonldjava.core.Context;
+import com.github.jsonldjava.core.JsonLdApi;
+import com.github.jsonldjava.core.JsonLdConsts;
+import com.github.jsonldjava.core.JsonLdError;
+import com.github.jsonldjava.core.JsonLdOptions;
+import com.github.jsonldjava.core.JsonLdProcessor;
+import com.github.jsonldjava.core.RDFDataset;
+import com.github.jsonldjava.core.RDFDatasetUtils;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import org.slf4j.Logger;
+import org.trellisldp.api.RuntimeRepositoryException;
+
+/**
+ * ParallelExpansion.
+ *
+ * <p>Expands a large manifest to N-Quads on several threads. The canvases of all sequences and
+ * the ranges in {@code structures} are cut out of the document and replaced by references to
+ * their {@code @id}; the remaining skeleton and the chunks of canvases and ranges are then
+ * expanded independently against one active context, which is processed only once.
+ *
+ * <p>Each chunk numbers its blank nodes from zero, so the labels are prefixed with the chunk
+ * index before the partial results are concatenated. Documents that cannot be split safely are
+ * expanded serially: canvases or ranges without an {@code @id} would lose their link to the
+ * skeleton, and explicit blank node identifiers would not be shared between chunks.
+ *
+ * @author christopher-johnson
+ */
+final class ParallelExpansion {
+
+    private static final Logger LOGGER = getLogger(ParallelExpansion.class);
+
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private ParallelExpansion() {
+        // prevent instantiation
+    }
+
+    /**
+     * Expand a JSON-LD document to N-Quads.
+     *
+     * @param document the parsed JSON document
+     * @param options the JSON-LD options
+     * @return the N-Quads
+     * @throws JsonLdError if the document or its context cannot be processed
+     */
+    @SuppressWarnings("unchecked")
+    static String toNQuads(final Object document, final JsonLdOptions options)
+            throws JsonLdError {
+        if (!(document instanceof Map) || !splittable(document)) {
+            return serial(document, options);
+        }
+        final Map<String, Object> skeleton = new LinkedHashMap<>((Map<String, Object>) document);
+        final Object localContext = skeleton.remove("@context");
+        final List<Object> members = new ArrayList<>();
+        final Object sequences = skeleton.get("sequences");
+        if (sequences instanceof List) {
+            final List<Object> copies = new ArrayList<>();
+            for (final Object sequence : (List<Object>) sequences) {
+                if (sequence instanceof Map) {
+                    final Map<String, Object> copy =
+                            new LinkedHashMap<>((Map<String, Object>) sequence);
+                    copy.computeIfPresent("canvases", (k, v) -> cut(v, members));
+                    copies.add(copy);
+                } else {
+                    copies.add(sequence);
+                }
+            }
+            skeleton.put("sequences", copies);
+        }
+        skeleton.computeIfPresent("structures", (k, v) -> cut(v, members));
+        if (members.isEmpty() || localContext == null) {
+            return serial(document, options);
+        }
+
+        final Context context = new Context(options).parse(localContext);
+        final int threads = Runtime.getRuntime().availableProcessors();
+        final int size = Math.max(1, members.size() / (threads * CHUNKS_PER_THREAD));
+        final List<Object> chunks = new ArrayList<>();
+        chunks.add(skeleton);
+        for (int i = 0; i < members.size(); i += size) {
+            chunks.add(members.subList(i, Math.min(i + size, members.size())));
+        }
+        LOGGER.debug("Expanding {} canvases and ranges in {} chunks", members.size(),
+                chunks.size());
+        return IntStream.range(0, chunks.size()).parallel()
+                .mapToObj(i -> expand(chunks.get(i), context, options, "c" + i + "_"))
+                .collect(joining());
+    }
+
+    private static String serial(final Object document, final JsonLdOptions options)
+            throws JsonLdError {
+        options.format = JsonLdConsts.APPLICATION_NQUADS;
+        return String.valueOf(JsonLdProcessor.toRDF(document, options));
+    }
+
+    // Replaces the objects of an array by references and collects them; null if any lacks an @id
+    @SuppressWarnings("unchecked")
+    private static Object cut(final Object value, final List<Object> members) {
+        if (!(value instanceof List)) {
+            return value;
+        }
+        final List<Object> references = new ArrayList<>();
+        for (final Object member : (List<Object>) value) {
+            if (member instanceof Map) {
+                final Map<String, Object> node = (Map<String, Object>) member;
+                final Map<String, Object> reference = new LinkedHashMap<>();
+                reference.put("@id", node.get("@id"));
+                references.add(reference);
+                members.add(node);
+            } else {
+                references.add(member);
+            }
+        }
+        return references;
+    }
+
+    // Every cut object needs a string @id and no explicit blank node label may occur
+    @SuppressWarnings("unchecked")
+    private static boolean splittable(final Object document) {
+        final Map<String, Object> manifest = (Map<String, Object>) document;
+        final List<Object> members = new ArrayList<>();
+        final Object sequences = manifest.get("sequences");
+        if (sequences instanceof List) {
+            ((List<Object>) sequences).stream().filter(s -> s instanceof Map)
+                    .map(s -> ((Map<String, Object>) s).get("canvases"))
+                    .filter(c -> c instanceof List).forEach(c -> members.addAll((List<Object>) c));
+        }
+        final Object structures = manifest.get("structures");
+        if (structures instanceof List) {
+            members.addAll((List<Object>) structures);
+        }
+        return members.stream().allMatch(m -> !(m instanceof Map) ||
+                ((Map<String, Object>) m).get("@id") instanceof String) &&
+                !hasBlankNodeLabel(document);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static boolean hasBlankNodeLabel(final Object value) {
+        if (value instanceof String) {
+            return ((String) value).startsWith("_:");
+        } else if (value instanceof Map) {
+            return ((Map<String, Object>) value).entrySet().stream().anyMatch(e ->
+                    e.getKey().startsWith("_:") || hasBlankNodeLabel(e.getValue()));
+        } else if (value instanceof List) {
+            return ((List<Object>) value).stream().anyMatch(ParallelExpansion::hasBlankNodeLabel);
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String expand(final Object chunk, final Context context,
+                                 final JsonLdOptions options, final String prefix) {
+        try {
+            Object expanded = new JsonLdApi(options).expand(context.clone(), chunk);
+            if (expanded instanceof Map && ((Map<String, Object>) expanded).size() == 1 &&
+                    ((Map<String, Object>) expanded).containsKey("@graph")) {
+                expanded = ((Map<String, Object>) expanded).get("@graph");
+            } else if (expanded == null) {
+                expanded = new ArrayList<>();
+            }
+            if (!(expanded instanceof List)) {
+                final List<Object> list = new ArrayList<>();
+                list.add(expanded);
+                expanded = list;
+            }
+            final RDFDataset dataset = new JsonLdApi(expanded, options).toRDF();
+            // quads may share node instances, each node is relabelled once
+            final Set<RDFDataset.Node> relabelled = newSetFromMap(new IdentityHashMap<>());
+            for (final String graph : dataset.graphNames()) {
+                for (final RDFDataset.Quad quad : dataset.getQuads(graph)) {
+                    relabel(quad.getSubject(), prefix, relabelled);
+                    relabel(quad.getObject(), prefix, relabelled);
+                }
+            }
+            return RDFDatasetUtils.toNQuads(dataset);
+        } catch (final JsonLdError ex) {
+            throw new RuntimeRepositoryException(ex.getMessage());
+        }
+    }
+
+    private static void relabel(final RDFDataset.Node node, final String prefix,
+                                final Set<RDFDataset.Node> relabelled) {
+        if (node.isBlankNode() && relabelled.add(node)) {
+            node.put("value", "_:" + prefix + node.getValue().substring(2));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static java.util.stream.Collectors.toList;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.lang.LabelToNode;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.apache.jena.sparql.core.Quad;
+
+/**
+ * ParallelParser.
+ *
+ * <p>Parses N-Quads (and N-Triples) on several threads. The input is cut into chunks at line
+ * ends and every chunk is parsed by its own parser. All parsers allocate blank nodes from one
+ * document scope, so a label that occurs in two chunks denotes the same blank node. Quads are
+ * read as triples of the merged graph.
+ *
+ * @author christopher-johnson
+ */
+final class ParallelParser {
+
+    private static final int CHUNKS_PER_THREAD = 2;
+
+    // Below this size a single parser is faster than splitting
+    private static final int MIN_CHUNK = 64 * 1024;
+
+    private ParallelParser() {
+        // prevent instantiation
+    }
+
+    /**
+     * Parse N-Quads.
+     *
+     * @param bytes the UTF-8 encoded N-Quads
+     * @return the triples, in chunk order
+     */
+    static List<Triple> parse(final byte[] bytes) {
+        return parse(bytes, triple -> true);
+    }
+
+    /**
+     * Parse N-Quads, keeping only some triples. The filter sees every triple and is called
+     * concurrently from several threads.
+     *
+     * @param bytes the UTF-8 encoded N-Quads
+     * @param filter returns true for the triples to keep
+     * @return the kept triples, in chunk order
+     */
+    static List<Triple> parse(final byte[] bytes, final Predicate<Triple> filter) {
+        final UUID scope = UUID.randomUUID();
+        final List<List<Triple>> chunks = chunks(bytes).parallelStream()
+                .map(range -> parse(bytes, range[0], range[1], scope, filter)).collect(toList());
+        final List<Triple> triples = new ArrayList<>(chunks.stream().mapToInt(List::size).sum());
+        chunks.forEach(triples::addAll);
+        return triples;
+    }
+
+    // The start and end offsets of the chunks; every chunk ends after a line feed or at the end
+    static List<int[]> chunks(final byte[] bytes) {
+        final int threads = Runtime.getRuntime().availableProcessors();
+        final int size = Math.max(MIN_CHUNK, bytes.length / (threads * CHUNKS_PER_THREAD));
+        final List<int[]> chunks = new ArrayList<>();
+        int start = 0;
+        while (start < bytes.length) {
+            int end = Math.min(start + size, bytes.length);
+            while (end < bytes.length && bytes[end - 1] != '\n') {
+                end++;
+            }
+            chunks.add(new int[]{start, end});
+            start = end;
+        }
+        return chunks;
+    }
+
+    // Each line holds at most one statement, so the line count bounds the triple count
+    static int lines(final byte[] bytes, final int start, final int end) {
+        int lines = 0;
+        for (int i = start; i < end; i++) {
+            if (bytes[i] == '\n') {
+                lines++;
+            }
+        }
+        return lines + 1;
+    }
+
+    private static List<Triple> parse(final byte[] bytes, final int start, final int end,
+                                      final UUID scope, final Predicate<Triple> filter) {
+        final List<Triple> triples = new ArrayList<>(lines(bytes, start, end));
+        RDFParser.create().source(new ByteArrayInputStream(bytes, start, end - start))
+                .lang(Lang.NQUADS).labelToNode(LabelToNode.createScopeByDocumentHash(scope))
+                .parse(new StreamRDFBase() {
+                    @Override
+                    public void triple(final Triple triple) {
+                        if (filter.test(triple)) {
+                            triples.add(triple);
+                        }
+                    }
+
+                    @Override
+                    public void quad(final Quad quad) {
+                        triple(quad.asTriple());
+                    }
+                });
+        return triples;
+    }
+}
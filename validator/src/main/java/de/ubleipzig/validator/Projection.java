@@ -0,0 +1,133 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static java.util.Collections.unmodifiableSet;
+import static java.util.Optional.ofNullable;
+import static java.util.stream.Collectors.toSet;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import de.ubleipzig.vocabulary.SC;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.jena.JenaRDF;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.slf4j.Logger;
+import org.trellisldp.api.ConstraintViolation;
+
+/**
+ * Projection.
+ *
+ * <p>Drops the triples that none of a set of rules reads while a graph is parsed. The kept
+ * predicates are the union of {@link Rule#getPredicates()}; if any rule may read any triple,
+ * nothing is dropped.
+ *
+ * <p>The {@link ManifestConstraints} checks look at every triple, so they are applied to each
+ * triple as it is parsed, before the projection, and a summary of their violations is kept with
+ * the target.
+ *
+ * @author christopher-johnson
+ */
+public final class Projection {
+
+    private static final Logger LOGGER = getLogger(Projection.class);
+
+    private static final JenaRDF rdf = new JenaRDF();
+
+    private static final ManifestConstraints constraints = new ManifestConstraints();
+
+    // Example triples kept per group of recorded violations
+    private static final int SAMPLE_SIZE = 10;
+
+    private final Set<IRI> predicates;
+
+    private final Set<Node> nodes;
+
+    private Projection(final Set<IRI> predicates) {
+        this.predicates = predicates;
+        this.nodes = predicates == null ? null : predicates.stream()
+                .map(p -> NodeFactory.createURI(p.getIRIString())).collect(toSet());
+    }
+
+    /**
+     * Create the projection for a set of rules.
+     *
+     * @param rules the rules
+     * @return the projection
+     */
+    public static Projection of(final Collection<? extends Rule> rules) {
+        final Set<IRI> predicates = new HashSet<>();
+        for (final Rule rule : rules) {
+            final Optional<Set<IRI>> read = rule.getPredicates();
+            if (!read.isPresent()) {
+                LOGGER.debug("{} reads any triple, nothing is projected", rule);
+                return new Projection(null);
+            }
+            predicates.addAll(read.get());
+        }
+        return new Projection(unmodifiableSet(predicates));
+    }
+
+    /**
+     * Get the predicates that are kept.
+     *
+     * @return the predicates, or empty if every triple is kept
+     */
+    public Optional<Set<IRI>> getPredicates() {
+        return ofNullable(predicates);
+    }
+
+    /**
+     * Load a graph from N-Quads.
+     *
+     * @param resource the requested resource IRI, may be null for local documents
+     * @param nquads the N-Quads
+     * @return the validation target
+     */
+    public ValidationTarget load(final String resource, final InputStream nquads) {
+        final byte[] bytes;
+        try {
+            bytes = nquads.readAllBytes();
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        if (nodes == null) {
+            return new ValidationTarget(resource, rdf.asGraph(BulkGraph.of(
+                    ParallelParser.parse(bytes))));
+        }
+        final Function<org.apache.commons.rdf.api.Triple, Stream<ConstraintViolation>> check =
+                constraints.checkModelConstraints(SC.Manifest, null);
+        final ViolationSummary violations = new ViolationSummary(SAMPLE_SIZE);
+        final List<Triple> triples = ParallelParser.parse(bytes, triple -> {
+            check.apply(rdf.asTriple(triple)).forEach(violations);
+            return nodes.contains(triple.getPredicate());
+        });
+        LOGGER.debug("Kept {} triples, {} violations", triples.size(), violations.getCount());
+        return new ValidationTarget(resource, rdf.asGraph(BulkGraph.of(triples)), violations);
+    }
+}
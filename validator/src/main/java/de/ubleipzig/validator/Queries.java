@@ -0,0 +1,243 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toSet;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.jena.JenaRDF;
+import org.apache.jena.graph.Node;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryExecution;
+import org.apache.jena.query.QueryExecutionFactory;
+import org.apache.jena.query.QueryFactory;
+import org.apache.jena.query.QuerySolution;
+import org.apache.jena.query.ResultSetFormatter;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.sparql.path.P_Alt;
+import org.apache.jena.sparql.path.P_Distinct;
+import org.apache.jena.sparql.path.P_FixedLength;
+import org.apache.jena.sparql.path.P_Inverse;
+import org.apache.jena.sparql.path.P_Link;
+import org.apache.jena.sparql.path.P_Mod;
+import org.apache.jena.sparql.path.P_Multi;
+import org.apache.jena.sparql.path.P_NegPropSet;
+import org.apache.jena.sparql.path.P_OneOrMore1;
+import org.apache.jena.sparql.path.P_OneOrMoreN;
+import org.apache.jena.sparql.path.P_ReverseLink;
+import org.apache.jena.sparql.path.P_Seq;
+import org.apache.jena.sparql.path.P_Shortest;
+import org.apache.jena.sparql.path.P_ZeroOrMore1;
+import org.apache.jena.sparql.path.P_ZeroOrMoreN;
+import org.apache.jena.sparql.path.P_ZeroOrOne;
+import org.apache.jena.sparql.path.PathVisitor;
+import org.apache.jena.sparql.path.PathVisitorBase;
+import org.apache.jena.sparql.syntax.ElementPathBlock;
+import org.apache.jena.sparql.syntax.ElementSubQuery;
+import org.apache.jena.sparql.syntax.ElementTriplesBlock;
+import org.apache.jena.sparql.syntax.ElementVisitorBase;
+import org.apache.jena.sparql.syntax.ElementWalker;
+import org.trellisldp.api.RuntimeRepositoryException;
+
+/**
+ * Queries.
+ *
+ * <p>Loads and caches the SPARQL rule queries from the {@code queries/} classpath directory.
+ *
+ * @author christopher-johnson
+ */
+final class Queries {
+
+    private static final JenaRDF rdf = new JenaRDF();
+
+    private static final Map<String, Query> cache = new ConcurrentHashMap<>();
+
+    private static final Map<Query, Optional<Set<IRI>>> predicates = new ConcurrentHashMap<>();
+
+    private Queries() {
+        // prevent instantiation
+    }
+
+    static Query load(final String resource) {
+        return cache.computeIfAbsent(resource, Queries::parse);
+    }
+
+    static List<QuerySolution> select(final Query query, final Model model) {
+        try (QueryExecution qexec = QueryExecutionFactory.create(query, model)) {
+            return ResultSetFormatter.toList(qexec.execSelect());
+        }
+    }
+
+    /**
+     * Get the predicates a query matches.
+     *
+     * @param query the query
+     * @return the predicates, or empty if a predicate is a variable or a negated property set
+     */
+    static Optional<Set<IRI>> predicates(final Query query) {
+        // not computeIfAbsent: sub-queries recurse into this method
+        Optional<Set<IRI>> result = predicates.get(query);
+        if (result == null) {
+            result = collectPredicates(query);
+            predicates.put(query, result);
+        }
+        return result;
+    }
+
+    private static Optional<Set<IRI>> collectPredicates(final Query query) {
+        final Set<Node> nodes = new HashSet<>();
+        final boolean[] open = {false};
+        final PathVisitor paths = new PathVisitorBase() {
+            @Override
+            public void visit(final P_Link path) {
+                nodes.add(path.getNode());
+            }
+
+            @Override
+            public void visit(final P_ReverseLink path) {
+                nodes.add(path.getNode());
+            }
+
+            @Override
+            public void visit(final P_NegPropSet path) {
+                open[0] = true;
+            }
+
+            @Override
+            public void visit(final P_ZeroOrMore1 path) {
+                path.getSubPath().visit(this);
+            }
+
+            @Override
+            public void visit(final P_ZeroOrMoreN path) {
+                path.getSubPath().visit(this);
+            }
+
+            @Override
+            public void visit(final P_OneOrMore1 path) {
+                path.getSubPath().visit(this);
+            }
+
+            @Override
+            public void visit(final P_OneOrMoreN path) {
+                path.getSubPath().visit(this);
+            }
+
+            @Override
+            public void visit(final P_ZeroOrOne path) {
+                path.getSubPath().visit(this);
+            }
+
+            @Override
+            public void visit(final P_Inverse path) {
+                path.getSubPath().visit(this);
+            }
+
+            @Override
+            public void visit(final P_Mod path) {
+                path.getSubPath().visit(this);
+            }
+
+            @Override
+            public void visit(final P_FixedLength path) {
+                path.getSubPath().visit(this);
+            }
+
+            @Override
+            public void visit(final P_Distinct path) {
+                path.getSubPath().visit(this);
+            }
+
+            @Override
+            public void visit(final P_Multi path) {
+                path.getSubPath().visit(this);
+            }
+
+            @Override
+            public void visit(final P_Shortest path) {
+                path.getSubPath().visit(this);
+            }
+
+            @Override
+            public void visit(final P_Alt path) {
+                path.getLeft().visit(this);
+                path.getRight().visit(this);
+            }
+
+            @Override
+            public void visit(final P_Seq path) {
+                path.getLeft().visit(this);
+                path.getRight().visit(this);
+            }
+        };
+        ElementWalker.walk(query.getQueryPattern(), new ElementVisitorBase() {
+            @Override
+            public void visit(final ElementPathBlock block) {
+                block.getPattern().forEach(tp -> {
+                    if (tp.isTriple()) {
+                        add(tp.getPredicate());
+                    } else {
+                        tp.getPath().visit(paths);
+                    }
+                });
+            }
+
+            @Override
+            public void visit(final ElementTriplesBlock block) {
+                block.getPattern().forEach(t -> add(t.getPredicate()));
+            }
+
+            @Override
+            public void visit(final ElementSubQuery sub) {
+                open[0] |= !predicates(sub.getQuery()).isPresent();
+            }
+
+            private void add(final Node predicate) {
+                if (predicate.isURI()) {
+                    nodes.add(predicate);
+                } else {
+                    open[0] = true;
+                }
+            }
+        });
+        if (open[0] || nodes.stream().anyMatch(n -> !n.isURI())) {
+            return Optional.empty();
+        }
+        return Optional.of(nodes.stream().map(n -> rdf.createIRI(n.getURI()))
+                .collect(toSet()));
+    }
+
+    private static Query parse(final String resource) {
+        try (InputStream is = Queries.class.getResourceAsStream(resource)) {
+            if (is == null) {
+                throw new RuntimeRepositoryException("Query not found: " + resource);
+            }
+            return QueryFactory.create(new String(is.readAllBytes(), UTF_8));
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static java.util.Comparator.comparing;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+import static org.apache.jena.graph.NodeFactory.createLiteral;
+import static org.apache.jena.graph.NodeFactory.createURI;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Node;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.ReadWrite;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.tdb.TDBFactory;
+import org.slf4j.Logger;
+
+/**
+ * ResultStore.
+ *
+ * <p>A file-backed store of validation runs in an embedded TDB dataset. Each run is a named
+ * graph holding one quad per manifest and rule, {@code <manifest> passed|failed <rule>}, and the
+ * severity each rule had in that run, {@code <rule> severity "MUST"}, so runs with different rule
+ * definitions do not overwrite each other. The TDB quad indexes answer lookups by run, outcome
+ * and rule, by run and manifest, and by manifest across runs without scanning other results.
+ *
+ * @author christopher-johnson
+ */
+public class ResultStore implements AutoCloseable {
+
+    private static final Logger LOGGER = getLogger(ResultStore.class);
+
+    private static final String NS = "http://ub.uni-leipzig.de/validator/results#";
+
+    private static final Node PASSED = createURI(NS + "passed");
+
+    private static final Node FAILED = createURI(NS + "failed");
+
+    private static final Node SEVERITY = createURI(NS + "severity");
+
+    private static final Node STARTED = createURI(NS + "started");
+
+    private static final Node FINISHED = createURI(NS + "finished");
+
+    private static final int BATCH_SIZE = 50000;
+
+    private final Dataset dataset;
+
+    private final DatasetGraph graph;
+
+    private ResultStore(final Dataset dataset) {
+        this.dataset = dataset;
+        this.graph = dataset.asDatasetGraph();
+    }
+
+    /**
+     * Open a result store.
+     *
+     * @param directory the directory of the store; it is created if missing
+     * @return the store
+     */
+    public static ResultStore open(final Path directory) {
+        requireNonNull(directory, "The store directory may not be null!");
+        return new ResultStore(TDBFactory.createDataset(directory.toString()));
+    }
+
+    /**
+     * Start a run.
+     *
+     * @return the run, which must be closed when all its results have been added
+     */
+    public Run start() {
+        final String id = UUID.randomUUID().toString();
+        write(() -> graph.add(Quad.defaultGraphIRI, run(id), STARTED, timestamp()));
+        return new Run(id);
+    }
+
+    /**
+     * A run being recorded. Results are written in batches; {@link #close()} writes the last
+     * batch and marks the run finished.
+     */
+    public final class Run implements AutoCloseable {
+
+        private final String id;
+
+        private final Node node;
+
+        private final List<Quad> batch = new ArrayList<>();
+
+        private final Map<String, Severity> rules = new LinkedHashMap<>();
+
+        private Run(final String id) {
+            this.id = id;
+            this.node = run(id);
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * Add the results of a manifest.
+         *
+         * @param manifest the manifest IRI or location
+         * @param results the rule results
+         */
+        public synchronized void add(final String manifest, final List<RuleResult> results) {
+            final Node subject = createURI(manifest);
+            for (final RuleResult result : results) {
+                final Rule rule = result.getRule();
+                rules.putIfAbsent(rule.getId(), rule.getSeverity());
+                batch.add(new Quad(node, subject, result.isPassed() ? PASSED : FAILED,
+                        rule(rule.getId())));
+            }
+            if (batch.size() >= BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        @Override
+        public synchronized void close() {
+            flush();
+            write(() -> graph.add(Quad.defaultGraphIRI, node, FINISHED, timestamp()));
+            LOGGER.info("Recorded run {}", id);
+        }
+
+        private void flush() {
+            write(() -> {
+                batch.forEach(graph::add);
+                rules.forEach((rule, severity) -> graph.add(node, rule(rule), SEVERITY,
+                        createLiteral(severity.name())));
+            });
+            batch.clear();
+            rules.clear();
+        }
+    }
+
+    /**
+     * Get the runs.
+     *
+     * @return the run ids, oldest first
+     */
+    public List<String> getRuns() {
+        return read(() -> runs(STARTED));
+    }
+
+    /**
+     * Get the last finished run.
+     *
+     * @return the run id, if any run has finished
+     */
+    public Optional<String> getLastRun() {
+        return read(() -> {
+            final List<String> finished = runs(FINISHED);
+            return finished.isEmpty() ? Optional.empty() :
+                    Optional.of(finished.get(finished.size() - 1));
+        });
+    }
+
+    /**
+     * Find the manifests with an outcome for a rule in a run, e.g. those failing {@code r0020}.
+     *
+     * @param run the run id
+     * @param rule the rule id
+     * @param passed the outcome
+     * @return the manifests
+     */
+    public List<String> findManifests(final String run, final String rule, final boolean passed) {
+        return read(() -> subjects(graph.find(run(run), Node.ANY, passed ? PASSED : FAILED,
+                rule(rule))));
+    }
+
+    /**
+     * Find the manifests failing any rule of a severity in a run.
+     *
+     * @param run the run id
+     * @param severity the severity
+     * @return the manifests, each once
+     */
+    public List<String> findFailing(final String run, final Severity severity) {
+        return read(() -> {
+            final Node node = run(run);
+            final Node level = createLiteral(severity.name());
+            final List<Node> rules = new ArrayList<>();
+            graph.find(node, Node.ANY, SEVERITY, level)
+                    .forEachRemaining(q -> rules.add(q.getSubject()));
+            return rules.stream().flatMap(rule -> subjects(graph.find(node, Node.ANY, FAILED,
+                    rule)).stream()).distinct().collect(toList());
+        });
+    }
+
+    /**
+     * Get the results of a manifest in a run.
+     *
+     * @param run the run id
+     * @param manifest the manifest IRI or location
+     * @return whether each rule passed, by rule id
+     */
+    public Map<String, Boolean> getResults(final String run, final String manifest) {
+        return read(() -> {
+            final Map<String, Boolean> results = new LinkedHashMap<>();
+            graph.find(run(run), createURI(manifest), Node.ANY, Node.ANY).forEachRemaining(q ->
+                    results.put(id(q.getObject()), q.getPredicate().equals(PASSED)));
+            return results;
+        });
+    }
+
+    /**
+     * Get the outcomes of a manifest and rule across runs.
+     *
+     * @param manifest the manifest IRI or location
+     * @param rule the rule id
+     * @return whether the rule passed, by run id, oldest first
+     */
+    public Map<String, Boolean> getHistory(final String manifest, final String rule) {
+        return read(() -> {
+            final Map<String, Boolean> outcomes = new LinkedHashMap<>();
+            for (final String run : runs(STARTED)) {
+                final Node g = run(run);
+                if (graph.contains(g, createURI(manifest), PASSED, rule(rule))) {
+                    outcomes.put(run, true);
+                } else if (graph.contains(g, createURI(manifest), FAILED, rule(rule))) {
+                    outcomes.put(run, false);
+                }
+            }
+            return outcomes;
+        });
+    }
+
+    @Override
+    public void close() {
+        TDBFactory.release(dataset);
+    }
+
+    // Run ids in the order of the given timestamp
+    private List<String> runs(final Node timestamp) {
+        final List<Quad> runs = new ArrayList<>();
+        graph.find(Quad.defaultGraphIRI, Node.ANY, timestamp, Node.ANY)
+                .forEachRemaining(runs::add);
+        return runs.stream().sorted(comparing(q -> Instant.parse(q.getObject()
+                .getLiteralLexicalForm()))).map(q -> id(q.getSubject())).collect(toList());
+    }
+
+    private static List<String> subjects(final Iterator<Quad> quads) {
+        final List<String> subjects = new ArrayList<>();
+        quads.forEachRemaining(q -> subjects.add(q.getSubject().getURI()));
+        return subjects;
+    }
+
+    private static Node run(final String id) {
+        return createURI(NS + "run/" + id);
+    }
+
+    private static Node rule(final String id) {
+        return createURI(NS + "rule/" + id);
+    }
+
+    private static String id(final Node node) {
+        final String uri = node.getURI();
+        return uri.substring(uri.lastIndexOf('/') + 1);
+    }
+
+    private static Node timestamp() {
+        return createLiteral(Instant.now().toString(), XSDDatatype.XSDdateTime);
+    }
+
+    private <T> T read(final Supplier<T> query) {
+        dataset.begin(ReadWrite.READ);
+        try {
+            return query.get();
+        } finally {
+            dataset.end();
+        }
+    }
+
+    private void write(final Runnable update) {
+        synchronized (dataset) {
+            dataset.begin(ReadWrite.WRITE);
+            try {
+                update.run();
+                dataset.commit();
+            } finally {
+                dataset.end();
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import java.util.Optional;
+import java.util.Set;
+
+import org.apache.commons.rdf.api.IRI;
+
+/**
+ * Rule.
+ *
+ * <p>A single specification constraint that can be evaluated against a {@link ValidationTarget}.
+ *
+ * @author christopher-johnson
+ */
+public interface Rule {
+
+    /**
+     * The rule identifier, e.g. {@code r0001}.
+     *
+     * @return the identifier
+     */
+    String getId();
+
+    /**
+     * The rule name, e.g. {@code ManifestMustHaveType}.
+     *
+     * @return the name
+     */
+    String getName();
+
+    /**
+     * The requirement level of this rule.
+     *
+     * @return the severity
+     */
+    Severity getSeverity();
+
+    /**
+     * The section of the specification the rule is derived from.
+     *
+     * @return the section
+     */
+    String getSection();
+
+    /**
+     * An estimate of the relative evaluation cost, used for ordering.
+     *
+     * @return the cost
+     */
+    int getCost();
+
+    /**
+     * Whether the rule needs network access to be evaluated.
+     *
+     * @return true if the rule dereferences remote resources
+     */
+    default boolean isRemote() {
+        return false;
+    }
+
+    /**
+     * The predicates of the triples the rule reads. Triples with other predicates may be dropped
+     * before the rule is evaluated.
+     *
+     * @return the predicates, or empty if the rule may read any triple
+     */
+    default Optional<Set<IRI>> getPredicates() {
+        return Optional.empty();
+    }
+
+    /**
+     * Evaluate the rule.
+     *
+     * @param target the validation target
+     * @return the result
+     */
+    RuleResult evaluate(ValidationTarget target);
+}
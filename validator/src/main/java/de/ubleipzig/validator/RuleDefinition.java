@@ -0,0 +1,291 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static de.ubleipzig.validator.IO.closeableFindAny;
+import static java.util.Objects.requireNonNull;
+import static java.util.Optional.ofNullable;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.jena.query.QuerySolution;
+
+/**
+ * RuleDefinition.
+ *
+ * <p>A declarative rule: an id, a severity and a specification section, together with either a
+ * {@link TriplePattern} that must be present, a SPARQL query from the {@code queries/}
+ * directory whose solutions must satisfy an expectation, or a Java predicate.
+ *
+ * @author christopher-johnson
+ */
+public class RuleDefinition implements Rule {
+
+    /** Cost of a lookup with a bound subject. */
+    public static final int LOOKUP = 1;
+
+    /** Cost of a lookup that has to scan a predicate or type index. */
+    public static final int SCAN = 10;
+
+    /** Cost of a check that traverses lists or joins several patterns. */
+    public static final int TRAVERSAL = 100;
+
+    /** Cost of a check that dereferences a remote resource. */
+    public static final int REMOTE = 10000;
+
+    /**
+     * The kind of a rule definition.
+     */
+    public enum Kind {
+        PATTERN, SPARQL, PREDICATE
+    }
+
+    private final String id;
+
+    private final String name;
+
+    private final Severity severity;
+
+    private final String section;
+
+    private final Kind kind;
+
+    private final int cost;
+
+    private final boolean remote;
+
+    private final TriplePattern pattern;
+
+    private final String query;
+
+    private final Predicate<QuerySolution> expectation;
+
+    private final Predicate<ValidationTarget> predicate;
+
+    private final Set<IRI> predicates;
+
+    private RuleDefinition(final String id, final String name, final Severity severity,
+                           final String section, final Kind kind, final int cost,
+                           final boolean remote, final TriplePattern pattern, final String query,
+                           final Predicate<QuerySolution> expectation,
+                           final Predicate<ValidationTarget> predicate,
+                           final Set<IRI> predicates) {
+        this.id = requireNonNull(id, "The rule id may not be null!");
+        this.name = requireNonNull(name, "The rule name may not be null!");
+        this.severity = requireNonNull(severity, "The rule severity may not be null!");
+        this.section = section;
+        this.kind = kind;
+        this.cost = cost;
+        this.remote = remote;
+        this.pattern = pattern;
+        this.query = query;
+        this.expectation = expectation;
+        this.predicate = predicate;
+        this.predicates = predicates;
+    }
+
+    /**
+     * Define a rule that requires a triple pattern to be present.
+     *
+     * @param id the rule id
+     * @param name the rule name
+     * @param severity the severity
+     * @param section the specification section
+     * @param pattern the pattern
+     * @return the rule
+     */
+    public static RuleDefinition pattern(final String id, final String name,
+                                         final Severity severity, final String section,
+                                         final TriplePattern pattern) {
+        requireNonNull(pattern, "The rule pattern may not be null!");
+        final int cost = pattern.isAnchored() || pattern.getSubject() != null ? LOOKUP : SCAN;
+        return new RuleDefinition(id, name, severity, section, Kind.PATTERN, cost, false, pattern,
+                null, null, null, null);
+    }
+
+    /**
+     * Define a rule evaluated by a SPARQL query. The rule passes if the query has solutions and
+     * every solution satisfies the expectation.
+     *
+     * @param id the rule id
+     * @param name the rule name
+     * @param severity the severity
+     * @param section the specification section
+     * @param query the classpath location of the query, e.g. {@code /queries/0015.rq}
+     * @param expectation the expectation for each solution
+     * @return the rule
+     */
+    public static RuleDefinition sparql(final String id, final String name,
+                                        final Severity severity, final String section,
+                                        final String query,
+                                        final Predicate<QuerySolution> expectation) {
+        requireNonNull(query, "The rule query may not be null!");
+        requireNonNull(expectation, "The rule expectation may not be null!");
+        return new RuleDefinition(id, name, severity, section, Kind.SPARQL, TRAVERSAL, false,
+                null, query, expectation, null, null);
+    }
+
+    /**
+     * Define a rule that is evaluated locally by a Java predicate.
+     *
+     * @param id the rule id
+     * @param name the rule name
+     * @param severity the severity
+     * @param section the specification section
+     * @param cost the estimated cost
+     * @param predicate the predicate, returning true if the target satisfies the rule
+     * @return the rule
+     */
+    public static RuleDefinition predicate(final String id, final String name,
+                                           final Severity severity, final String section,
+                                           final int cost,
+                                           final Predicate<ValidationTarget> predicate) {
+        requireNonNull(predicate, "The rule predicate may not be null!");
+        return new RuleDefinition(id, name, severity, section, Kind.PREDICATE, cost, false, null,
+                null, null, predicate, null);
+    }
+
+    /**
+     * Define a rule that dereferences remote resources.
+     *
+     * @param id the rule id
+     * @param name the rule name
+     * @param severity the severity
+     * @param section the specification section
+     * @param predicate the predicate, returning true if the target satisfies the rule
+     * @return the rule
+     */
+    public static RuleDefinition remote(final String id, final String name,
+                                        final Severity severity, final String section,
+                                        final Predicate<ValidationTarget> predicate) {
+        requireNonNull(predicate, "The rule predicate may not be null!");
+        return new RuleDefinition(id, name, severity, section, Kind.PREDICATE, REMOTE, true, null,
+                null, null, predicate, null);
+    }
+
+    /**
+     * Declare the predicates of the triples a Java predicate rule reads. Pattern and SPARQL rules
+     * derive them from their pattern or query.
+     *
+     * @param predicates the predicates
+     * @return a copy of this rule that declares the predicates
+     */
+    public RuleDefinition reads(final IRI... predicates) {
+        return new RuleDefinition(id, name, severity, section, kind, cost, remote, pattern, query,
+                expectation, predicate, Set.of(predicates));
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Severity getSeverity() {
+        return severity;
+    }
+
+    @Override
+    public String getSection() {
+        return section;
+    }
+
+    @Override
+    public int getCost() {
+        return cost;
+    }
+
+    @Override
+    public boolean isRemote() {
+        return remote;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public TriplePattern getPattern() {
+        return pattern;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    @Override
+    public Optional<Set<IRI>> getPredicates() {
+        switch (kind) {
+            case PATTERN:
+                return ofNullable(pattern.getPredicate()).map(Set::of);
+            case SPARQL:
+                return Queries.predicates(Queries.load(query));
+            default:
+                return ofNullable(predicates);
+        }
+    }
+
+    @Override
+    public RuleResult evaluate(final ValidationTarget target) {
+        try {
+            switch (kind) {
+                case PATTERN:
+                    final TriplePattern bound = pattern.bind(target);
+                    return result(closeableFindAny(target.getGraph().stream(bound.getSubject(),
+                            bound.getPredicate(), bound.getObject())).isPresent());
+                case SPARQL:
+                    return evaluate(Queries.select(Queries.load(query), target.getModel()));
+                default:
+                    return result(predicate.test(target));
+            }
+        } catch (final RuntimeException ex) {
+            return RuleResult.fail(this, ex.getMessage());
+        }
+    }
+
+    /**
+     * Evaluate a SPARQL rule against already computed solutions.
+     *
+     * @param solutions the solutions of {@link #getQuery()}
+     * @return the result
+     */
+    RuleResult evaluate(final List<QuerySolution> solutions) {
+        if (solutions.isEmpty()) {
+            return RuleResult.fail(this, "not found");
+        }
+        try {
+            return result(solutions.stream().allMatch(expectation));
+        } catch (final RuntimeException ex) {
+            return RuleResult.fail(this, ex.getMessage());
+        }
+    }
+
+    RuleResult result(final boolean passed) {
+        return passed ? RuleResult.pass(this) : RuleResult.fail(this, null);
+    }
+
+    @Override
+    public String toString() {
+        return id + " " + name + " [" + section + "]";
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toCollection;
+import static java.util.stream.Collectors.toList;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.Triple;
+import org.apache.jena.query.QuerySolution;
+import org.slf4j.Logger;
+
+/**
+ * RuleEngine.
+ *
+ * <p>Plans and runs a set of rules over one shared graph. Pattern rules are grouped by their
+ * most selective bound term so that rules sharing a subject or predicate are answered by a single
+ * scan, and rules referencing the same query file share one query execution.
+ *
+ * <p>The scans, the query executions and the remaining rules are independent of each other. Given
+ * an executor they run concurrently against an immutable snapshot of the graph.
+ *
+ * @author christopher-johnson
+ */
+public class RuleEngine {
+
+    private static final Logger LOGGER = getLogger(RuleEngine.class);
+
+    private final List<Rule> rules;
+
+    /**
+     * Create a rule engine.
+     *
+     * @param rules the rules
+     */
+    public RuleEngine(final List<Rule> rules) {
+        this.rules = unmodifiableList(new ArrayList<>(rules));
+    }
+
+    /**
+     * Create a rule engine for a subset of rules.
+     *
+     * @param rules the rules
+     * @param filter the rule filter
+     */
+    public RuleEngine(final List<Rule> rules, final Predicate<Rule> filter) {
+        this(rules.stream().filter(filter).collect(toList()));
+    }
+
+    public List<Rule> getRules() {
+        return rules;
+    }
+
+    /**
+     * Evaluate all rules.
+     *
+     * @param target the validation target
+     * @return the results, in rule order
+     */
+    public List<RuleResult> evaluate(final ValidationTarget target) {
+        final Map<Rule, RuleResult> results = new HashMap<>();
+        evaluatePatterns(target, results);
+        evaluateQueries(target, results);
+        final List<RuleResult> ordered = new ArrayList<>(rules.size());
+        for (final Rule rule : rules) {
+            ordered.add(results.computeIfAbsent(rule, r -> r.evaluate(target)));
+        }
+        return ordered;
+    }
+
+    /**
+     * Evaluate all rules concurrently. The target is frozen into a snapshot first; each pattern
+     * scan, each query execution and each other rule is then run as a separate task.
+     *
+     * @param target the validation target
+     * @param executor the executor
+     * @return the results, in rule order
+     */
+    public CompletableFuture<List<RuleResult>> evaluate(final ValidationTarget target,
+                                                        final Executor executor) {
+        final ValidationTarget snapshot = target.snapshot();
+        final Map<Rule, CompletableFuture<RuleResult>> results = new HashMap<>();
+        final Map<RuleDefinition, TriplePattern> bound = bind(snapshot);
+        final Map<TriplePattern, CompletableFuture<Set<TriplePattern>>> scans = new HashMap<>();
+        scans(bound).forEach((scan, patterns) -> scans.put(scan,
+                supplyAsync(() -> scan(snapshot, scan, patterns), executor)));
+        bound.forEach((rule, pattern) -> results.put(rule, scans.get(pattern.scan())
+                .thenApply(found -> rule.result(found.contains(pattern)))));
+        definitions(RuleDefinition.Kind.SPARQL).collect(groupingBy(RuleDefinition::getQuery))
+                .forEach((query, queryRules) -> {
+                    final CompletableFuture<List<QuerySolution>> solutions = supplyAsync(() ->
+                            Queries.select(Queries.load(query), snapshot.getModel()), executor);
+                    queryRules.forEach(rule -> results.put(rule, solutions.handle((s, ex) ->
+                            ex == null ? rule.evaluate(s) : RuleResult.fail(rule, cause(ex)))));
+                });
+        for (final Rule rule : rules) {
+            results.computeIfAbsent(rule, r -> supplyAsync(() -> r.evaluate(snapshot), executor));
+        }
+        final List<CompletableFuture<RuleResult>> ordered = rules.stream().map(results::get)
+                .collect(toList());
+        return CompletableFuture.allOf(ordered.toArray(new CompletableFuture[0]))
+                .thenApply(x -> ordered.stream().map(CompletableFuture::join).collect(toList()));
+    }
+
+    /**
+     * Publish the rule results. Each rule is evaluated on its own when the subscriber requests
+     * its result, so the pattern scans and queries are not shared; rules after a cancellation
+     * are not evaluated.
+     *
+     * @param target the validation target
+     * @param executor the executor evaluating the rules and delivering the results
+     * @return the publisher of the results, in rule order
+     */
+    public Flow.Publisher<RuleResult> publish(final ValidationTarget target,
+                                              final Executor executor) {
+        return new StreamPublisher<>(() -> rules.stream().map(r -> r.evaluate(target)),
+                executor);
+    }
+
+    private static String cause(final Throwable ex) {
+        return ex instanceof CompletionException && ex.getCause() != null ?
+                ex.getCause().getMessage() : ex.getMessage();
+    }
+
+    private void evaluatePatterns(final ValidationTarget target,
+                                  final Map<Rule, RuleResult> results) {
+        final Map<RuleDefinition, TriplePattern> bound = bind(target);
+        final Map<TriplePattern, Set<TriplePattern>> scans = scans(bound);
+        final Set<TriplePattern> found = new HashSet<>();
+        scans.forEach((scan, patterns) -> found.addAll(scan(target, scan, patterns)));
+        LOGGER.debug("Answered {} pattern rules with {} scans", bound.size(), scans.size());
+        bound.forEach((rule, pattern) -> results.put(rule, rule.result(found.contains(pattern))));
+    }
+
+    private Map<RuleDefinition, TriplePattern> bind(final ValidationTarget target) {
+        final Map<RuleDefinition, TriplePattern> bound = new LinkedHashMap<>();
+        definitions(RuleDefinition.Kind.PATTERN).forEach(r -> bound.put(r, r.getPattern()
+                .bind(target)));
+        return bound;
+    }
+
+    private static Map<TriplePattern, Set<TriplePattern>> scans(
+            final Map<RuleDefinition, TriplePattern> bound) {
+        return bound.values().stream().collect(groupingBy(TriplePattern::scan,
+                LinkedHashMap::new, toCollection(LinkedHashSet::new)));
+    }
+
+    // Scan once for all patterns sharing a term, stopping when every pattern has been matched
+    private static Set<TriplePattern> scan(final ValidationTarget target, final TriplePattern scan,
+                                           final Set<TriplePattern> patterns) {
+        final Set<TriplePattern> found = new HashSet<>();
+        final Set<TriplePattern> remaining = new HashSet<>(patterns);
+        try (Stream<? extends Triple> stream = target.getGraph()
+                .stream(scan.getSubject(), scan.getPredicate(), scan.getObject())) {
+            final Iterator<? extends Triple> triples = stream.iterator();
+            while (!remaining.isEmpty() && triples.hasNext()) {
+                final Triple triple = triples.next();
+                final Iterator<TriplePattern> candidates = remaining.iterator();
+                while (candidates.hasNext()) {
+                    final TriplePattern pattern = candidates.next();
+                    if (pattern.matches(triple)) {
+                        found.add(pattern);
+                        candidates.remove();
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    private void evaluateQueries(final ValidationTarget target,
+                                 final Map<Rule, RuleResult> results) {
+        final Map<String, List<QuerySolution>> solutions = new HashMap<>();
+        definitions(RuleDefinition.Kind.SPARQL).forEach(rule -> {
+            try {
+                results.put(rule, rule.evaluate(solutions.computeIfAbsent(rule.getQuery(),
+                        q -> Queries.select(Queries.load(q), target.getModel()))));
+            } catch (final RuntimeException ex) {
+                results.put(rule, RuleResult.fail(rule, ex.getMessage()));
+            }
+        });
+    }
+
+    private Stream<RuleDefinition> definitions(final RuleDefinition.Kind kind) {
+        return rules.stream().filter(r -> r instanceof RuleDefinition).map(r -> (RuleDefinition) r)
+                .filter(r -> r.getKind() == kind);
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.Optional.ofNullable;
+
+import java.util.Optional;
+
+/**
+ * RuleResult.
+ *
+ * @author christopher-johnson
+ */
+public class RuleResult {
+
+    private final Rule rule;
+
+    private final boolean passed;
+
+    private final String message;
+
+    /**
+     * Create a rule result.
+     *
+     * @param rule the rule
+     * @param passed whether the rule passed
+     * @param message a message describing a failure, may be null
+     */
+    public RuleResult(final Rule rule, final boolean passed, final String message) {
+        requireNonNull(rule, "The rule may not be null!");
+        this.rule = rule;
+        this.passed = passed;
+        this.message = message;
+    }
+
+    static RuleResult pass(final Rule rule) {
+        return new RuleResult(rule, true, null);
+    }
+
+    static RuleResult fail(final Rule rule, final String message) {
+        return new RuleResult(rule, false, message);
+    }
+
+    public Rule getRule() {
+        return rule;
+    }
+
+    public boolean isPassed() {
+        return passed;
+    }
+
+    public Optional<String> getMessage() {
+        return ofNullable(message);
+    }
+
+    @Override
+    public String toString() {
+        return rule.getId() + " " + rule.getName() + " [" + rule.getSection() + "] " +
+                (passed ? "passed" : "failed" + getMessage().map(m -> ": " + m).orElse(""));
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static java.util.Objects.requireNonNull;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import de.ubleipzig.validator.RunFile.Entry;
+import de.ubleipzig.validator.RunFile.Reader;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+
+/**
+ * RunDiff.
+ *
+ * <p>Compares the run files of two validation runs by a merge-join over their sorted records.
+ * Both files are read once, in order, so the comparison needs constant memory regardless of
+ * the number of manifests.
+ *
+ * @author christopher-johnson
+ */
+public final class RunDiff {
+
+    private static final Logger LOGGER = getLogger(RunDiff.class);
+
+    private RunDiff() {
+        // prevent instantiation
+    }
+
+    /**
+     * The change of a failing rule between two runs.
+     */
+    public enum Change {
+        /**
+         * The rule fails now but passed or was not checked before.
+         */
+        NEW,
+        /**
+         * The rule failed before and passes now.
+         */
+        FIXED,
+        /**
+         * The rule fails in both runs.
+         */
+        PERSISTING,
+        /**
+         * The rule failed before and was not checked now.
+         */
+        DROPPED
+    }
+
+    /**
+     * A failing rule of a manifest that differs or persists between two runs.
+     */
+    public static final class Difference {
+
+        private final String manifest;
+
+        private final String rule;
+
+        private final Change change;
+
+        Difference(final String manifest, final String rule, final Change change) {
+            this.manifest = manifest;
+            this.rule = rule;
+            this.change = change;
+        }
+
+        public String getManifest() {
+            return manifest;
+        }
+
+        public String getRule() {
+            return rule;
+        }
+
+        public Change getChange() {
+            return change;
+        }
+
+        @Override
+        public String toString() {
+            return change + " " + manifest + " " + rule;
+        }
+    }
+
+    /**
+     * Compare two runs.
+     *
+     * @param before the run file of the earlier run
+     * @param after the run file of the later run
+     * @param sink receives each difference in manifest and rule order
+     * @return the number of differences of each change
+     * @throws IOException if a run file cannot be read
+     */
+    public static Map<Change, Long> diff(final Path before, final Path after,
+                                         final Consumer<Difference> sink) throws IOException {
+        requireNonNull(sink, "The sink may not be null!");
+        final Map<Change, Long> counts = new EnumMap<>(Change.class);
+        for (final Change change : Change.values()) {
+            counts.put(change, 0L);
+        }
+        final Consumer<Difference> counting = difference -> {
+            counts.merge(difference.getChange(), 1L, Long::sum);
+            sink.accept(difference);
+        };
+        try (Reader a = RunFile.read(before); Reader b = RunFile.read(after)) {
+            Entry x = a.hasNext() ? a.next() : null;
+            Entry y = b.hasNext() ? b.next() : null;
+            while (x != null || y != null) {
+                final int order = x == null ? 1 : y == null ? -1 : RunFile.ORDER.compare(x, y);
+                if (order < 0) {
+                    if (!x.isPassed()) {
+                        counting.accept(new Difference(x.getManifest(), x.getRule(),
+                                Change.DROPPED));
+                    }
+                    x = a.hasNext() ? a.next() : null;
+                } else if (order > 0) {
+                    if (!y.isPassed()) {
+                        counting.accept(new Difference(y.getManifest(), y.getRule(),
+                                Change.NEW));
+                    }
+                    y = b.hasNext() ? b.next() : null;
+                } else {
+                    final Change change = compare(x.isPassed(), y.isPassed());
+                    if (change != null) {
+                        counting.accept(new Difference(y.getManifest(), y.getRule(), change));
+                    }
+                    x = a.hasNext() ? a.next() : null;
+                    y = b.hasNext() ? b.next() : null;
+                }
+            }
+        }
+        LOGGER.info("Compared {} with {}: {}", before, after, counts);
+        return counts;
+    }
+
+    private static Change compare(final boolean passedBefore, final boolean passedAfter) {
+        if (passedBefore) {
+            return passedAfter ? null : Change.NEW;
+        }
+        return passedAfter ? Change.FIXED : Change.PERSISTING;
+    }
+}
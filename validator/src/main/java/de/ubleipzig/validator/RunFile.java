@@ -0,0 +1,409 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Comparator.comparing;
+import static java.util.Objects.requireNonNull;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+import org.slf4j.Logger;
+
+/**
+ * RunFile.
+ *
+ * <p>The results of a validation run as a compact binary file of {@code (manifest, rule,
+ * passed)} records sorted by manifest and rule. Each manifest is stored as the length of the
+ * prefix it shares with the previous record and the remaining bytes, so the records of one
+ * manifest repeat no part of its name. Sorted files of two runs can be compared by a single
+ * streaming pass over both, see {@link RunDiff}.
+ *
+ * <p>Records may be added in any order. The writer sorts them in chunks of bounded size, spills
+ * each chunk to a sorted temporary file next to the run file, and merges the chunks on close.
+ *
+ * @author christopher-johnson
+ */
+public final class RunFile {
+
+    private static final Logger LOGGER = getLogger(RunFile.class);
+
+    private static final byte[] MAGIC = "IIIFRUN1".getBytes(UTF_8);
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The default number of records sorted in memory at a time.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    /**
+     * The order of the records.
+     */
+    static final Comparator<Entry> ORDER = comparing(Entry::getManifest)
+            .thenComparing(Entry::getRule);
+
+    private RunFile() {
+        // prevent instantiation
+    }
+
+    /**
+     * A record of a run file.
+     */
+    public static final class Entry {
+
+        private final String manifest;
+
+        private final String rule;
+
+        private final boolean passed;
+
+        Entry(final String manifest, final String rule, final boolean passed) {
+            this.manifest = manifest;
+            this.rule = rule;
+            this.passed = passed;
+        }
+
+        public String getManifest() {
+            return manifest;
+        }
+
+        public String getRule() {
+            return rule;
+        }
+
+        public boolean isPassed() {
+            return passed;
+        }
+
+        @Override
+        public String toString() {
+            return manifest + " " + rule + (passed ? " passed" : " failed");
+        }
+    }
+
+    /**
+     * Create a run file.
+     *
+     * @param file the file
+     * @return the writer
+     * @throws IOException if the file cannot be created
+     */
+    public static Writer write(final Path file) throws IOException {
+        return new Writer(file, DEFAULT_CHUNK_SIZE);
+    }
+
+    static Writer write(final Path file, final int chunkSize) throws IOException {
+        return new Writer(file, chunkSize);
+    }
+
+    /**
+     * Read a run file.
+     *
+     * @param file the file
+     * @return the reader, returning the records in order
+     * @throws IOException if the file cannot be read or is not a run file
+     */
+    public static Reader read(final Path file) throws IOException {
+        return new Reader(file);
+    }
+
+    /**
+     * Writes the records of a run in sorted order.
+     */
+    public static final class Writer implements AutoCloseable {
+
+        private final Path file;
+
+        private final int chunkSize;
+
+        private final List<Entry> chunk = new ArrayList<>();
+
+        private final List<Path> spills = new ArrayList<>();
+
+        private Writer(final Path file, final int chunkSize) throws IOException {
+            this.file = requireNonNull(file, "The run file may not be null!");
+            if (chunkSize < 1) {
+                throw new IllegalArgumentException("chunkSize must be positive");
+            }
+            this.chunkSize = chunkSize;
+            Files.deleteIfExists(file);
+        }
+
+        /**
+         * Add the results of a manifest.
+         *
+         * @param manifest the manifest IRI or location
+         * @param results the rule results
+         * @throws IOException if a sorted chunk cannot be written
+         */
+        public synchronized void add(final String manifest, final List<RuleResult> results)
+                throws IOException {
+            for (final RuleResult result : results) {
+                add(manifest, result.getRule().getId(), result.isPassed());
+            }
+        }
+
+        /**
+         * Add a record.
+         *
+         * @param manifest the manifest IRI or location
+         * @param rule the rule id
+         * @param passed whether the rule passed
+         * @throws IOException if a sorted chunk cannot be written
+         */
+        public synchronized void add(final String manifest, final String rule,
+                                     final boolean passed) throws IOException {
+            chunk.add(new Entry(manifest, rule, passed));
+            if (chunk.size() >= chunkSize) {
+                final Path spill = file.resolveSibling(file.getFileName() + ".spill-"
+                        + spills.size());
+                chunk.sort(ORDER);
+                writeSorted(spill, chunk.iterator());
+                spills.add(spill);
+                chunk.clear();
+            }
+        }
+
+        /**
+         * Write the sorted run file. Records with the same manifest and rule are written once.
+         *
+         * @throws IOException if the file cannot be written
+         */
+        @Override
+        public synchronized void close() throws IOException {
+            chunk.sort(ORDER);
+            final List<Reader> readers = new ArrayList<>();
+            try {
+                for (final Path spill : spills) {
+                    readers.add(new Reader(spill));
+                }
+                final PriorityQueue<Reader> heads =
+                        new PriorityQueue<>(comparing(Reader::peek, ORDER));
+                readers.stream().filter(Reader::hasNext).forEach(heads::add);
+                final Iterator<Entry> memory = chunk.iterator();
+                final Iterator<Entry> merged = new Iterator<Entry>() {
+                    private Entry next = memory.hasNext() ? memory.next() : null;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next != null || !heads.isEmpty();
+                    }
+
+                    @Override
+                    public Entry next() {
+                        final Reader head = heads.peek();
+                        if (head == null || next != null && ORDER.compare(next, head.peek()) <= 0) {
+                            final Entry entry = next;
+                            next = memory.hasNext() ? memory.next() : null;
+                            return entry;
+                        }
+                        heads.poll();
+                        final Entry entry = head.next();
+                        if (head.hasNext()) {
+                            heads.add(head);
+                        }
+                        return entry;
+                    }
+                };
+                final long count = writeSorted(file, merged);
+                LOGGER.debug("Wrote {} records to {} from {} chunks", count, file,
+                        spills.size() + 1);
+            } finally {
+                for (final Reader reader : readers) {
+                    reader.close();
+                }
+                for (final Path spill : spills) {
+                    Files.deleteIfExists(spill);
+                }
+                chunk.clear();
+            }
+        }
+    }
+
+    // Writes records that are already in order, skipping repeated keys
+    private static long writeSorted(final Path file, final Iterator<Entry> entries)
+            throws IOException {
+        long count = 0;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(file), BUFFER_SIZE))) {
+            out.write(MAGIC);
+            byte[] previous = new byte[0];
+            Entry last = null;
+            while (entries.hasNext()) {
+                final Entry entry = entries.next();
+                if (last != null && ORDER.compare(last, entry) == 0) {
+                    continue;
+                }
+                final byte[] manifest = entry.manifest.equals(last == null ? null :
+                        last.manifest) ? previous : entry.manifest.getBytes(UTF_8);
+                final int shared = sharedPrefix(previous, manifest);
+                writeVarInt(out, shared);
+                writeVarInt(out, manifest.length - shared);
+                out.write(manifest, shared, manifest.length - shared);
+                final byte[] rule = entry.rule.getBytes(UTF_8);
+                writeVarInt(out, rule.length);
+                out.write(rule);
+                out.writeBoolean(entry.passed);
+                previous = manifest;
+                last = entry;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int sharedPrefix(final byte[] a, final byte[] b) {
+        final int mismatch = Arrays.mismatch(a, b);
+        return mismatch < 0 ? a.length : mismatch;
+    }
+
+    private static void writeVarInt(final DataOutputStream out, final int value)
+            throws IOException {
+        int v = value;
+        while ((v & ~0x7f) != 0) {
+            out.writeByte((v & 0x7f) | 0x80);
+            v >>>= 7;
+        }
+        out.writeByte(v);
+    }
+
+    /**
+     * Reads the records of a run file in order.
+     */
+    public static final class Reader implements Iterator<Entry>, AutoCloseable {
+
+        private final Path file;
+
+        private final DataInputStream in;
+
+        private byte[] manifestBytes = new byte[256];
+
+        private int manifestLength;
+
+        private String manifest;
+
+        private String rule = "";
+
+        private byte[] ruleBytes = new byte[0];
+
+        private Entry next;
+
+        private Reader(final Path file) throws IOException {
+            this.file = file;
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file),
+                    BUFFER_SIZE));
+            final byte[] magic = new byte[MAGIC.length];
+            try {
+                in.readFully(magic);
+            } catch (final EOFException ex) {
+                in.close();
+                throw new IOException(file + " is not a run file", ex);
+            }
+            if (!Arrays.equals(magic, MAGIC)) {
+                in.close();
+                throw new IOException(file + " is not a run file");
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                try {
+                    next = readEntry();
+                } catch (final IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Entry next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final Entry entry = next;
+            next = null;
+            return entry;
+        }
+
+        Entry peek() {
+            return hasNext() ? next : null;
+        }
+
+        private Entry readEntry() throws IOException {
+            final int shared = in.read();
+            if (shared < 0) {
+                return null;
+            }
+            final int prefix = readVarInt(shared);
+            final int suffix = readVarInt(in.readUnsignedByte());
+            if (prefix > manifestLength) {
+                throw new IOException("Corrupt record in " + file);
+            }
+            if (suffix > 0 || prefix < manifestLength || manifest == null) {
+                if (prefix + suffix > manifestBytes.length) {
+                    manifestBytes = Arrays.copyOf(manifestBytes, 2 * (prefix + suffix));
+                }
+                in.readFully(manifestBytes, prefix, suffix);
+                manifestLength = prefix + suffix;
+                manifest = new String(manifestBytes, 0, manifestLength, UTF_8);
+            }
+            final byte[] bytes = new byte[readVarInt(in.readUnsignedByte())];
+            in.readFully(bytes);
+            // records of one manifest mostly cycle through the same few rules
+            if (!Arrays.equals(bytes, ruleBytes)) {
+                ruleBytes = bytes;
+                rule = new String(bytes, UTF_8);
+            }
+            return new Entry(manifest, rule, in.readBoolean());
+        }
+
+        private int readVarInt(final int first) throws IOException {
+            int value = first & 0x7f;
+            int b = first;
+            for (int shift = 7; (b & 0x80) != 0; shift += 7) {
+                if (shift > 28) {
+                    throw new IOException("Corrupt record in " + file);
+                }
+                b = in.readUnsignedByte();
+                value |= (b & 0x7f) << shift;
+            }
+            return value;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
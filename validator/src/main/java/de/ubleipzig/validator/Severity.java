@@ -0,0 +1,58 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+/**
+ * Severity.
+ *
+ * <p>The requirement levels used by the specification and by the test tags. The declaration
+ * order is the evaluation order.
+ *
+ * @author christopher-johnson
+ */
+public enum Severity {
+
+    MUST("must"), SHOULD("should"), MAY("may");
+
+    private final String tag;
+
+    Severity(final String tag) {
+        this.tag = tag;
+    }
+
+    /**
+     * Get the test tag for this severity.
+     *
+     * @return the tag
+     */
+    public String tag() {
+        return tag;
+    }
+
+    /**
+     * Resolve a severity from a test tag.
+     *
+     * @param tag the tag
+     * @return the severity
+     */
+    public static Severity fromTag(final String tag) {
+        for (final Severity s : values()) {
+            if (s.tag.equalsIgnoreCase(tag.trim())) {
+                return s;
+            }
+        }
+        throw new IllegalArgumentException("Unknown severity: " + tag);
+    }
+}
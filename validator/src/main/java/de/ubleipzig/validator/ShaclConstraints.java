@@ -0,0 +1,86 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static java.util.Collections.unmodifiableSet;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.slf4j.Logger;
+import org.trellisldp.api.ConstraintService;
+import org.trellisldp.api.ConstraintViolation;
+
+/**
+ * ShaclConstraints.
+ *
+ * <p>A {@link ConstraintService} that evaluates the IIIF Presentation 2 constraints expressed as
+ * SHACL shapes. The shapes are compiled once per shapes resource; shapes with
+ * {@code sh:Warning} or {@code sh:Info} severity are only evaluated when requested.
+ *
+ * @author christopher-johnson
+ */
+public class ShaclConstraints implements ConstraintService {
+
+    private static final Logger LOGGER = getLogger(ShaclConstraints.class);
+
+    public static final String PRESENTATION_SHAPES = "/shapes/iiif-presentation2.ttl";
+
+    private static final Map<String, ShapesPlan> plans = new ConcurrentHashMap<>();
+
+    private final ShapesPlan plan;
+
+    private final Set<Severity> severities;
+
+    /**
+     * Create a SHACL constraint service reporting violations of the must shapes.
+     */
+    public ShaclConstraints() {
+        this(PRESENTATION_SHAPES, EnumSet.of(Severity.MUST));
+    }
+
+    /**
+     * Create a SHACL constraint service.
+     *
+     * @param shapes the classpath location of the shapes graph
+     * @param severities the severities of the shapes to evaluate
+     */
+    public ShaclConstraints(final String shapes, final Set<Severity> severities) {
+        this.plan = plans.computeIfAbsent(shapes, ShapesCompiler::compile);
+        this.severities = unmodifiableSet(EnumSet.copyOf(severities));
+    }
+
+    /**
+     * Validate a graph. The interaction model and domain are not used; shapes select their
+     * focus nodes through their target declarations.
+     *
+     * @param model the interaction model
+     * @param domain the domain
+     * @param graph the graph
+     * @return the violations
+     */
+    @Override
+    public Stream<ConstraintViolation> constrainedBy(final IRI model, final String domain,
+                                                     final Graph graph) {
+        return plan.validate(graph, severities)
+                .peek(x -> LOGGER.debug("Constraint violation: {}", x));
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static java.util.Collections.unmodifiableList;
+import static org.apache.jena.rdf.model.ModelFactory.createDefaultModel;
+import static org.apache.jena.riot.RDFDataMgr.read;
+
+import de.ubleipzig.validator.ShapesPlan.NodeShape;
+import de.ubleipzig.validator.ShapesPlan.PropertyShape;
+import de.ubleipzig.validator.ShapesPlan.ValueConstraint;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.apache.commons.rdf.api.BlankNode;
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Literal;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.jena.JenaRDF;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.vocabulary.RDF;
+import org.trellisldp.api.RuntimeRepositoryException;
+import org.trellisldp.vocabulary.Trellis;
+
+/**
+ * ShapesCompiler.
+ *
+ * <p>Compiles a SHACL shapes graph into a {@link ShapesPlan}. Only the SHACL Core features
+ * needed by the IIIF constraints are supported: the four target declarations, {@code sh:nodeKind}
+ * and {@code sh:class} on node and property shapes, property shapes with an IRI path,
+ * {@code sh:minCount}, {@code sh:maxCount}, {@code sh:datatype}, {@code sh:hasValue} and
+ * {@code sh:severity} on node shapes. Any other constraint component is rejected rather than
+ * ignored.
+ *
+ * @author christopher-johnson
+ */
+final class ShapesCompiler {
+
+    static final String SH = "http://www.w3.org/ns/shacl#";
+
+    private static final JenaRDF rdf = new JenaRDF();
+
+    private static final Set<String> supported = Set.of("targetClass", "targetNode",
+            "targetSubjectsOf", "targetObjectsOf", "nodeKind", "class", "property", "path",
+            "minCount", "maxCount", "datatype", "hasValue", "severity", "message", "name",
+            "description");
+
+    private ShapesCompiler() {
+        // prevent instantiation
+    }
+
+    static ShapesPlan compile(final String resource) {
+        final Model model = createDefaultModel();
+        try (InputStream is = ShapesCompiler.class.getResourceAsStream(resource)) {
+            if (is == null) {
+                throw new RuntimeRepositoryException("Shapes not found: " + resource);
+            }
+            read(model, is, Lang.TURTLE);
+        } catch (final IOException ex) {
+            throw new RuntimeRepositoryException(ex);
+        }
+        return compile(model);
+    }
+
+    static ShapesPlan compile(final Model model) {
+        final Set<Resource> nodeShapes = new LinkedHashSet<>();
+        model.listSubjectsWithProperty(RDF.type, model.createResource(SH + "NodeShape"))
+                .forEachRemaining(nodeShapes::add);
+        for (final String target : List.of("targetClass", "targetNode", "targetSubjectsOf",
+                "targetObjectsOf")) {
+            model.listSubjectsWithProperty(sh(model, target)).forEachRemaining(nodeShapes::add);
+        }
+
+        final List<NodeShape> shapes = new ArrayList<>();
+        final Map<NodeShape, Set<IRI>> classes = new HashMap<>();
+        final Map<NodeShape, Set<IRI>> subjectsOf = new HashMap<>();
+        final Map<NodeShape, Set<IRI>> objectsOf = new HashMap<>();
+        final Map<NodeShape, Set<RDFTerm>> nodes = new HashMap<>();
+        for (final Resource s : nodeShapes) {
+            checkSupported(s);
+            final List<PropertyShape> properties = new ArrayList<>();
+            s.listProperties(sh(model, "property")).forEachRemaining(
+                    p -> properties.add(property(p.getResource())));
+            final NodeShape shape = new NodeShape(rdf.asRDFTerm(s.asNode()), severity(s),
+                    unmodifiableList(values(s)), unmodifiableList(properties));
+            shapes.add(shape);
+            classes.put(shape, iris(s, sh(model, "targetClass")));
+            subjectsOf.put(shape, iris(s, sh(model, "targetSubjectsOf")));
+            objectsOf.put(shape, iris(s, sh(model, "targetObjectsOf")));
+            final Set<RDFTerm> targetNodes = new HashSet<>();
+            s.listProperties(sh(model, "targetNode")).forEachRemaining(
+                    st -> targetNodes.add(rdf.asRDFTerm(st.getObject().asNode())));
+            nodes.put(shape, targetNodes);
+        }
+        return new ShapesPlan(unmodifiableList(shapes), ShapesPlan.index(shapes, classes),
+                ShapesPlan.index(shapes, subjectsOf), ShapesPlan.index(shapes, objectsOf),
+                ShapesPlan.index(shapes, nodes));
+    }
+
+    private static PropertyShape property(final Resource shape) {
+        checkSupported(shape);
+        if (value(shape, "severity") != null) {
+            throw new RuntimeRepositoryException("Severity is only supported on node shapes: " +
+                    shape);
+        }
+        final Model model = shape.getModel();
+        final RDFNode path = value(shape, "path");
+        if (path == null || !path.isURIResource()) {
+            throw new RuntimeRepositoryException("Only IRI paths are supported: " + shape);
+        }
+        final RDFNode min = value(shape, "minCount");
+        final RDFNode max = value(shape, "maxCount");
+        final RDFNode hasValue = value(shape, "hasValue");
+        final List<ValueConstraint> values = values(shape);
+        final RDFNode datatype = value(shape, "datatype");
+        if (datatype != null) {
+            final IRI type = (IRI) rdf.asRDFTerm(datatype.asNode());
+            values.add(new ValueConstraint(Trellis.InvalidRange,
+                    v -> v instanceof Literal && ((Literal) v).getDatatype().equals(type)));
+        }
+        return new PropertyShape((IRI) rdf.asRDFTerm(path.asNode()),
+                min != null ? min.asLiteral().getInt() : 0,
+                max != null ? max.asLiteral().getInt() : Integer.MAX_VALUE,
+                hasValue != null ? rdf.asRDFTerm(hasValue.asNode()) : null,
+                unmodifiableList(values));
+    }
+
+    // The sh:nodeKind and sh:class constraints of a node or property shape
+    private static List<ValueConstraint> values(final Resource shape) {
+        final boolean node = !shape.hasProperty(sh(shape.getModel(), "path"));
+        final IRI constraint = node ? Trellis.InvalidType : Trellis.InvalidRange;
+        final List<ValueConstraint> values = new ArrayList<>();
+        final RDFNode nodeKind = value(shape, "nodeKind");
+        if (nodeKind != null) {
+            values.add(new ValueConstraint(constraint, nodeKind(nodeKind)));
+        }
+        shape.listProperties(sh(shape.getModel(), "class")).forEachRemaining(st -> values.add(
+                new ValueConstraint(constraint, (IRI) rdf.asRDFTerm(st.getObject().asNode()))));
+        return values;
+    }
+
+    private static Predicate<RDFTerm> nodeKind(final RDFNode kind) {
+        switch (kind.asResource().getURI().substring(SH.length())) {
+            case "IRI":
+                return v -> v instanceof IRI;
+            case "BlankNode":
+                return v -> v instanceof BlankNode;
+            case "Literal":
+                return v -> v instanceof Literal;
+            case "BlankNodeOrIRI":
+                return v -> v instanceof BlankNodeOrIRI;
+            case "BlankNodeOrLiteral":
+                return v -> v instanceof BlankNode || v instanceof Literal;
+            case "IRIOrLiteral":
+                return v -> v instanceof IRI || v instanceof Literal;
+            default:
+                throw new RuntimeRepositoryException("Unknown node kind: " + kind);
+        }
+    }
+
+    private static Severity severity(final Resource shape) {
+        final RDFNode severity = value(shape, "severity");
+        if (severity == null || severity.asResource().getURI().equals(SH + "Violation")) {
+            return Severity.MUST;
+        } else if (severity.asResource().getURI().equals(SH + "Warning")) {
+            return Severity.SHOULD;
+        }
+        return Severity.MAY;
+    }
+
+    private static void checkSupported(final Resource shape) {
+        for (final Statement st : shape.listProperties().toList()) {
+            final String predicate = st.getPredicate().getURI();
+            if (predicate.startsWith(SH) && !supported.contains(predicate.substring(SH.length()))) {
+                throw new RuntimeRepositoryException("Unsupported shape constraint: " + predicate);
+            }
+        }
+    }
+
+    private static Set<IRI> iris(final Resource shape, final Property property) {
+        final Set<IRI> iris = new HashSet<>();
+        shape.listProperties(property).forEachRemaining(
+                st -> iris.add((IRI) rdf.asRDFTerm(st.getObject().asNode())));
+        return iris;
+    }
+
+    private static RDFNode value(final Resource shape, final String name) {
+        final Statement st = shape.getProperty(sh(shape.getModel(), name));
+        return st != null ? st.getObject() : null;
+    }
+
+    private static Property sh(final Model model, final String name) {
+        return model.createProperty(SH + name);
+    }
+}
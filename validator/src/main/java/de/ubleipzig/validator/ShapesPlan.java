@@ -0,0 +1,276 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+import org.trellisldp.api.ConstraintViolation;
+import org.trellisldp.vocabulary.RDF;
+import org.trellisldp.vocabulary.Trellis;
+
+/**
+ * ShapesPlan.
+ *
+ * <p>An executable plan compiled from a shapes graph. Target declarations are indexed by class
+ * and by predicate so that one pass over the data graph resolves the focus nodes of every shape.
+ * The properties of each focus node are then read with a single subject lookup and checked
+ * against all shapes targeting that node.
+ *
+ * @author christopher-johnson
+ */
+final class ShapesPlan {
+
+    /**
+     * A value constraint of a node or property shape.
+     */
+    static final class ValueConstraint {
+
+        private final IRI constraint;
+
+        private final Predicate<RDFTerm> valid;
+
+        private final boolean needsGraph;
+
+        private final IRI type;
+
+        ValueConstraint(final IRI constraint, final Predicate<RDFTerm> valid) {
+            this.constraint = constraint;
+            this.valid = valid;
+            this.needsGraph = false;
+            this.type = null;
+        }
+
+        // An sh:class constraint needs a type lookup in the data graph
+        ValueConstraint(final IRI constraint, final IRI type) {
+            this.constraint = constraint;
+            this.valid = null;
+            this.needsGraph = true;
+            this.type = type;
+        }
+
+        boolean test(final Graph graph, final RDFTerm value) {
+            if (needsGraph) {
+                return value instanceof BlankNodeOrIRI &&
+                        graph.contains((BlankNodeOrIRI) value, RDF.type, type);
+            }
+            return valid.test(value);
+        }
+    }
+
+    /**
+     * A compiled property shape with an IRI path.
+     */
+    static final class PropertyShape {
+
+        private final IRI path;
+
+        private final int minCount;
+
+        private final int maxCount;
+
+        private final RDFTerm hasValue;
+
+        private final List<ValueConstraint> values;
+
+        PropertyShape(final IRI path, final int minCount, final int maxCount,
+                      final RDFTerm hasValue, final List<ValueConstraint> values) {
+            this.path = path;
+            this.minCount = minCount;
+            this.maxCount = maxCount;
+            this.hasValue = hasValue;
+            this.values = values;
+        }
+    }
+
+    /**
+     * A compiled node shape.
+     */
+    static final class NodeShape {
+
+        private final RDFTerm id;
+
+        private final Severity severity;
+
+        private final List<ValueConstraint> constraints;
+
+        private final List<PropertyShape> properties;
+
+        NodeShape(final RDFTerm id, final Severity severity,
+                  final List<ValueConstraint> constraints, final List<PropertyShape> properties) {
+            this.id = id;
+            this.severity = severity;
+            this.constraints = constraints;
+            this.properties = properties;
+        }
+
+        RDFTerm getId() {
+            return id;
+        }
+
+        Severity getSeverity() {
+            return severity;
+        }
+    }
+
+    private final List<NodeShape> shapes;
+
+    private final Map<IRI, List<NodeShape>> byClass;
+
+    private final Map<IRI, List<NodeShape>> bySubjectOf;
+
+    private final Map<IRI, List<NodeShape>> byObjectOf;
+
+    private final Map<RDFTerm, List<NodeShape>> byNode;
+
+    ShapesPlan(final List<NodeShape> shapes, final Map<IRI, List<NodeShape>> byClass,
+               final Map<IRI, List<NodeShape>> bySubjectOf,
+               final Map<IRI, List<NodeShape>> byObjectOf,
+               final Map<RDFTerm, List<NodeShape>> byNode) {
+        this.shapes = shapes;
+        this.byClass = byClass;
+        this.bySubjectOf = bySubjectOf;
+        this.byObjectOf = byObjectOf;
+        this.byNode = byNode;
+    }
+
+    List<NodeShape> getShapes() {
+        return shapes;
+    }
+
+    /**
+     * Validate a data graph.
+     *
+     * @param graph the data graph
+     * @param severities the severities of the shapes to evaluate
+     * @return the violations
+     */
+    Stream<ConstraintViolation> validate(final Graph graph, final Set<Severity> severities) {
+        final Map<RDFTerm, Map<NodeShape, Triple>> focusNodes = focusNodes(graph, severities);
+        return focusNodes.entrySet().stream()
+                .flatMap(e -> validate(graph, e.getKey(), e.getValue()).stream());
+    }
+
+    // One pass over the data graph resolves the focus nodes of all shapes
+    private Map<RDFTerm, Map<NodeShape, Triple>> focusNodes(final Graph graph,
+                                                           final Set<Severity> severities) {
+        final Map<RDFTerm, Map<NodeShape, Triple>> focusNodes = new LinkedHashMap<>();
+        try (Stream<? extends Triple> stream = graph.stream()) {
+            stream.forEach(triple -> {
+                if (triple.getPredicate().equals(RDF.type)) {
+                    target(focusNodes, byClass.get(triple.getObject()), triple.getSubject(),
+                            triple, severities);
+                }
+                target(focusNodes, bySubjectOf.get(triple.getPredicate()), triple.getSubject(),
+                        triple, severities);
+                target(focusNodes, byObjectOf.get(triple.getPredicate()), triple.getObject(),
+                        triple, severities);
+                target(focusNodes, byNode.get(triple.getSubject()), triple.getSubject(), triple,
+                        severities);
+            });
+        }
+        return focusNodes;
+    }
+
+    private static void target(final Map<RDFTerm, Map<NodeShape, Triple>> focusNodes,
+                               final List<NodeShape> shapes, final RDFTerm focus,
+                               final Triple evidence, final Set<Severity> severities) {
+        if (shapes != null) {
+            for (final NodeShape shape : shapes) {
+                if (severities.contains(shape.severity)) {
+                    focusNodes.computeIfAbsent(focus, k -> new LinkedHashMap<>())
+                            .putIfAbsent(shape, evidence);
+                }
+            }
+        }
+    }
+
+    private List<ConstraintViolation> validate(final Graph graph, final RDFTerm focus,
+                                               final Map<NodeShape, Triple> targets) {
+        final Map<IRI, List<Triple>> properties = properties(graph, focus, targets.keySet());
+        final List<ConstraintViolation> violations = new ArrayList<>();
+        targets.forEach((shape, evidence) -> {
+            for (final ValueConstraint c : shape.constraints) {
+                if (!c.test(graph, focus)) {
+                    violations.add(new ConstraintViolation(c.constraint, evidence));
+                }
+            }
+            for (final PropertyShape property : shape.properties) {
+                final List<Triple> values = properties.getOrDefault(property.path, emptyList());
+                if (values.size() < property.minCount || values.size() > property.maxCount) {
+                    violations.add(new ConstraintViolation(Trellis.InvalidCardinality,
+                            values.isEmpty() ? singletonList(evidence) : values));
+                }
+                if (property.hasValue != null &&
+                        values.stream().noneMatch(t -> t.getObject().equals(property.hasValue))) {
+                    violations.add(new ConstraintViolation(Trellis.InvalidRange,
+                            values.isEmpty() ? singletonList(evidence) : values));
+                }
+                for (final Triple value : values) {
+                    for (final ValueConstraint c : property.values) {
+                        if (!c.test(graph, value.getObject())) {
+                            violations.add(new ConstraintViolation(c.constraint, value));
+                        }
+                    }
+                }
+            }
+        });
+        return violations;
+    }
+
+    // A single subject lookup collects the values of every path used by the targeting shapes
+    private static Map<IRI, List<Triple>> properties(final Graph graph, final RDFTerm focus,
+                                                     final Set<NodeShape> shapes) {
+        final Map<IRI, List<Triple>> properties = new HashMap<>();
+        if (!(focus instanceof BlankNodeOrIRI)) {
+            return properties;
+        }
+        final Set<IRI> paths = new HashSet<>();
+        shapes.forEach(s -> s.properties.forEach(p -> paths.add(p.path)));
+        if (paths.isEmpty()) {
+            return properties;
+        }
+        try (Stream<? extends Triple> stream = graph.stream((BlankNodeOrIRI) focus, null, null)) {
+            stream.filter(t -> paths.contains(t.getPredicate())).forEach(t -> properties
+                    .computeIfAbsent(t.getPredicate(), k -> new ArrayList<>()).add(t));
+        }
+        return properties;
+    }
+
+    static <K> Map<K, List<NodeShape>> index(final List<NodeShape> shapes,
+                                            final Map<NodeShape, Set<K>> targets) {
+        final Map<K, List<NodeShape>> index = new HashMap<>();
+        shapes.forEach(s -> targets.getOrDefault(s, Set.of()).forEach(
+                k -> index.computeIfAbsent(k, x -> new ArrayList<>()).add(s)));
+        index.replaceAll((k, v) -> v.stream().distinct().collect(toList()));
+        return index;
+    }
+}
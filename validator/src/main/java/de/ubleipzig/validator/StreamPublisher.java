@@ -0,0 +1,194 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static java.util.Objects.requireNonNull;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+
+/**
+ * StreamPublisher.
+ *
+ * <p>Publishes the elements of a lazily opened stream to each subscriber. The stream is opened
+ * when the first element is requested and pulled no further than the subscriber has asked for,
+ * so upstream parsing and checks only run ahead of a consumer by its outstanding demand. The
+ * stream is closed when it is exhausted, fails or the subscription is cancelled, and a subscriber
+ * whose demand ends with the stream is completed without having to request more.
+ *
+ * <p>Signals to a subscriber are serialized and delivered on the executor.
+ *
+ * @param <T> the element type
+ * @author christopher-johnson
+ */
+public class StreamPublisher<T> implements Flow.Publisher<T> {
+
+    private static final Logger LOGGER = getLogger(StreamPublisher.class);
+
+    private final Supplier<? extends Stream<? extends T>> source;
+
+    private final Executor executor;
+
+    /**
+     * Create a stream publisher. Each subscriber gets its own stream from the source.
+     *
+     * @param source the source of the stream
+     * @param executor the executor delivering signals
+     */
+    public StreamPublisher(final Supplier<? extends Stream<? extends T>> source,
+                           final Executor executor) {
+        requireNonNull(source, "The stream source may not be null!");
+        requireNonNull(executor, "The executor may not be null!");
+        this.source = source;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(final Flow.Subscriber<? super T> subscriber) {
+        requireNonNull(subscriber, "The subscriber may not be null!");
+        subscriber.onSubscribe(new StreamSubscription<>(subscriber, source, executor));
+    }
+
+    private static final class StreamSubscription<T> implements Flow.Subscription, Runnable {
+
+        private final Flow.Subscriber<? super T> subscriber;
+
+        private final Supplier<? extends Stream<? extends T>> source;
+
+        private final Executor executor;
+
+        private final AtomicLong demand = new AtomicLong();
+
+        // The number of signals not yet seen by the drain loop; only one drain runs at a time
+        private final AtomicInteger pending = new AtomicInteger();
+
+        private volatile boolean cancelled;
+
+        private volatile Throwable invalidRequest;
+
+        private Stream<? extends T> stream;
+
+        private Iterator<? extends T> iterator;
+
+        private boolean done;
+
+        private StreamSubscription(final Flow.Subscriber<? super T> subscriber,
+                                   final Supplier<? extends Stream<? extends T>> source,
+                                   final Executor executor) {
+            this.subscriber = subscriber;
+            this.source = source;
+            this.executor = executor;
+        }
+
+        @Override
+        public void request(final long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException(
+                        "The number of requested elements must be positive: " + n);
+            } else {
+                demand.getAndUpdate(d -> d + n < 0 ? Long.MAX_VALUE : d + n);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (pending.getAndIncrement() == 0) {
+                try {
+                    executor.execute(this);
+                } catch (final RejectedExecutionException ex) {
+                    LOGGER.warn("Could not deliver to subscriber: {}", ex.getMessage());
+                    cancelled = true;
+                    pending.set(0);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                drain();
+                missed = pending.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drain() {
+            if (done) {
+                return;
+            }
+            if (cancelled) {
+                close();
+                return;
+            }
+            if (invalidRequest != null) {
+                close();
+                subscriber.onError(invalidRequest);
+                return;
+            }
+            try {
+                long emitted = 0;
+                final long requested = demand.get();
+                while (emitted != requested && !cancelled) {
+                    if (iterator == null) {
+                        stream = source.get();
+                        iterator = stream.iterator();
+                    }
+                    if (!iterator.hasNext()) {
+                        close();
+                        subscriber.onComplete();
+                        return;
+                    }
+                    subscriber.onNext(iterator.next());
+                    emitted++;
+                }
+                if (requested != Long.MAX_VALUE) {
+                    demand.addAndGet(-emitted);
+                }
+                if (cancelled) {
+                    close();
+                } else if (emitted > 0 && !iterator.hasNext()) {
+                    // complete without waiting for a request the subscriber may never make
+                    close();
+                    subscriber.onComplete();
+                }
+            } catch (final RuntimeException ex) {
+                close();
+                subscriber.onError(ex);
+            }
+        }
+
+        private void close() {
+            done = true;
+            if (stream != null) {
+                stream.close();
+            }
+        }
+    }
+}
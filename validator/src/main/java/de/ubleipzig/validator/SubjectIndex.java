@@ -0,0 +1,84 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptySet;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Triple;
+import org.trellisldp.vocabulary.RDF;
+
+/**
+ * SubjectIndex.
+ *
+ * <p>The triples of a graph grouped by subject, together with the {@code rdf:type}s of each
+ * subject. The index is built in a single pass over the graph.
+ *
+ * @author christopher-johnson
+ */
+final class SubjectIndex {
+
+    private final Map<BlankNodeOrIRI, List<Triple>> triples = new HashMap<>();
+
+    private final Map<BlankNodeOrIRI, Set<IRI>> types = new HashMap<>();
+
+    private SubjectIndex() {
+    }
+
+    /**
+     * Index a graph.
+     *
+     * @param graph the graph
+     * @return the index
+     */
+    static SubjectIndex of(final Graph graph) {
+        final SubjectIndex index = new SubjectIndex();
+        try (Stream<? extends Triple> stream = graph.stream()) {
+            stream.forEach(index::add);
+        }
+        return index;
+    }
+
+    private void add(final Triple triple) {
+        triples.computeIfAbsent(triple.getSubject(), s -> new ArrayList<>()).add(triple);
+        if (RDF.type.equals(triple.getPredicate()) && triple.getObject() instanceof IRI) {
+            types.computeIfAbsent(triple.getSubject(), s -> new HashSet<>())
+                    .add((IRI) triple.getObject());
+        }
+    }
+
+    Set<BlankNodeOrIRI> subjects() {
+        return triples.keySet();
+    }
+
+    List<Triple> triples(final BlankNodeOrIRI subject) {
+        return triples.getOrDefault(subject, emptyList());
+    }
+
+    Set<IRI> types(final BlankNodeOrIRI subject) {
+        return types.getOrDefault(subject, emptySet());
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Triple;
+import org.trellisldp.api.ConstraintService;
+import org.trellisldp.api.ConstraintViolation;
+
+/**
+ * TripleConstraintService.
+ *
+ * <p>A {@link ConstraintService} whose constraints each concern a single triple. Such services
+ * can be evaluated together in one pass over a graph by {@link CompositeConstraints}.
+ *
+ * @author christopher-johnson
+ */
+public interface TripleConstraintService extends ConstraintService {
+
+    /**
+     * Get the check for a single triple.
+     *
+     * @param model the interaction model
+     * @param domain the domain of the resource, may be null
+     * @return a function returning the violations of a triple
+     */
+    Function<Triple, Stream<ConstraintViolation>> checkModelConstraints(IRI model, String domain);
+
+    @Override
+    default Stream<ConstraintViolation> constrainedBy(final IRI model, final String domain,
+                                                      final Graph graph) {
+        return graph.stream().flatMap(checkModelConstraints(model, domain));
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Objects;
+
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+import org.apache.commons.rdf.jena.JenaRDF;
+
+/**
+ * TriplePattern.
+ *
+ * <p>A triple pattern with optional wildcards. A pattern may be anchored at the requested
+ * resource, in which case its subject is only known once it is bound to a
+ * {@link ValidationTarget}.
+ *
+ * @author christopher-johnson
+ */
+public final class TriplePattern {
+
+    private static final JenaRDF rdf = new JenaRDF();
+
+    private final boolean anchored;
+
+    private final BlankNodeOrIRI subject;
+
+    private final IRI predicate;
+
+    private final RDFTerm object;
+
+    private TriplePattern(final boolean anchored, final BlankNodeOrIRI subject,
+                          final IRI predicate, final RDFTerm object) {
+        this.anchored = anchored;
+        this.subject = subject;
+        this.predicate = predicate;
+        this.object = object;
+    }
+
+    /**
+     * Create a pattern, null terms are wildcards.
+     *
+     * @param subject the subject
+     * @param predicate the predicate
+     * @param object the object
+     * @return the pattern
+     */
+    public static TriplePattern pattern(final BlankNodeOrIRI subject, final IRI predicate,
+                                        final RDFTerm object) {
+        return new TriplePattern(false, subject, predicate, object);
+    }
+
+    /**
+     * Create a pattern whose subject is the requested resource. For local documents without a
+     * requested resource the subject is a wildcard.
+     *
+     * @param predicate the predicate
+     * @param object the object
+     * @return the pattern
+     */
+    public static TriplePattern resource(final IRI predicate, final RDFTerm object) {
+        return new TriplePattern(true, null, requireNonNull(predicate), object);
+    }
+
+    /**
+     * Bind the pattern to a validation target.
+     *
+     * @param target the target
+     * @return a pattern without anchor
+     */
+    public TriplePattern bind(final ValidationTarget target) {
+        if (!anchored) {
+            return this;
+        }
+        return pattern(target.getResource().map(rdf::createIRI).orElse(null), predicate, object);
+    }
+
+    /**
+     * The pattern used to scan for this pattern and others sharing its most selective term.
+     *
+     * @return the scan pattern
+     */
+    TriplePattern scan() {
+        if (subject != null) {
+            return pattern(subject, null, null);
+        } else if (predicate != null) {
+            return pattern(null, predicate, null);
+        }
+        return pattern(null, null, object);
+    }
+
+    /**
+     * Test whether a triple matches this pattern.
+     *
+     * @param triple the triple
+     * @return true if the triple matches
+     */
+    public boolean matches(final Triple triple) {
+        return (subject == null || subject.equals(triple.getSubject())) &&
+                (predicate == null || predicate.equals(triple.getPredicate())) &&
+                (object == null || object.equals(triple.getObject()));
+    }
+
+    public boolean isAnchored() {
+        return anchored;
+    }
+
+    public BlankNodeOrIRI getSubject() {
+        return subject;
+    }
+
+    public IRI getPredicate() {
+        return predicate;
+    }
+
+    public RDFTerm getObject() {
+        return object;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof TriplePattern)) {
+            return false;
+        }
+        final TriplePattern that = (TriplePattern) other;
+        return anchored == that.anchored && Objects.equals(subject, that.subject) &&
+                Objects.equals(predicate, that.predicate) && Objects.equals(object, that.object);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(anchored, subject, predicate, object);
+    }
+
+    @Override
+    public String toString() {
+        return "{" + (anchored ? "<resource>" : term(subject)) + " " + term(predicate) + " " +
+                term(object) + "}";
+    }
+
+    private static String term(final RDFTerm term) {
+        return term == null ? "?" : term.ntriplesString();
+    }
+}
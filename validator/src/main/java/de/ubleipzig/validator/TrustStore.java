@@ -0,0 +1,147 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.List;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
+
+import org.slf4j.Logger;
+
+/**
+ * TrustStore.
+ *
+ * <p>The TLS configuration shared by the HTTP clients. Server certificates are trusted if they
+ * chain to a certificate of the system trust store or are one of the certificates bundled with
+ * the validator. All connections use one {@link SSLContext}, so its client session cache lets
+ * later connections to a host resume the TLS session of an earlier one instead of repeating the
+ * full handshake.
+ *
+ * @author christopher-johnson
+ */
+final class TrustStore {
+
+    private static final Logger LOGGER = getLogger(TrustStore.class);
+
+    /**
+     * The bundled PEM certificates, as classpath resources.
+     */
+    static final List<String> CERTIFICATES = List.of("/iiif.ub.uni-leipzig.de", "/-.w3.org");
+
+    private static final int SESSION_CACHE_SIZE = 1024;
+
+    private static final int SESSION_TIMEOUT_SECONDS = 24 * 60 * 60;
+
+    private TrustStore() {
+        // prevent instantiation
+    }
+
+    private static final class Holder {
+        static final SSLContext CONTEXT = create(CERTIFICATES);
+    }
+
+    /**
+     * Get the shared TLS context.
+     *
+     * @return the context
+     */
+    static SSLContext context() {
+        return Holder.CONTEXT;
+    }
+
+    /**
+     * Create a TLS context trusting the system certificates and the given PEM certificates.
+     *
+     * @param certificates the classpath resources of the PEM certificates
+     * @return the context
+     */
+    static SSLContext create(final List<String> certificates) {
+        try {
+            final SSLContext context = SSLContext.getInstance("TLS");
+            context.init(null, new TrustManager[] {trustManager(certificates)}, null);
+            final SSLSessionContext sessions = context.getClientSessionContext();
+            sessions.setSessionCacheSize(SESSION_CACHE_SIZE);
+            sessions.setSessionTimeout(SESSION_TIMEOUT_SECONDS);
+            return context;
+        } catch (final GeneralSecurityException ex) {
+            throw new IllegalStateException("Cannot create the TLS context", ex);
+        }
+    }
+
+    /**
+     * Create a trust manager for the system certificates and the given PEM certificates.
+     *
+     * @param certificates the classpath resources of the PEM certificates
+     * @return the trust manager
+     */
+    static X509TrustManager trustManager(final List<String> certificates) {
+        try {
+            final KeyStore store = KeyStore.getInstance(KeyStore.getDefaultType());
+            store.load(null, null);
+            int count = 0;
+            for (final X509Certificate issuer : systemTrust().getAcceptedIssuers()) {
+                store.setCertificateEntry("system-" + count++, issuer);
+            }
+            final CertificateFactory factory = CertificateFactory.getInstance("X.509");
+            for (final String resource : certificates) {
+                try (InputStream is = TrustStore.class.getResourceAsStream(resource)) {
+                    if (is == null) {
+                        throw new IllegalStateException("Missing certificate " + resource);
+                    }
+                    int index = 0;
+                    for (final Certificate certificate : factory.generateCertificates(is)) {
+                        store.setCertificateEntry(resource + "-" + index++, certificate);
+                    }
+                }
+            }
+            final TrustManagerFactory trust =
+                    TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+            trust.init(store);
+            LOGGER.debug("Trusting {} certificates", store.size());
+            return x509(trust);
+        } catch (final GeneralSecurityException | IOException ex) {
+            throw new IllegalStateException("Cannot create the TLS trust store", ex);
+        }
+    }
+
+    private static X509TrustManager systemTrust() throws GeneralSecurityException {
+        final TrustManagerFactory factory =
+                TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        factory.init((KeyStore) null);
+        return x509(factory);
+    }
+
+    private static X509TrustManager x509(final TrustManagerFactory factory) {
+        for (final TrustManager manager : factory.getTrustManagers()) {
+            if (manager instanceof X509TrustManager) {
+                return (X509TrustManager) manager;
+            }
+        }
+        throw new IllegalStateException("No X.509 trust manager");
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static java.util.stream.Collectors.toList;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import de.ubleipzig.vocabulary.SC;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Triple;
+import org.slf4j.Logger;
+import org.trellisldp.api.ConstraintService;
+import org.trellisldp.api.ConstraintViolation;
+import org.trellisldp.vocabulary.OA;
+import org.trellisldp.vocabulary.Trellis;
+
+/**
+ * TypedConstraints.
+ *
+ * <p>Evaluates property constraints per subject, using the {@code rdf:type}s of the subject. The
+ * triples are grouped by subject in a {@link SubjectIndex}, so the types of each subject are
+ * resolved once. Every type has a table with the structural properties whose domain it is and the
+ * properties it must not have.
+ *
+ * <p>A structural property on a subject none of whose types is in its domain is a domain
+ * violation; there is no Trellis constraint for domains, so it is reported as
+ * {@link Trellis#InvalidProperty}. Subjects without a type that has a table are not checked.
+ * Range constraints are left to {@link ManifestConstraints}.
+ *
+ * @author christopher-johnson
+ */
+public class TypedConstraints implements ConstraintService {
+
+    private static final Logger LOGGER = getLogger(TypedConstraints.class);
+
+    private static final Predicate<Triple> none = triple -> false;
+
+    /**
+     * The constraints of one type.
+     */
+    private static final class TypeTable {
+        private final Set<IRI> properties;
+        private final Predicate<Triple> disallowed;
+
+        private TypeTable(final Set<IRI> properties, final Predicate<Triple> disallowed) {
+            this.properties = properties;
+            this.disallowed = disallowed;
+        }
+    }
+
+    private static final Map<IRI, TypeTable> typeMap = Map.of(
+            SC.Manifest, new TypeTable(Set.of(SC.hasSequences, SC.hasRanges),
+                    triple -> triple.getPredicate().equals(OA.hasPurpose)),
+            SC.Sequence, new TypeTable(Set.of(SC.hasCanvases, SC.hasStartCanvas), none),
+            SC.Canvas, new TypeTable(Set.of(SC.hasImageAnnotations, SC.hasLists), none),
+            SC.Range, new TypeTable(Set.of(SC.hasCanvases, SC.hasRanges, SC.hasStartCanvas,
+                    SC.hasLists, SC.hasContentLayer), none),
+            SC.AnnotationList, new TypeTable(Set.of(SC.hasAnnotations), none),
+            OA.Annotation, new TypeTable(Set.of(OA.motivatedBy, OA.hasBody, OA.hasTarget),
+                    none));
+
+    private static final Set<IRI> structuralProperties = new HashSet<>();
+
+    static {
+        typeMap.values().forEach(t -> structuralProperties.addAll(t.properties));
+    }
+
+    private Stream<ConstraintViolation> checkSubject(final SubjectIndex index,
+                                                     final BlankNodeOrIRI subject) {
+        final List<TypeTable> tables = index.types(subject).stream().map(typeMap::get)
+                .filter(t -> t != null).collect(toList());
+        if (tables.isEmpty()) {
+            return Stream.empty();
+        }
+        return index.triples(subject).stream().filter(triple ->
+                tables.stream().anyMatch(t -> t.disallowed.test(triple)) ||
+                        structuralProperties.contains(triple.getPredicate()) && tables.stream()
+                                .noneMatch(t -> t.properties.contains(triple.getPredicate())))
+                .map(t -> new ConstraintViolation(Trellis.InvalidProperty, t));
+    }
+
+    @Override
+    public Stream<ConstraintViolation> constrainedBy(final IRI model, final String domain,
+                                                     final Graph graph) {
+        final SubjectIndex index = SubjectIndex.of(graph);
+        return index.subjects().stream().flatMap(s -> checkSubject(index, s))
+                .peek(x -> LOGGER.debug("Constraint violation: {}", x));
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static de.ubleipzig.validator.ManifestRules.members;
+import static de.ubleipzig.validator.ManifestRules.objects;
+
+import de.ubleipzig.vocabulary.DCElements;
+import de.ubleipzig.vocabulary.EXIF;
+import de.ubleipzig.vocabulary.SC;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.Literal;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+import org.trellisldp.vocabulary.OA;
+import org.trellisldp.vocabulary.RDF;
+import org.trellisldp.vocabulary.XSD;
+
+/**
+ * TypedLiterals.
+ *
+ * <p>Checks typed literals on their lexical form. The lexical form is scanned character by
+ * character against the grammar of its datatype; the literal value is never computed, so a check
+ * costs no more than reading the string.
+ *
+ * <p>The canvas and body bounds checks of rules {@code r0020} and {@code r0029} and the format
+ * check of rule {@code r0028} follow the sequence, canvas and annotation lists with index lookups
+ * and check each dimension or format once, where the SPARQL queries they replace grouped and
+ * counted every solution.
+ *
+ * @author christopher-johnson
+ */
+final class TypedLiterals {
+
+    private static final String INTEGER = XSD.integer.getIRIString();
+
+    private static final String NON_NEGATIVE_INTEGER = XSD.nonNegativeInteger.getIRIString();
+
+    // RFC 2045 tspecials
+    private static final String SEPARATORS = "()<>@,;:\\\"/[]?=";
+
+    private TypedLiterals() {
+        // prevent instantiation
+    }
+
+    /**
+     * Check the lexical form of a literal against its datatype. Literals of datatypes without a
+     * lexical check are valid.
+     *
+     * @param literal the literal
+     * @return true if the lexical form is in the lexical space of the datatype
+     */
+    static boolean isValid(final Literal literal) {
+        final String datatype = literal.getDatatype().getIRIString();
+        if (INTEGER.equals(datatype)) {
+            return isInteger(literal.getLexicalForm());
+        } else if (NON_NEGATIVE_INTEGER.equals(datatype)) {
+            return isNonNegativeInteger(literal.getLexicalForm());
+        }
+        return true;
+    }
+
+    /**
+     * Check an {@code xsd:integer} lexical form: an optional sign followed by decimal digits.
+     *
+     * @param lexical the lexical form
+     * @return true if the lexical form is valid
+     */
+    static boolean isInteger(final String lexical) {
+        final int start = !lexical.isEmpty() && (lexical.charAt(0) == '+' ||
+                lexical.charAt(0) == '-') ? 1 : 0;
+        return digits(lexical, start);
+    }
+
+    /**
+     * Check an {@code xsd:nonNegativeInteger} lexical form. A minus sign is only allowed for zero.
+     *
+     * @param lexical the lexical form
+     * @return true if the lexical form is valid
+     */
+    static boolean isNonNegativeInteger(final String lexical) {
+        if (!isInteger(lexical)) {
+            return false;
+        }
+        if (lexical.charAt(0) != '-') {
+            return true;
+        }
+        for (int i = 1; i < lexical.length(); i++) {
+            if (lexical.charAt(i) != '0') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check a MIME type: a type and a subtype token, optionally followed by parameters. Quoted
+     * parameter values may not contain a semicolon.
+     *
+     * @param value the value
+     * @return true if the value is a MIME type
+     */
+    static boolean isMimeType(final String value) {
+        final String[] parts = value.split(";", -1);
+        final int slash = parts[0].indexOf('/');
+        if (slash < 0 || !isToken(parts[0], 0, slash) ||
+                !isToken(parts[0], slash + 1, parts[0].length())) {
+            return false;
+        }
+        for (int i = 1; i < parts.length; i++) {
+            final int equals = parts[i].indexOf('=');
+            if (equals < 0) {
+                return false;
+            }
+            final String attribute = parts[i].substring(0, equals).trim();
+            final String parameter = parts[i].substring(equals + 1).trim();
+            if (!isToken(attribute, 0, attribute.length()) ||
+                    !isToken(parameter, 0, parameter.length()) && !isQuoted(parameter)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check a canvas or body dimension: a non-negative {@code xsd:integer} or
+     * {@code xsd:nonNegativeInteger} literal.
+     *
+     * @param term the dimension
+     * @return true if the dimension is valid
+     */
+    static boolean isBound(final RDFTerm term) {
+        if (!(term instanceof Literal)) {
+            return false;
+        }
+        final Literal literal = (Literal) term;
+        final String datatype = literal.getDatatype().getIRIString();
+        return (INTEGER.equals(datatype) || NON_NEGATIVE_INTEGER.equals(datatype)) &&
+                isNonNegativeInteger(literal.getLexicalForm());
+    }
+
+    /**
+     * Check the bounds of the resources that have both a height and a width.
+     *
+     * @param graph the graph
+     * @param resources the canvases or bodies
+     * @return true if at least one resource has bounds and all bounds are valid
+     */
+    static boolean hasIntegerBounds(final Graph graph,
+                                    final Collection<BlankNodeOrIRI> resources) {
+        boolean bounded = false;
+        for (final BlankNodeOrIRI resource : resources) {
+            final List<RDFTerm> heights = objects(graph, resource, EXIF.height);
+            final List<RDFTerm> widths = objects(graph, resource, EXIF.width);
+            if (!heights.isEmpty() && !widths.isEmpty()) {
+                bounded = true;
+                if (!heights.stream().allMatch(TypedLiterals::isBound) ||
+                        !widths.stream().allMatch(TypedLiterals::isBound)) {
+                    return false;
+                }
+            }
+        }
+        return bounded;
+    }
+
+    /**
+     * Check the formats of the bodies.
+     *
+     * @param graph the graph
+     * @param bodies the bodies
+     * @return true if at least one body has a format and all formats are MIME types
+     */
+    static boolean hasFormats(final Graph graph, final Collection<BlankNodeOrIRI> bodies) {
+        boolean formatted = false;
+        for (final BlankNodeOrIRI body : bodies) {
+            for (final RDFTerm format : objects(graph, body, DCElements.format)) {
+                formatted = true;
+                if (!(format instanceof Literal) || !isMimeType(((Literal) format)
+                        .getLexicalForm())) {
+                    return false;
+                }
+            }
+        }
+        return formatted;
+    }
+
+    private static boolean digits(final String lexical, final int start) {
+        if (start >= lexical.length()) {
+            return false;
+        }
+        for (int i = start; i < lexical.length(); i++) {
+            final char c = lexical.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isToken(final String value, final int start, final int end) {
+        if (start >= end) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            final char c = value.charAt(i);
+            if (c <= ' ' || c > '~' || SEPARATORS.indexOf(c) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isQuoted(final String value) {
+        return value.length() >= 2 && value.charAt(0) == '"' &&
+                value.charAt(value.length() - 1) == '"';
+    }
+
+    /**
+     * Get the canvases of all sequences that have image annotations.
+     *
+     * @param graph the graph
+     * @return the canvases
+     */
+    static List<BlankNodeOrIRI> canvases(final Graph graph) {
+        final List<BlankNodeOrIRI> canvases = new ArrayList<>();
+        try (Stream<? extends Triple> stream = graph.stream(null, SC.hasCanvases, null)) {
+            stream.map(Triple::getObject).forEach(list -> members(graph, list).stream()
+                    .filter(c -> c instanceof BlankNodeOrIRI)
+                    .map(c -> (BlankNodeOrIRI) c)
+                    .filter(c -> ManifestRules.exists(graph, c, SC.hasImageAnnotations, null))
+                    .forEach(canvases::add));
+        }
+        return canvases;
+    }
+
+    /**
+     * Get the bodies of the first image annotation of each canvas.
+     *
+     * @param graph the graph
+     * @param canvases the canvases
+     * @return the bodies
+     */
+    static List<BlankNodeOrIRI> bodies(final Graph graph,
+                                       final Collection<BlankNodeOrIRI> canvases) {
+        final List<BlankNodeOrIRI> bodies = new ArrayList<>();
+        for (final BlankNodeOrIRI canvas : canvases) {
+            for (final RDFTerm list : objects(graph, canvas, SC.hasImageAnnotations)) {
+                if (list instanceof BlankNodeOrIRI) {
+                    objects(graph, (BlankNodeOrIRI) list, RDF.first).stream()
+                            .filter(a -> a instanceof BlankNodeOrIRI)
+                            .flatMap(a -> objects(graph, (BlankNodeOrIRI) a, OA.hasBody).stream())
+                            .filter(b -> b instanceof BlankNodeOrIRI)
+                            .forEach(b -> bodies.add((BlankNodeOrIRI) b));
+                }
+            }
+        }
+        return bodies;
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.Optional.ofNullable;
+
+import java.util.Optional;
+
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.jena.JenaRDF;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+
+/**
+ * ValidationTarget.
+ *
+ * <p>A deserialized manifest graph together with the resource it was requested from.
+ *
+ * @author christopher-johnson
+ */
+public class ValidationTarget {
+
+    private static final JenaRDF rdf = new JenaRDF();
+
+    private final String resource;
+
+    private final Graph graph;
+
+    private final ViolationSummary violations;
+
+    private Model model;
+
+    /**
+     * Create a validation target.
+     *
+     * @param resource the requested resource IRI, may be null for local documents
+     * @param graph the graph
+     */
+    public ValidationTarget(final String resource, final Graph graph) {
+        this(resource, graph, null);
+    }
+
+    /**
+     * Create a validation target for a projected graph.
+     *
+     * @param resource the requested resource IRI, may be null for local documents
+     * @param graph the projected graph
+     * @param violations the violations found in the complete graph while it was loaded
+     */
+    ValidationTarget(final String resource, final Graph graph,
+                     final ViolationSummary violations) {
+        requireNonNull(graph, "The graph may not be null!");
+        this.resource = resource;
+        this.graph = graph;
+        this.violations = violations;
+    }
+
+    public Optional<String> getResource() {
+        return ofNullable(resource);
+    }
+
+    public Graph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Get the {@link ManifestConstraints} violations recorded while the graph was loaded. They
+     * are only recorded if the graph is a {@link Projection}, which no longer holds every triple.
+     *
+     * @return the summary of the violations, if recorded
+     */
+    public Optional<ViolationSummary> getViolations() {
+        return ofNullable(violations);
+    }
+
+    /**
+     * Freeze the graph into an immutable snapshot that can be read by several threads at once.
+     * The snapshot shares the resource and any recorded violations with this target.
+     *
+     * @return a target backed by an immutable graph, this target if it already is
+     */
+    public ValidationTarget snapshot() {
+        final org.apache.jena.graph.Graph jenaGraph = rdf.asJenaGraph(graph);
+        if (jenaGraph instanceof BulkGraph) {
+            return this;
+        }
+        return new ValidationTarget(resource, rdf.asGraph(BulkGraph.copyOf(jenaGraph)),
+                violations);
+    }
+
+    /**
+     * Get a Jena model view of the graph for SPARQL evaluation.
+     *
+     * @return the model
+     */
+    public synchronized Model getModel() {
+        if (model == null) {
+            model = ModelFactory.createModelForGraph(rdf.asJenaGraph(graph));
+        }
+        return model;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static java.util.Optional.ofNullable;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Verdict.
+ *
+ * <p>The pass/fail outcome of a gate check. The complete rule results are only computed when
+ * {@link #getFullResults()} is called.
+ *
+ * @author christopher-johnson
+ */
+public class Verdict {
+
+    private final RuleResult failure;
+
+    private final Supplier<CompletableFuture<List<RuleResult>>> fullResults;
+
+    private CompletableFuture<List<RuleResult>> results;
+
+    Verdict(final RuleResult failure,
+            final Supplier<CompletableFuture<List<RuleResult>>> fullResults) {
+        this.failure = failure;
+        this.fullResults = fullResults;
+    }
+
+    /**
+     * Whether all gating rules passed.
+     *
+     * @return true if no must rule failed
+     */
+    public boolean isPassed() {
+        return failure == null;
+    }
+
+    /**
+     * Get the first failing must rule.
+     *
+     * @return the failure, if any
+     */
+    public Optional<RuleResult> getFailure() {
+        return ofNullable(failure);
+    }
+
+    /**
+     * Get the results of all rules. The evaluation is started in the background on the first
+     * call; results already known from the gate check are reused.
+     *
+     * @return the results of all rules, in evaluation order
+     */
+    public synchronized CompletableFuture<List<RuleResult>> getFullResults() {
+        if (results == null) {
+            results = fullResults.get();
+        }
+        return results;
+    }
+
+    @Override
+    public String toString() {
+        return isPassed() ? "passed" : "failed: " + failure;
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Comparator.comparingLong;
+import static java.util.stream.Collectors.toList;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.stream.Collector;
+
+import org.apache.commons.rdf.api.BlankNode;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Literal;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+import org.slf4j.Logger;
+import org.trellisldp.api.ConstraintViolation;
+
+/**
+ * ViolationSummary.
+ *
+ * <p>Aggregates constraint violations by constraint, predicate and object kind. Each group keeps
+ * the exact number of triples reported and a uniform reservoir sample of at most
+ * {@code sampleSize} of them, so a defect repeated on every canvas of a large manifest is held
+ * and logged as one group rather than as one violation per triple.
+ *
+ * @author christopher-johnson
+ */
+public class ViolationSummary implements Consumer<ConstraintViolation> {
+
+    /**
+     * The kind of term in the object position of a violating triple.
+     */
+    public enum ObjectKind {
+        IRI, BLANK_NODE, LITERAL;
+
+        static ObjectKind of(final RDFTerm term) {
+            if (term instanceof Literal) {
+                return LITERAL;
+            }
+            return term instanceof BlankNode ? BLANK_NODE : IRI;
+        }
+    }
+
+    private final int sampleSize;
+
+    private final Random random;
+
+    private final Map<Key, Group> groups = new LinkedHashMap<>();
+
+    /**
+     * Create a violation summary.
+     *
+     * @param sampleSize the maximum number of example triples kept per group
+     */
+    public ViolationSummary(final int sampleSize) {
+        this(sampleSize, new Random());
+    }
+
+    ViolationSummary(final int sampleSize, final Random random) {
+        if (sampleSize < 0) {
+            throw new IllegalArgumentException("The sample size may not be negative!");
+        }
+        this.sampleSize = sampleSize;
+        this.random = random;
+    }
+
+    /**
+     * A collector that summarizes a stream of violations.
+     *
+     * @param sampleSize the maximum number of example triples kept per group
+     * @return the collector
+     */
+    public static Collector<ConstraintViolation, ?, ViolationSummary> summarizing(
+            final int sampleSize) {
+        return Collector.of(() -> new ViolationSummary(sampleSize), ViolationSummary::accept,
+                ViolationSummary::merge);
+    }
+
+    /**
+     * Add a violation. Each of its triples is counted in the group of its predicate and object
+     * kind.
+     *
+     * @param violation the violation
+     */
+    @Override
+    public synchronized void accept(final ConstraintViolation violation) {
+        for (final Triple triple : violation.getTriples()) {
+            groups.computeIfAbsent(new Key(violation.getConstraint(), triple),
+                    k -> new Group(k)).add(triple);
+        }
+    }
+
+    /**
+     * Merge another summary into this one. Samples are drawn from both in proportion to the
+     * number of triples each has seen.
+     *
+     * @param other the other summary
+     * @return this summary
+     */
+    public synchronized ViolationSummary merge(final ViolationSummary other) {
+        other.getGroups().forEach(theirs -> {
+            final Group ours = groups.get(theirs.key);
+            if (ours == null) {
+                final Group copy = new Group(theirs.key);
+                copy.count = theirs.count;
+                copy.samples.addAll(theirs.samples);
+                groups.put(theirs.key, copy);
+            } else {
+                ours.merge(theirs);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Get the groups, in the order they were first seen.
+     *
+     * @return the groups
+     */
+    public synchronized List<Group> getGroups() {
+        return unmodifiableList(new ArrayList<>(groups.values()));
+    }
+
+    /**
+     * Get the total number of triples reported.
+     *
+     * @return the count
+     */
+    public synchronized long getCount() {
+        return groups.values().stream().mapToLong(Group::getCount).sum();
+    }
+
+    public synchronized boolean isEmpty() {
+        return groups.isEmpty();
+    }
+
+    /**
+     * Log one line per group, largest first.
+     *
+     * @param logger the logger
+     */
+    public void log(final Logger logger) {
+        getGroups().stream().sorted(comparingLong(Group::getCount).reversed())
+                .forEach(g -> logger.info("Constraint violation: {}", g));
+    }
+
+    @Override
+    public String toString() {
+        return getGroups().stream().map(Group::toString).collect(toList()).toString();
+    }
+
+    private static final class Key {
+
+        private final IRI constraint;
+
+        private final RDFTerm predicate;
+
+        private final ObjectKind objectKind;
+
+        private Key(final IRI constraint, final Triple triple) {
+            this.constraint = constraint;
+            this.predicate = triple.getPredicate();
+            this.objectKind = ObjectKind.of(triple.getObject());
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return constraint.equals(other.constraint) && predicate.equals(other.predicate) &&
+                    objectKind == other.objectKind;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(constraint, predicate, objectKind);
+        }
+    }
+
+    /**
+     * The violations of one constraint on one predicate with one kind of object.
+     */
+    public final class Group {
+
+        private final Key key;
+
+        private final List<Triple> samples = new ArrayList<>();
+
+        private long count;
+
+        private Group(final Key key) {
+            this.key = key;
+        }
+
+        // Algorithm R: the n-th triple replaces a random sample with probability size / n
+        private void add(final Triple triple) {
+            count++;
+            if (samples.size() < sampleSize) {
+                samples.add(triple);
+            } else if (sampleSize > 0) {
+                final long index = (long) (random.nextDouble() * count);
+                if (index < sampleSize) {
+                    samples.set((int) index, triple);
+                }
+            }
+        }
+
+        // Draws without replacement from the union of both groups: each draw comes from a side
+        // with probability proportional to the triples it has left
+        private void merge(final Group other) {
+            final List<Triple> ours = new ArrayList<>(samples);
+            final List<Triple> theirs = new ArrayList<>(other.samples);
+            long ourWeight = count;
+            long theirWeight = other.count;
+            samples.clear();
+            while (samples.size() < sampleSize && ourWeight + theirWeight > 0) {
+                final boolean pickOurs = random.nextDouble() * (ourWeight + theirWeight) <
+                        ourWeight;
+                final List<Triple> source = pickOurs ? ours : theirs;
+                samples.add(source.remove(random.nextInt(source.size())));
+                if (pickOurs) {
+                    ourWeight--;
+                } else {
+                    theirWeight--;
+                }
+            }
+            count += other.count;
+        }
+
+        public IRI getConstraint() {
+            return key.constraint;
+        }
+
+        public RDFTerm getPredicate() {
+            return key.predicate;
+        }
+
+        public ObjectKind getObjectKind() {
+            return key.objectKind;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Get the sampled triples.
+         *
+         * @return at most {@code sampleSize} triples of this group
+         */
+        public List<Triple> getSamples() {
+            synchronized (ViolationSummary.this) {
+                return unmodifiableList(new ArrayList<>(samples));
+            }
+        }
+
+        @Override
+        public String toString() {
+            return key.constraint.ntriplesString() + " " + key.predicate.ntriplesString() + " " +
+                    key.objectKind + " x" + count + " e.g. " + getSamples();
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static org.apache.jena.riot.WebContent.contentTypeJSONLD;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.rdf.api.Graph;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.trellisldp.api.RuntimeRepositoryException;
+
+/**
+ * AsyncClientTest.
+ *
+ * @author christopher-johnson
+ */
+public class AsyncClientTest {
+
+    private static final String TEST_DIR = "/iiif/p2/testcases";
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    private HttpServer server;
+
+    private String base;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/manifest", exchange -> {
+            final byte[] body;
+            try (InputStream is = getClass().getResourceAsStream(TEST_DIR + "/0029-in.jsonld")) {
+                body = is.readAllBytes();
+            }
+            exchange.getResponseHeaders().add("Content-Type", contentTypeJSONLD);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        server.createContext("/gzip", exchange -> {
+            final String accepted = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            final ByteArrayOutputStream body = new ByteArrayOutputStream();
+            try (InputStream is = getClass().getResourceAsStream(TEST_DIR + "/0029-in.jsonld");
+                 OutputStream gzip = new GZIPOutputStream(body)) {
+                is.transferTo(gzip);
+            }
+            exchange.getResponseHeaders().add("Content-Type", contentTypeJSONLD);
+            if (accepted != null && accepted.contains("gzip")) {
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            }
+            exchange.sendResponseHeaders(200, body.size());
+            try (OutputStream os = exchange.getResponseBody()) {
+                body.writeTo(os);
+            }
+        });
+        server.createContext("/brotli", exchange -> {
+            exchange.getResponseHeaders().add("Content-Encoding", "br");
+            exchange.sendResponseHeaders(200, 4);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(new byte[4]);
+            }
+        });
+        server.createContext("/missing", exchange -> {
+            exchange.getResponseHeaders().add("Content-Encoding", "br");
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.createContext("/slow", exchange -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(50);
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            inFlight.decrementAndGet();
+            exchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+        base = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("StreamsManifestIntoGraph")
+    void testGetGraph() {
+        final Graph graph = new AsyncClient(4).getGraph(base + "/manifest").join();
+        assertTrue(graph.size() > 0);
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("DecodesCompressedManifest")
+    void testGzip() {
+        final Graph plain = new AsyncClient(4).getGraph(base + "/manifest").join();
+        final Graph decoded = new AsyncClient(4).getGraph(base + "/gzip").join();
+        assertEquals(plain.size(), decoded.size());
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("LimitsDecodedSize")
+    void testMaxDocumentSize() {
+        final AsyncClient client = new AsyncClient(4, Executors.newCachedThreadPool(), null, 256);
+        final CompletionException ex = assertThrows(CompletionException.class,
+                () -> client.getGraph(base + "/gzip").join());
+        assertTrue(ex.getCause() instanceof UncheckedIOException, ex::toString);
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("UndecodableResponsesReleaseTheirConnections")
+    void testUndecodableResponses() throws IOException {
+        // more failures than pooled connections per route
+        for (int i = 0; i < 12; i++) {
+            assertThrows(IOException.class, () -> ApacheClient.getApacheClientResponse(
+                    base + "/brotli", contentTypeJSONLD));
+        }
+        try (InputStream is = ApacheClient.getApacheClientResponse(base + "/manifest",
+                contentTypeJSONLD)) {
+            assertTrue(is.readAllBytes().length > 0);
+        }
+        final AsyncClient client = new AsyncClient(4);
+        final CompletionException ex = assertThrows(CompletionException.class,
+                () -> client.open(base + "/brotli").join());
+        assertTrue(ex.getCause() instanceof UncheckedIOException, ex::toString);
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("ReportsStatusBeforeDecoding")
+    void testStatusBeforeDecoding() {
+        final CompletionException ex = assertThrows(CompletionException.class,
+                () -> new AsyncClient(4).getGraph(base + "/missing").join());
+        assertTrue(ex.getCause() instanceof RuntimeRepositoryException, ex::toString);
+        assertTrue(ex.getCause().getMessage().endsWith("returned 404"), ex::toString);
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("HeadAndOptionsReturnHeaders")
+    void testHeadAndOptions() {
+        final AsyncClient client = new AsyncClient(4);
+        final HttpResponse<Void> head = client.head(base + "/slow", contentTypeJSONLD).join();
+        final HttpResponse<Void> options =
+                client.options(base + "/slow", contentTypeJSONLD).join();
+        assertEquals(200, head.statusCode());
+        assertTrue(options.headers().firstValue("Access-Control-Allow-Origin").isPresent());
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("BoundsRequestsInFlight")
+    void testBoundedInFlight() {
+        final AsyncClient client = new AsyncClient(2);
+        final List<CompletableFuture<HttpResponse<Void>>> responses = IntStream.range(0, 10)
+                .mapToObj(i -> client.head(base + "/slow", contentTypeJSONLD))
+                .collect(Collectors.toList());
+        assertTrue(client.getQueued() > 0);
+        responses.forEach(r -> assertEquals(200, r.join().statusCode()));
+        assertTrue(maxInFlight.get() <= 2);
+        assertEquals(0, client.getQueued());
+    }
+}
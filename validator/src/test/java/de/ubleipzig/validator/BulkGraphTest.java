@@ -0,0 +1,106 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static de.ubleipzig.validator.IO.expandDocumentToN3fromFile;
+import static org.apache.jena.graph.Node.ANY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.github.jsonldjava.core.JsonLdError;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.shared.AddDeniedException;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * BulkGraphTest.
+ *
+ * @author christopher-johnson
+ */
+public class BulkGraphTest {
+
+    private static final String TEST_DIR = "/iiif/p2/testcases";
+
+    private List<Triple> triples(final String resource) throws IOException, JsonLdError {
+        return ParallelParser.parse(expandDocumentToN3fromFile(
+                getClass().getResourceAsStream(TEST_DIR + "/" + resource)).readAllBytes());
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("LookupsMatchDefaultGraph")
+    void testLookups() throws IOException, JsonLdError {
+        final List<Triple> triples = triples("0008-in.jsonld");
+        final Graph expected = GraphFactory.createDefaultGraph();
+        triples.forEach(expected::add);
+        final Graph graph = BulkGraph.of(triples);
+        assertEquals(expected.size(), graph.size());
+        // every combination of bound and unbound terms of every triple
+        for (final Triple t : triples) {
+            for (int mask = 0; mask < 8; mask++) {
+                final Node s = (mask & 1) != 0 ? t.getSubject() : ANY;
+                final Node p = (mask & 2) != 0 ? t.getPredicate() : ANY;
+                final Node o = (mask & 4) != 0 ? t.getObject() : ANY;
+                assertEquals(new HashSet<>(expected.find(s, p, o).toList()),
+                        new HashSet<>(graph.find(s, p, o).toList()));
+            }
+        }
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("DuplicatesAreRemoved")
+    void testDuplicates() throws IOException, JsonLdError {
+        final List<Triple> triples = new ArrayList<>(triples("0029-in.jsonld"));
+        final int size = triples.size();
+        triples.addAll(triples);
+        assertEquals(size, BulkGraph.of(triples).size());
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("GraphIsImmutable")
+    void testImmutable() throws IOException, JsonLdError {
+        final Graph graph = BulkGraph.of(triples("0029-in.jsonld"));
+        assertThrows(AddDeniedException.class, () -> graph.add(graph.find().next()));
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("SnapshotCopiesMutableGraph")
+    void testCopyOf() throws IOException, JsonLdError {
+        final Graph source = GraphFactory.createDefaultGraph();
+        triples("0029-in.jsonld").forEach(source::add);
+        final Graph snapshot = BulkGraph.copyOf(source);
+        assertEquals(new HashSet<>(source.find().toList()),
+                new HashSet<>(snapshot.find().toList()));
+        source.clear();
+        assertNotEquals(0, snapshot.size());
+        assertSame(snapshot, BulkGraph.copyOf(snapshot));
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static de.ubleipzig.validator.IO.expandDocumentToN3fromFile;
+import static de.ubleipzig.validator.IO.getGraph;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.github.jsonldjava.core.JsonLdError;
+
+import de.ubleipzig.vocabulary.EXIF;
+import de.ubleipzig.vocabulary.SC;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.Graph;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.trellisldp.api.ConstraintService;
+import org.trellisldp.api.ConstraintViolation;
+import org.trellisldp.vocabulary.Trellis;
+
+/**
+ * CompositeConstraintsTest.
+ *
+ * @author christopher-johnson
+ */
+public class CompositeConstraintsTest {
+
+    private static final String TEST_DIR = "/iiif/p2/testcases";
+
+    // A second per-triple rule pack
+    private final TripleConstraintService widths = (model, domain) -> triple ->
+            triple.getPredicate().equals(EXIF.width) ?
+                    Stream.of(new ConstraintViolation(Trellis.InvalidCardinality, triple)) :
+                    Stream.empty();
+
+    private final AtomicInteger scans = new AtomicInteger();
+
+    // Counts the full scans of a graph
+    private Graph counting(final Graph graph) {
+        return (Graph) Proxy.newProxyInstance(Graph.class.getClassLoader(),
+                new Class<?>[]{Graph.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("stream") && args == null) {
+                        scans.incrementAndGet();
+                    }
+                    return method.invoke(graph, args);
+                });
+    }
+
+    private Graph graph(final String resource) throws IOException, JsonLdError {
+        return getGraph(expandDocumentToN3fromFile(
+                getClass().getResourceAsStream(TEST_DIR + "/" + resource)));
+    }
+
+    private static List<String> violations(final Stream<ConstraintViolation> violations) {
+        return violations.map(v -> v.getConstraint() + " " + v.getTriples()).sorted()
+                .collect(toList());
+    }
+
+    @Test
+    @Tag("constraint")
+    @DisplayName("FusedServicesScanOnce")
+    void testSingleScan() throws IOException, JsonLdError {
+        final Graph graph = counting(graph("0032-in.jsonld"));
+        final ConstraintService composite =
+                new CompositeConstraints(List.of(new ManifestConstraints(), widths));
+        violations(composite.constrainedBy(SC.Manifest, null, graph));
+        assertEquals(1, scans.get());
+    }
+
+    @Test
+    @Tag("constraint")
+    @DisplayName("CompositeReportsAllViolations")
+    void testSameViolations() throws IOException, JsonLdError {
+        final Graph graph = graph("0032-in.jsonld");
+        final List<ConstraintService> services =
+                List.of(new ManifestConstraints(), widths, new TypedConstraints());
+        final List<String> expected = violations(services.stream()
+                .flatMap(s -> s.constrainedBy(SC.Manifest, null, graph)));
+        assertEquals(expected, violations(new CompositeConstraints(services)
+                .constrainedBy(SC.Manifest, null, graph)));
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * ContentDecodingTest.
+ *
+ * @author christopher-johnson
+ */
+public class ContentDecodingTest {
+
+    private static final byte[] DOCUMENT = "{\"@type\": \"sc:Manifest\"}".repeat(100)
+            .getBytes(UTF_8);
+
+    private static byte[] gzip(final byte[] bytes) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] deflate(final byte[] bytes, final boolean raw) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflate = new DeflaterOutputStream(out,
+                new Deflater(Deflater.DEFAULT_COMPRESSION, raw))) {
+            deflate.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] decode(final byte[] body, final String encoding, final long maxSize)
+            throws IOException {
+        try (InputStream decoded = ContentDecoding.decode(new ByteArrayInputStream(body),
+                encoding, maxSize)) {
+            return decoded.readAllBytes();
+        }
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("DecodesContentCodings")
+    void testCodings() throws IOException {
+        assertArrayEquals(DOCUMENT, decode(DOCUMENT, null, Long.MAX_VALUE));
+        assertArrayEquals(DOCUMENT, decode(gzip(DOCUMENT), "gzip", Long.MAX_VALUE));
+        assertArrayEquals(DOCUMENT, decode(deflate(DOCUMENT, false), "deflate", Long.MAX_VALUE));
+        assertArrayEquals(DOCUMENT, decode(deflate(DOCUMENT, true), "Deflate", Long.MAX_VALUE));
+        assertArrayEquals(DOCUMENT, decode(gzip(deflate(DOCUMENT, false)), "deflate, gzip",
+                Long.MAX_VALUE));
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("RejectsUnsupportedAndOversizedBodies")
+    void testRejected() {
+        assertThrows(IOException.class, () -> decode(DOCUMENT, "br", Long.MAX_VALUE));
+        assertThrows(IOException.class, () -> decode(gzip(DOCUMENT), "gzip",
+                DOCUMENT.length - 1));
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("ClosesBodiesThatCannotBeDecoded")
+    void testClosedOnFailure() throws IOException {
+        final AtomicInteger closed = new AtomicInteger();
+        final byte[] corrupt = gzip(DOCUMENT);
+        corrupt[0] = 0;
+        for (final byte[] body : List.of(DOCUMENT, corrupt)) {
+            final InputStream in = new FilterInputStream(new ByteArrayInputStream(body)) {
+                @Override
+                public void close() throws IOException {
+                    closed.incrementAndGet();
+                    super.close();
+                }
+            };
+            assertThrows(IOException.class, () -> ContentDecoding.decode(in,
+                    body == DOCUMENT ? "gzip, br" : "gzip", Long.MAX_VALUE));
+        }
+        assertEquals(2, closed.get());
+    }
+}
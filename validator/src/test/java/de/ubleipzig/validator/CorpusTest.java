@@ -0,0 +1,227 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.jsonldjava.utils.JsonUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * CorpusTest.
+ *
+ * @author christopher-johnson
+ */
+public class CorpusTest {
+
+    private static final String TEST_DIR = "/iiif/p2/testcases";
+
+    private static final int FIXTURES = 12;
+
+    private Path root;
+
+    private List<byte[]> documents;
+
+    @BeforeEach
+    void createCorpus() throws IOException {
+        root = TempDirectory.create("corpus");
+        documents = new ArrayList<>();
+        for (int i = 1; i <= FIXTURES; i++) {
+            try (InputStream is = getClass().getResourceAsStream(
+                    TEST_DIR + String.format("/%04d-in.jsonld", i))) {
+                // one line per document, as in a dump
+                documents.add(JsonUtils.toString(JsonUtils.fromInputStream(is)).getBytes(UTF_8));
+            }
+        }
+        final ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        for (final byte[] document : documents) {
+            ndjson.write(document);
+            ndjson.write("\n\r\n".getBytes(UTF_8));
+        }
+        Files.write(root.resolve("dump.ndjson"), ndjson.toByteArray());
+        final ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        for (int i = 0; i < documents.size(); i++) {
+            tarEntry(tar, String.format("manifests/%04d.json", i), documents.get(i));
+            tarEntry(tar, String.format("manifests/%04d.txt", i), new byte[3]);
+        }
+        tar.write(new byte[1024]);
+        Files.write(root.resolve("export.tar"), tar.toByteArray());
+        Files.createDirectory(root.resolve("single"));
+        Files.write(root.resolve("single").resolve("a.jsonld"), documents.get(0));
+    }
+
+    @AfterEach
+    void deleteCorpus() throws IOException {
+        TempDirectory.delete(root);
+    }
+
+    private static void tarEntry(final ByteArrayOutputStream tar, final String name,
+                                 final byte[] content) {
+        final byte[] header = new byte[512];
+        put(header, 0, name);
+        put(header, 100, "0000644");
+        put(header, 124, String.format("%011o", content.length));
+        header[156] = '0';
+        put(header, 257, "ustar");
+        Arrays.fill(header, 148, 156, (byte) ' ');
+        put(header, 148, String.format("%06o", IntStream.range(0, 512).map(i -> header[i] & 0xff)
+                .sum()));
+        tar.write(header, 0, header.length);
+        tar.write(content, 0, content.length);
+        tar.write(new byte[(512 - content.length % 512) % 512], 0,
+                (512 - content.length % 512) % 512);
+    }
+
+    private static void put(final byte[] header, final int offset, final String value) {
+        final byte[] bytes = value.getBytes(UTF_8);
+        System.arraycopy(bytes, 0, header, offset, bytes.length);
+    }
+
+    private static byte[] bytes(final Corpus.Record record) {
+        final ByteBuffer content = record.getContent();
+        final byte[] bytes = new byte[content.remaining()];
+        content.get(bytes);
+        return bytes;
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("SplitsNdjsonTarAndDirectories")
+    void testRecords() {
+        // windows smaller than a record force remapping within records
+        for (final int window : List.of(256, 4096, 1 << 20)) {
+            final List<Corpus.Record> records;
+            try (Stream<Corpus.Record> stream = Corpus.of(root, window).records()) {
+                records = stream.collect(toList());
+            }
+            assertEquals(2 * FIXTURES + 1, records.size());
+            for (int i = 0; i < FIXTURES; i++) {
+                final Corpus.Record line = records.get(i);
+                final Corpus.Record entry = records.get(FIXTURES + i);
+                assertTrue(line.getName().endsWith("dump.ndjson:" + (2 * i + 1)), line::getName);
+                assertTrue(entry.getName().endsWith(String.format("!manifests/%04d.json", i)),
+                        entry::getName);
+                assertArrayEquals(documents.get(i), bytes(line));
+                assertArrayEquals(documents.get(i), bytes(entry));
+            }
+            assertArrayEquals(documents.get(0), bytes(records.get(2 * FIXTURES)));
+        }
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("BoundsRecordsInFlight")
+    void testProcess() {
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        final Map<String, Integer> sizes = new ConcurrentHashMap<>();
+        final long count = Corpus.of(root.resolve("dump.ndjson"), 256).process(record -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            inFlight.decrementAndGet();
+            return record.getSize();
+        }, (record, size) -> sizes.put(record.getName(), size), executor, 3);
+        executor.shutdown();
+        assertEquals(FIXTURES, count);
+        assertEquals(FIXTURES, sizes.size());
+        assertTrue(maxInFlight.get() <= 3, () -> maxInFlight.get() + " records in flight");
+        assertThrows(CompletionException.class, () -> Corpus.of(root).process(record -> {
+            throw new IllegalStateException("failed");
+        }, (record, x) -> { }, Runnable::run, 2));
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("ReadsDirectoriesOneRecordAtATime")
+    void testReadAhead() throws IOException {
+        final Path directory = Files.createDirectory(root.resolve("lazy"));
+        Files.copy(root.resolve("dump.ndjson"), directory.resolve("a.ndjson"));
+        final ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        for (int i = 0; i < 3; i++) {
+            tarEntry(tar, String.format("manifests/%04d.json", i), documents.get(i));
+        }
+        // a header that cannot be read stops the reader where it is reached
+        final byte[] corrupt = new byte[512];
+        Arrays.fill(corrupt, (byte) 'z');
+        tar.write(corrupt, 0, corrupt.length);
+        Files.write(directory.resolve("b.tar"), tar.toByteArray());
+        final List<String> processed = new ArrayList<>();
+        final Corpus corpus = Corpus.of(directory, 256);
+        assertThrows(UncheckedIOException.class, () -> corpus.process(Corpus.Record::getName,
+                (record, name) -> processed.add(name), Runnable::run, 1));
+        // no record was read ahead: all records before the corrupt header were processed
+        assertEquals(FIXTURES + 3, processed.size());
+        assertTrue(processed.get(FIXTURES + 2).endsWith("!manifests/0002.json"));
+        try (Stream<Corpus.Record> records = corpus.records()) {
+            final Iterator<Corpus.Record> iterator = records.iterator();
+            for (int i = 0; i < FIXTURES + 3; i++) {
+                assertTrue(iterator.hasNext());
+                iterator.next();
+            }
+            assertThrows(UncheckedIOException.class, iterator::hasNext);
+        }
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("ValidatesRecords")
+    void testValidate() throws IOException {
+        Files.write(root.resolve("broken.jsonld"), "{\"@id\": ".getBytes(UTF_8));
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        final Map<String, List<RuleResult>> results = new ConcurrentHashMap<>();
+        final long count = Corpus.of(root).validate(ManifestRules.structural(), executor, 4,
+                (record, r) -> results.put(record.getName(), r));
+        executor.shutdown();
+        assertEquals(2 * FIXTURES + 2, count);
+        assertEquals(2 * FIXTURES + 1, results.size());
+        assertTrue(results.values().stream()
+                .allMatch(r -> r.size() == ManifestRules.structural().size()));
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * CrawlJournalTest.
+ *
+ * @author christopher-johnson
+ */
+public class CrawlJournalTest {
+
+    private Path directory;
+
+    @BeforeEach
+    void createDirectory() throws IOException {
+        directory = TempDirectory.create("journal");
+    }
+
+    @AfterEach
+    void deleteDirectory() throws IOException {
+        TempDirectory.delete(directory);
+    }
+
+    private long lines() throws IOException {
+        return Files.readAllLines(directory.resolve("crawl.journal")).size();
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("ResumesFromTheJournal")
+    void testResume() throws IOException {
+        final Map<String, Boolean> results = new LinkedHashMap<>();
+        results.put("r0001", true);
+        results.put("r0010", false);
+        final CrawlJournal journal = CrawlJournal.open(directory);
+        assertTrue(journal.enqueue("http://example.org/c"));
+        assertFalse(journal.enqueue("http://example.org/c"));
+        assertEquals(Optional.of("http://example.org/c"), journal.take());
+        assertEquals(Optional.empty(), journal.take());
+        journal.enqueue("http://example.org/m1");
+        journal.enqueue("http://example.org/m2");
+        journal.complete("http://example.org/c", "00ff", Map.of());
+        journal.complete("http://example.org/m1", "abcd", results);
+        journal.fail("http://example.org/m2", "GET returned\n404");
+        journal.enqueue("http://example.org/m3");
+        assertEquals("http://example.org/m3", journal.take().orElse(null));
+        // no close: the process dies with m3 taken, and a record is torn
+        Files.write(directory.resolve("crawl.journal"), "D\thttp://exa".getBytes(UTF_8), APPEND);
+
+        final CrawlJournal resumed = CrawlJournal.open(directory);
+        assertEquals(List.of("http://example.org/m3"), resumed.getPending());
+        assertFalse(resumed.enqueue("http://example.org/m1"));
+        assertEquals(results, resumed.getCompleted("http://example.org/m1").get().getResults());
+        assertEquals("abcd",
+                resumed.getCompleted("http://example.org/m1").get().getHash().orElse(null));
+        assertEquals("GET returned 404",
+                resumed.getCompleted("http://example.org/m2").get().getFailure().orElse(null));
+        assertEquals(3, resumed.getCompleted().size());
+        resumed.complete("http://example.org/m3", "ef01", results);
+        resumed.close();
+        assertEquals(4, lines());
+        assertEquals(4, CrawlJournal.open(directory).getCompleted().size());
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("CompactsPeriodically")
+    void testCompaction() throws IOException {
+        final CrawlJournal journal = CrawlJournal.open(directory, 10);
+        for (int i = 0; i < 9; i++) {
+            journal.enqueue("http://example.org/m" + i);
+            journal.complete("http://example.org/m" + i, "00", Map.of("r0001", true));
+        }
+        assertTrue(lines() < 18, "the journal was compacted");
+        assertEquals(9, CrawlJournal.open(directory).getCompleted().size());
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("RetriesFetchFailuresOnResume")
+    void testRetry() throws IOException {
+        final CrawlJournal journal = CrawlJournal.open(directory);
+        journal.enqueue("http://example.org/m1");
+        assertEquals(Optional.of("http://example.org/m1"), journal.take());
+        assertTrue(journal.retry("http://example.org/m1", "timed out"));
+        // not taken again by the same run
+        assertEquals(Optional.empty(), journal.take());
+        assertEquals(List.of("http://example.org/m1"), journal.getPending());
+
+        final CrawlJournal resumed = CrawlJournal.open(directory);
+        assertEquals(1, resumed.getAttempts("http://example.org/m1"));
+        assertEquals(Optional.of("http://example.org/m1"), resumed.take());
+        resumed.close();
+        final CrawlJournal compacted = CrawlJournal.open(directory);
+        assertEquals(1, compacted.getAttempts("http://example.org/m1"));
+        for (int i = 2; i < CrawlJournal.MAX_ATTEMPTS; i++) {
+            assertTrue(compacted.retry("http://example.org/m1", "timed out"));
+        }
+        assertFalse(compacted.retry("http://example.org/m1", "timed out"));
+        assertTrue(compacted.getPending().isEmpty());
+        assertEquals("timed out (after 5 attempts)", compacted.getCompleted(
+                "http://example.org/m1").get().getFailure().orElse(null));
+        assertEquals(0, compacted.getAttempts("http://example.org/m1"));
+    }
+}
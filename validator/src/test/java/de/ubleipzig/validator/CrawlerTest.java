@@ -0,0 +1,162 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * CrawlerTest.
+ *
+ * @author christopher-johnson
+ */
+public class CrawlerTest {
+
+    private static final String TEST_DIR = "/iiif/p2/testcases";
+
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+
+    private HttpServer server;
+
+    private String base;
+
+    private Path directory;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        directory = TempDirectory.create("crawl");
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            final String path = exchange.getRequestURI().getPath();
+            final int request = requests.computeIfAbsent(path, p -> new AtomicInteger())
+                    .incrementAndGet();
+            if (path.equals("/0003") && request == 1) {
+                // the first request outlasts the deadline of the client
+                try {
+                    Thread.sleep(1000);
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            final byte[] body;
+            if (path.equals("/collection")) {
+                body = ("{\"@context\": \"http://iiif.io/api/presentation/2/context.json\","
+                        + " \"@id\": \"" + base + "/collection\", \"@type\": \"sc:Collection\","
+                        + " \"manifests\": [{\"@id\": \"" + base + "/0001\"}, {\"@id\": \""
+                        + base + "/0002\"}], \"collections\": [\"" + base + "/missing\"]}")
+                        .getBytes(UTF_8);
+            } else {
+                try (InputStream is = getClass().getResourceAsStream(TEST_DIR + path
+                        + "-in.jsonld")) {
+                    body = is == null ? null : is.readAllBytes();
+                }
+            }
+            if (body == null) {
+                exchange.sendResponseHeaders(404, -1);
+                exchange.close();
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        server.start();
+        base = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void stopServer() throws IOException {
+        server.stop(0);
+        TempDirectory.delete(directory);
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("CrawlsCollectionsAndResumes")
+    void testCrawl() throws IOException {
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        final AsyncClient client = new AsyncClient(4);
+        try (CrawlJournal journal = CrawlJournal.open(directory)) {
+            journal.enqueue(base + "/collection");
+            // an earlier run completed one manifest before it was interrupted
+            journal.complete(base + "/0002", "00", Map.of("r0001", true));
+            final long crawled = new Crawler(journal, client, ManifestRules.structural())
+                    .run(executor, 2);
+            assertEquals(3, crawled);
+            assertTrue(journal.getPending().isEmpty());
+            assertEquals(ManifestRules.structural().size(),
+                    journal.getCompleted(base + "/0001").get().getResults().size());
+            assertTrue(journal.getCompleted(base + "/missing").get().isFailed());
+        }
+        assertFalse(requests.containsKey("/0002"));
+        try (CrawlJournal journal = CrawlJournal.open(directory)) {
+            journal.enqueue(base + "/collection");
+            assertEquals(0, new Crawler(journal, client, ManifestRules.structural())
+                    .run(executor, 2));
+        }
+        assertEquals(1, requests.get("/collection").get());
+        assertEquals(1, requests.get("/0001").get());
+        executor.shutdown();
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("RetriesTimedOutUrlsOnResume")
+    void testRetryOnResume() throws IOException {
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        final AsyncClient client = new AsyncClient(4, Executors.newCachedThreadPool(),
+                new HostScheduler(4, Duration.ofSeconds(5), Duration.ofMillis(300), 1));
+        try (CrawlJournal journal = CrawlJournal.open(directory)) {
+            journal.enqueue(base + "/0003");
+            new Crawler(journal, client, ManifestRules.structural()).run(executor, 2);
+            assertEquals(List.of(base + "/0003"), journal.getPending());
+            assertFalse(journal.getCompleted(base + "/0003").isPresent());
+        }
+        // a resumed crawl runs in a new process, with a new client
+        try (CrawlJournal journal = CrawlJournal.open(directory)) {
+            assertEquals(1, new Crawler(journal, new AsyncClient(4), ManifestRules.structural())
+                    .run(executor, 2));
+            assertEquals(ManifestRules.structural().size(),
+                    journal.getCompleted(base + "/0003").get().getResults().size());
+        }
+        assertEquals(2, requests.get("/0003").get());
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * DirectoryWatcherTest.
+ *
+ * @author christopher-johnson
+ */
+public class DirectoryWatcherTest {
+
+    private static final String TEST_DIR = "/iiif/p2/testcases";
+
+    private final BlockingQueue<String> reports = new LinkedBlockingQueue<>();
+
+    private Path root;
+
+    private DirectoryWatcher watcher;
+
+    @BeforeEach
+    void startWatcher() throws IOException {
+        root = TempDirectory.create("staging");
+        Files.write(root.resolve("existing.json"), document("0001-in.jsonld"));
+        watcher = new DirectoryWatcher(root, ManifestRules.structural(),
+                new DirectoryWatcher.Sink() {
+                    @Override
+                    public void validated(final Path file, final ValidationTarget target,
+                                          final List<RuleResult> results) {
+                        reports.add(root.relativize(file) + " " + results.size());
+                    }
+
+                    @Override
+                    public void failed(final Path file, final Exception error) {
+                        reports.add(root.relativize(file) + " failed");
+                    }
+                }, Duration.ofMillis(100), Executors.newFixedThreadPool(2));
+        watcher.start();
+    }
+
+    @AfterEach
+    void stopWatcher() throws IOException {
+        watcher.close();
+        TempDirectory.delete(root);
+    }
+
+    private byte[] document(final String resource) throws IOException {
+        try (InputStream is = getClass().getResourceAsStream(TEST_DIR + "/" + resource)) {
+            return is.readAllBytes();
+        }
+    }
+
+    private String next() throws InterruptedException {
+        return reports.poll(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("ValidatesChangedFiles")
+    void testChanges() throws Exception {
+        final int rules = ManifestRules.structural().size();
+        assertEquals("existing.json " + rules, next());
+        final Path file = root.resolve("manifest.jsonld");
+        for (int i = 0; i < 5; i++) {
+            Files.write(file, document("0002-in.jsonld"));
+        }
+        assertEquals("manifest.jsonld " + rules, next());
+        // an unchanged save and other files are not validated
+        Files.write(file, document("0002-in.jsonld"));
+        Files.write(root.resolve("notes.txt"), "x".getBytes(UTF_8));
+        assertNull(reports.poll(1, TimeUnit.SECONDS));
+        Files.write(file, "{\"@id\": ".getBytes(UTF_8));
+        assertEquals("manifest.jsonld failed", next());
+        final Path nested = Files.createDirectories(root.resolve("a").resolve("b"));
+        Files.write(nested.resolve("c.json"), document("0003-in.jsonld"));
+        final String report = next();
+        assertNotNull(report);
+        assertTrue(report.startsWith(Path.of("a", "b", "c.json").toString()), report);
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * EndpointCacheTest.
+ *
+ * @author christopher-johnson
+ */
+public class EndpointCacheTest {
+
+    private static final String ACCEPT = "application/ld+json";
+
+    private final AtomicInteger fetches = new AtomicInteger();
+
+    private final AtomicLong now = new AtomicLong();
+
+    private final CompletableFuture<EndpointResponse> pending = new CompletableFuture<>();
+
+    private EndpointCache cache(final EndpointCache.Fetcher fetcher) {
+        return new EndpointCache(Duration.ofSeconds(60), (method, uri, accept) -> {
+            fetches.incrementAndGet();
+            return fetcher.fetch(method, uri, accept);
+        }, now::get);
+    }
+
+    private static EndpointResponse ok() {
+        return new EndpointResponse(200, Map.of("Content-Type", List.of(ACCEPT),
+                "Access-Control-Allow-Origin", List.of("*"), "Server", List.of("test")));
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("UrlsAreNormalized")
+    void testNormalize() {
+        assertEquals("http://example.org/b",
+                EndpointCache.normalize("HTTP://Example.ORG:80/a/../b#x"));
+        assertEquals("https://example.org/", EndpointCache.normalize("https://example.org:443"));
+        assertEquals("https://example.org:8443/b?q=1",
+                EndpointCache.normalize("https://example.org:8443/./b?q=1"));
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("ConcurrentLookupsShareOneRequest")
+    void testSingleFlight() {
+        final EndpointCache cache = cache((method, uri, accept) -> pending);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<CompletableFuture<EndpointResponse>> responses = List.of(
+                    "http://example.org/iiif/1/info.json", "HTTP://EXAMPLE.org/iiif/1/info.json",
+                    "http://example.org:80/iiif/2/../1/info.json").stream()
+                    .map(uri -> supplyAsync(() -> cache.options(uri, ACCEPT), executor))
+                    .map(CompletableFuture::join).collect(toList());
+            assertFalse(responses.get(0).isDone());
+            pending.complete(ok());
+            responses.forEach(r -> assertEquals(200, r.join().getStatus()));
+            assertEquals(1, fetches.get());
+            assertEquals(1, cache.getRequests());
+            cache.head("http://example.org/iiif/1/info.json", ACCEPT).join();
+            assertEquals(2, fetches.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("ResponsesExpire")
+    void testExpiry() {
+        final EndpointCache cache = cache((method, uri, accept) ->
+                CompletableFuture.completedFuture(ok()));
+        cache.head("http://example.org/canvas/1", ACCEPT).join();
+        now.addAndGet(Duration.ofSeconds(59).toNanos());
+        cache.head("http://example.org/canvas/1", ACCEPT).join();
+        assertEquals(1, fetches.get());
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        final EndpointResponse response = cache.head("http://example.org/canvas/1", ACCEPT)
+                .join();
+        assertEquals(2, fetches.get());
+        assertTrue(response.getHeader("access-control-allow-origin").isPresent());
+        assertFalse(response.getHeader("Server").isPresent());
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("ExpiredResponsesAreRemoved")
+    void testEviction() {
+        final EndpointCache cache = cache((method, uri, accept) ->
+                CompletableFuture.completedFuture(ok()));
+        for (int i = 0; i < 100; i++) {
+            cache.head("http://example.org/canvas/" + i, ACCEPT).join();
+        }
+        assertEquals(100, cache.size());
+        now.addAndGet(Duration.ofSeconds(30).toNanos());
+        cache.head("http://example.org/canvas/100", ACCEPT).join();
+        assertEquals(101, cache.size());
+        now.addAndGet(Duration.ofSeconds(30).toNanos());
+        cache.head("http://example.org/canvas/101", ACCEPT).join();
+        // only the response fetched after the first 100 is still fresh
+        assertEquals(2, cache.size());
+        cache.head("http://example.org/canvas/100", ACCEPT).join();
+        assertEquals(102, fetches.get());
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("FailuresAreNotCached")
+    void testFailure() {
+        final EndpointCache cache = cache((method, uri, accept) -> fetches.get() == 1 ?
+                CompletableFuture.failedFuture(new IOException("refused")) :
+                CompletableFuture.completedFuture(ok()));
+        assertThrows(CompletionException.class,
+                () -> cache.head("http://example.org/canvas/1", ACCEPT).join());
+        assertEquals(200, cache.head("http://example.org/canvas/1", ACCEPT).join().getStatus());
+        assertEquals(2, fetches.get());
+    }
+}
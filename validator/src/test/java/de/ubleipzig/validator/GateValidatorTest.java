@@ -0,0 +1,276 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static de.ubleipzig.validator.IO.expandDocumentToN3fromFile;
+import static de.ubleipzig.validator.IO.getGraph;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.jsonldjava.core.JsonLdError;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * GateValidatorTest.
+ *
+ * @author christopher-johnson
+ */
+public class GateValidatorTest {
+
+    private static final String TEST_DIR = "/iiif/p2/testcases";
+
+    private ValidationTarget target(final String resource) throws IOException, JsonLdError {
+        return new ValidationTarget(null, getGraph(expandDocumentToN3fromFile(
+                getClass().getResourceAsStream(TEST_DIR + "/" + resource))));
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("GateStopsAtFirstFailingMustRule")
+    void testGateFailure() throws IOException, JsonLdError {
+        final Verdict verdict =
+                new GateValidator(ManifestRules.structural()).check(target("0001-in.jsonld"));
+        assertFalse(verdict.isPassed());
+        assertEquals("r0010", verdict.getFailure().map(r -> r.getRule().getId()).orElse(null));
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("GateCancelsPendingRemoteRules")
+    void testGateCancelsRemote() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        final List<Rule> rules = new ArrayList<>(ManifestRules.structural());
+        rules.add(RuleDefinition.remote("a9999", "SlowEndpoint", Severity.MUST, "", t -> {
+            started.countDown();
+            try {
+                Thread.sleep(60000);
+            } catch (final InterruptedException ex) {
+                interrupted.countDown();
+            }
+            return true;
+        }));
+        final GateValidator gate = new GateValidator(rules);
+        final Verdict verdict = gate.check(target("0001-in.jsonld"));
+        assertFalse(verdict.isPassed());
+        // a remote rule that never started was cancelled before it could run
+        if (started.getCount() == 0) {
+            assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("GateComputesFullResultsOnRequest")
+    void testFullResults() throws IOException, JsonLdError {
+        final Verdict verdict =
+                new GateValidator(ManifestRules.structural()).check(target("0001-in.jsonld"));
+        final List<RuleResult> results = verdict.getFullResults().join();
+        assertEquals(ManifestRules.structural().size(), results.size());
+        assertTrue(results.stream().anyMatch(r -> r.getRule().getId().equals("r0004") &&
+                r.isPassed()));
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("GateFetchesDocumentsAndAbortsOnceDecided")
+    void testFetch() throws Exception {
+        final long padding = 256L << 20;
+        final AtomicLong written = new AtomicLong();
+        final CountDownLatch done = new CountDownLatch(1);
+        final HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/manifest", exchange -> {
+            final byte[] chunk = new byte[1 << 16];
+            Arrays.fill(chunk, (byte) ' ');
+            exchange.getResponseHeaders().add("Content-Type", "application/ld+json");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(("{\"@id\": \"http://example.org/m\", \"@type\": \"sc:Sequence\","
+                        + " \"padding\": \"").getBytes(UTF_8));
+                while (written.get() < padding) {
+                    os.write(chunk);
+                    written.addAndGet(chunk.length);
+                }
+                os.write("\"}".getBytes(UTF_8));
+            } catch (final IOException ex) {
+                // the client aborted the transfer
+            } finally {
+                done.countDown();
+            }
+        });
+        final byte[] manifest;
+        try (InputStream is = getClass().getResourceAsStream(TEST_DIR + "/0001-in.jsonld")) {
+            manifest = is.readAllBytes();
+        }
+        server.createContext("/fixture", exchange -> {
+            final byte[] fixture = new String(manifest, UTF_8).replace(
+                    "http://constraint-test/0001-in.jsonld", "http://localhost:"
+                    + server.getAddress().getPort() + "/fixture").getBytes(UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/ld+json");
+            exchange.sendResponseHeaders(200, fixture.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(fixture);
+            }
+        });
+        server.start();
+        try {
+            final String base = "http://localhost:" + server.getAddress().getPort();
+            final AsyncClient client = new AsyncClient(1);
+            // a must rule beyond the header rules needs the whole document
+            final Verdict read = new GateValidator(List.of(ManifestRules.byId("r0001"),
+                    ManifestRules.byId("r0004"), RuleDefinition.predicate("a9999", "NotEmpty",
+                            Severity.MUST, "", RuleDefinition.SCAN, t -> t.getGraph().size() > 0)))
+                    .fetch(base + "/fixture", client).get(30, TimeUnit.SECONDS);
+            assertTrue(read.isPassed());
+            assertEquals(3, read.getFullResults().join().size());
+            final Verdict verdict = new GateValidator(ManifestRules.structural())
+                    .fetch(base + "/manifest", client).get(30, TimeUnit.SECONDS);
+            assertFalse(verdict.isPassed());
+            assertTrue(done.await(30, TimeUnit.SECONDS));
+            assertTrue(written.get() < padding, () -> written.get() + " bytes sent");
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("GateFetchesShareABoundedExecutor")
+    void testFetchOnBoundedExecutor() throws Exception {
+        final byte[] manifest;
+        try (InputStream is = getClass().getResourceAsStream(TEST_DIR + "/0001-in.jsonld")) {
+            manifest = is.readAllBytes();
+        }
+        final HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/fixture", exchange -> {
+            final byte[] fixture = new String(manifest, UTF_8).replace(
+                    "http://constraint-test/0001-in.jsonld", "http://localhost:"
+                    + server.getAddress().getPort() + "/fixture").getBytes(UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/ld+json");
+            exchange.sendResponseHeaders(200, fixture.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(fixture);
+            }
+        });
+        server.start();
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final String base = "http://localhost:" + server.getAddress().getPort();
+            final AsyncClient client = new AsyncClient(8);
+            // more fetches than threads, each with a remote must rule needing a thread of its own
+            final GateValidator gate = new GateValidator(List.of(ManifestRules.byId("r0004"),
+                    RuleDefinition.remote("a9999", "Endpoint", Severity.MUST, "", t -> true)),
+                    executor);
+            final List<CompletableFuture<Verdict>> verdicts = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                verdicts.add(gate.fetch(base + "/fixture", client));
+            }
+            for (final CompletableFuture<Verdict> verdict : verdicts) {
+                assertTrue(verdict.get(30, TimeUnit.SECONDS).isPassed());
+            }
+        } finally {
+            executor.shutdownNow();
+            server.stop(0);
+        }
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("GateFetchCancelsPendingRemoteRules")
+    void testFetchCancelsRemote() throws Exception {
+        final byte[] manifest;
+        try (InputStream is = getClass().getResourceAsStream(TEST_DIR + "/0001-in.jsonld")) {
+            manifest = is.readAllBytes();
+        }
+        final HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/fixture", exchange -> {
+            final byte[] fixture = new String(manifest, UTF_8).replace(
+                    "http://constraint-test/0001-in.jsonld", "http://localhost:"
+                    + server.getAddress().getPort() + "/fixture").getBytes(UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/ld+json");
+            exchange.sendResponseHeaders(200, fixture.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(fixture);
+            }
+        });
+        server.start();
+        final ExecutorService executor = Executors.newCachedThreadPool();
+        final AtomicInteger failing = new AtomicInteger();
+        final AtomicInteger slow = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        try {
+            final String base = "http://localhost:" + server.getAddress().getPort();
+            final GateValidator gate = new GateValidator(List.of(ManifestRules.byId("r0004"),
+                    RuleDefinition.remote("a9998", "Failing", Severity.MUST, "", t -> {
+                        failing.incrementAndGet();
+                        try {
+                            started.await(5, TimeUnit.SECONDS);
+                        } catch (final InterruptedException ex) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return false;
+                    }),
+                    RuleDefinition.remote("a9999", "Slow", Severity.MUST, "", t -> {
+                        if (slow.incrementAndGet() > 1) {
+                            return true;
+                        }
+                        started.countDown();
+                        try {
+                            Thread.sleep(60000);
+                        } catch (final InterruptedException ex) {
+                            interrupted.countDown();
+                        }
+                        return true;
+                    })), executor);
+            final Verdict verdict = gate.fetch(base + "/fixture", new AsyncClient(4))
+                    .get(30, TimeUnit.SECONDS);
+            assertEquals("a9998", verdict.getFailure().map(r -> r.getRule().getId())
+                    .orElse(null));
+            assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+            // the completed remote rule is not evaluated again for the full results
+            assertEquals(3, verdict.getFullResults().get(30, TimeUnit.SECONDS).size());
+            assertEquals(1, failing.get());
+            assertEquals(2, slow.get());
+        } finally {
+            executor.shutdownNow();
+            server.stop(0);
+        }
+    }
+}
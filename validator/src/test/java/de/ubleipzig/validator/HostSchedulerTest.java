@@ -0,0 +1,246 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.jena.riot.WebContent.contentTypeJSONLD;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodySubscribers;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * HostSchedulerTest.
+ *
+ * @author christopher-johnson
+ */
+public class HostSchedulerTest {
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    private final AtomicInteger flaky = new AtomicInteger();
+
+    private final AtomicInteger busy = new AtomicInteger();
+
+    private final AtomicInteger flakyBody = new AtomicInteger();
+
+    private HttpServer server;
+
+    private String base;
+
+    private String authority;
+
+    private static void sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/fast", exchange -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            sleep(20);
+            inFlight.decrementAndGet();
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        // unavailable for the first two requests
+        server.createContext("/flaky", exchange -> {
+            final boolean fail = flaky.incrementAndGet() <= 2;
+            if (fail) {
+                exchange.getResponseHeaders().add("Retry-After", "0");
+            }
+            exchange.sendResponseHeaders(fail ? 503 : 200, -1);
+            exchange.close();
+        });
+        server.createContext("/busy", exchange -> {
+            busy.incrementAndGet();
+            exchange.sendResponseHeaders(429, -1);
+            exchange.close();
+        });
+        // unavailable for the first request, with a body in both responses
+        server.createContext("/flakybody", exchange -> {
+            final boolean fail = flakyBody.incrementAndGet() <= 1;
+            exchange.getResponseHeaders().add("Retry-After", "0");
+            final byte[] body = (fail ? "unavailable" : "{}").getBytes(UTF_8);
+            exchange.sendResponseHeaders(fail ? 503 : 200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/slowbody", exchange -> {
+            sleep(500);
+            final byte[] body = "{}".getBytes(UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/hang", exchange -> {
+            sleep(2000);
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+        authority = "localhost:" + server.getAddress().getPort();
+        base = "http://" + authority;
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    private static AsyncClient client(final HostScheduler scheduler) {
+        return new AsyncClient(64, Executors.newCachedThreadPool(), scheduler);
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("ConcurrencyGrowsUpToTheHostLimit")
+    void testAdditiveIncrease() {
+        final HostScheduler scheduler = new HostScheduler(4, Duration.ofSeconds(5),
+                Duration.ofSeconds(30), 3);
+        final AsyncClient client = client(scheduler);
+        final List<CompletableFuture<Integer>> responses = IntStream.range(0, 40)
+                .mapToObj(i -> client.head(base + "/fast", contentTypeJSONLD)
+                        .thenApply(r -> r.statusCode())).collect(Collectors.toList());
+        responses.forEach(r -> assertEquals(200, (int) r.join()));
+        assertTrue(maxInFlight.get() <= 4, () -> maxInFlight.get() + " in flight");
+        assertEquals(Optional.of(4), scheduler.getLimit(authority));
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("UnavailableResponsesAreRetried")
+    void testRetry() {
+        final HostScheduler scheduler = new HostScheduler(4, Duration.ofSeconds(5),
+                Duration.ofSeconds(30), 3, Duration.ofMillis(10));
+        assertEquals(200, client(scheduler).head(base + "/flaky", contentTypeJSONLD).join()
+                .statusCode());
+        assertEquals(3, flaky.get());
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("RetriesAreBoundedAndReduceConcurrency")
+    void testRetryBudget() {
+        final HostScheduler scheduler = new HostScheduler(4, Duration.ofMillis(1),
+                Duration.ofSeconds(30), 3, Duration.ofMillis(10));
+        final AsyncClient client = client(scheduler);
+        final List<CompletableFuture<Integer>> responses = IntStream.range(0, 20)
+                .mapToObj(i -> client.head(base + "/busy", contentTypeJSONLD)
+                        .thenApply(r -> r.statusCode())).collect(Collectors.toList());
+        responses.forEach(r -> assertEquals(429, (int) r.join()));
+        // 20 requests, at most 2 retries each, limited by the budget of about 10 + 20 * 0.2
+        assertTrue(busy.get() >= 20 && busy.get() <= 35, () -> busy.get() + " requests");
+        assertEquals(Optional.of(1), scheduler.getLimit(authority));
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("RequestsFailAtTheirDeadline")
+    void testDeadline() {
+        final HostScheduler scheduler = new HostScheduler(4, Duration.ofSeconds(5),
+                Duration.ofMillis(300), 3);
+        final CompletionException ex = assertThrows(CompletionException.class,
+                () -> client(scheduler).head(base + "/hang", contentTypeJSONLD).join());
+        assertTrue(ex.getCause() instanceof TimeoutException, ex::toString);
+    }
+
+    // Streams bodies, counting the streams that are closed
+    private static CompletableFuture<HttpResponse<InputStream>> stream(
+            final HttpClient client, final String uri, final AtomicInteger closed) {
+        return client.sendAsync(HttpRequest.newBuilder(URI.create(uri)).build(),
+                info -> BodySubscribers.mapping(BodySubscribers.ofInputStream(),
+                        in -> new FilterInputStream(in) {
+                            @Override
+                            public void close() throws IOException {
+                                closed.incrementAndGet();
+                                super.close();
+                            }
+                        }));
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("DiscardedBodiesAreClosed")
+    void testDiscardedBodies() throws IOException {
+        final HttpClient client = HttpClient.newHttpClient();
+        final AtomicInteger closed = new AtomicInteger();
+        final HostScheduler retrying = new HostScheduler(4, Duration.ofSeconds(5),
+                Duration.ofSeconds(30), 3, Duration.ofMillis(10));
+        final HttpResponse<InputStream> response = retrying.send(URI.create(base),
+                () -> stream(client, base + "/flakybody", closed)).join();
+        assertEquals(200, response.statusCode());
+        assertEquals(2, flakyBody.get());
+        assertEquals(1, closed.get());
+        response.body().close();
+        closed.set(0);
+        final HostScheduler late = new HostScheduler(4, Duration.ofSeconds(5),
+                Duration.ofMillis(100), 1);
+        assertThrows(CompletionException.class, () -> late.send(URI.create(base),
+                () -> stream(client, base + "/slowbody", closed)).join());
+        final long until = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (closed.get() == 0 && System.nanoTime() < until) {
+            sleep(20);
+        }
+        assertEquals(1, closed.get());
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("RetryAfterIsParsed")
+    void testRetryAfter() {
+        final Instant now = Instant.parse("2015-10-21T07:28:00Z");
+        assertEquals(Optional.of(Duration.ofSeconds(120)), HostScheduler.retryAfter("120", now));
+        assertEquals(Optional.of(Duration.ofSeconds(60)),
+                HostScheduler.retryAfter("Wed, 21 Oct 2015 07:29:00 GMT", now));
+        assertEquals(Optional.empty(), HostScheduler.retryAfter("soon", now));
+    }
+}
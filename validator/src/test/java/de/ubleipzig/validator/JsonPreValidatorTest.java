@@ -0,0 +1,137 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static de.ubleipzig.validator.IO.expandDocumentToN3fromFile;
+import static de.ubleipzig.validator.IO.getGraph;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+
+import com.github.jsonldjava.core.JsonLdError;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+
+/**
+ * JsonPreValidatorTest.
+ *
+ * @author christopher-johnson
+ */
+public class JsonPreValidatorTest {
+
+    private static final String TEST_DIR = "/iiif/p2/testcases";
+
+    private static final String BASE = "http://constraint-test/";
+
+    private byte[] document(final String resource) throws IOException {
+        try (InputStream is = getClass().getResourceAsStream(TEST_DIR + "/" + resource)) {
+            return is.readAllBytes();
+        }
+    }
+
+    @TestFactory
+    @Tag("self")
+    @DisplayName("PreValidationAgreesWithGraphRules")
+    Stream<DynamicTest> testAgreement() {
+        return IntStream.rangeClosed(1, 33).mapToObj(i -> String.format("%04d-in.jsonld", i))
+                .map(fixture -> dynamicTest(fixture, () -> {
+                    final byte[] document = document(fixture);
+                    final String resource = BASE + fixture;
+                    final ValidationTarget target = new ValidationTarget(resource, getGraph(
+                            expandDocumentToN3fromFile(new ByteArrayInputStream(document))));
+                    final List<RuleResult> pre =
+                            new JsonPreValidator().validate(document, resource);
+                    final List<String> expected = pre.stream().map(r -> r.getRule().getId()
+                            + "=" + r.getRule().evaluate(target).isPassed()).collect(toList());
+                    assertEquals(expected, pre.stream().map(r -> r.getRule().getId() + "="
+                            + r.isPassed()).collect(toList()));
+                }));
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("IncrementalResultsAgreeWithDocumentResults")
+    void testIncrementalAgreement() throws IOException {
+        final JsonPreValidator validator = new JsonPreValidator();
+        for (int i = 1; i <= 33; i++) {
+            final String fixture = String.format("%04d-in.jsonld", i);
+            final byte[] document = document(fixture);
+            final List<String> full = validator.validate(document, BASE + fixture).stream()
+                    .map(r -> r.getRule().getId() + "=" + r.isPassed()).collect(toList());
+            final List<String> incremental = validator.validate(new ByteArrayInputStream(
+                    document), BASE + fixture, ManifestRules.structural()).stream()
+                    .map(r -> r.getRule().getId() + "=" + r.isPassed()).collect(toList());
+            assertTrue(full.containsAll(incremental), fixture);
+        }
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("IncrementalValidationStopsReading")
+    void testStopsReading() throws IOException {
+        final JsonPreValidator validator = new JsonPreValidator();
+        final List<Rule> header = List.of(ManifestRules.byId("r0001"),
+                ManifestRules.byId("r0003"), ManifestRules.byId("r0004"));
+        final List<RuleResult> passed = validator.validate(truncated(
+                "{\"@id\": \"http://example.org/m\", \"@type\": \"sc:Manifest\", "
+                + "\"label\": \"m\", \"sequences\": ["), null, header);
+        assertEquals(3, passed.size());
+        assertTrue(passed.stream().allMatch(RuleResult::isPassed));
+        final List<RuleResult> failed = validator.validate(truncated(
+                "{\"@id\": \"http://example.org/m\", \"@type\": \"sc:Sequence\", "),
+                null, ManifestRules.structural());
+        assertFalse(failed.isEmpty());
+        assertTrue(failed.stream().anyMatch(r -> !r.isPassed()
+                && r.getRule().getSeverity() == Severity.MUST));
+    }
+
+    // A document that fails to read after its first bytes
+    private static InputStream truncated(final String start) {
+        return new SequenceInputStream(new ByteArrayInputStream(start.getBytes(UTF_8)),
+                new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("read past the header");
+                    }
+                });
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("GateFailsBeforeExpansion")
+    void testGateFailsBeforeExpansion() throws IOException, JsonLdError {
+        final Verdict verdict = new GateValidator(ManifestRules.structural())
+                .check(null, document("0001-in.jsonld"));
+        assertFalse(verdict.isPassed());
+        assertEquals("r0010", verdict.getFailure().map(r -> r.getRule().getId()).orElse(null));
+        assertEquals(ManifestRules.structural().size(),
+                verdict.getFullResults().join().size());
+    }
+}
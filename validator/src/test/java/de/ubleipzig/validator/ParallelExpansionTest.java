@@ -0,0 +1,88 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.jena.rdf.model.ModelFactory.createDefaultModel;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+
+import com.github.jsonldjava.core.JsonLdConsts;
+import com.github.jsonldjava.core.JsonLdError;
+import com.github.jsonldjava.core.JsonLdOptions;
+import com.github.jsonldjava.core.JsonLdProcessor;
+import com.github.jsonldjava.utils.JsonUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+
+/**
+ * ParallelExpansionTest.
+ *
+ * @author christopher-johnson
+ */
+public class ParallelExpansionTest {
+
+    private static final String TEST_DIR = "/iiif/p2/testcases";
+
+    private Object document(final String resource) throws IOException {
+        return JsonUtils.fromInputStream(getClass().getResourceAsStream(TEST_DIR + "/" + resource));
+    }
+
+    private static Model model(final String nquads) {
+        final Model model = createDefaultModel();
+        RDFDataMgr.read(model, new ByteArrayInputStream(nquads.getBytes(UTF_8)), Lang.NQUADS);
+        return model;
+    }
+
+    private static String serial(final Object document) throws JsonLdError {
+        final JsonLdOptions options = new JsonLdOptions();
+        options.format = JsonLdConsts.APPLICATION_NQUADS;
+        return String.valueOf(JsonLdProcessor.toRDF(document, options));
+    }
+
+    @TestFactory
+    @Tag("self")
+    @DisplayName("ParallelExpansionIsIsomorphicToSerial")
+    Stream<DynamicTest> testIsomorphic() {
+        return IntStream.rangeClosed(1, 33).mapToObj(i -> String.format("%04d-in.jsonld", i))
+                .map(fixture -> dynamicTest(fixture, () -> {
+                    final String serial = serial(document(fixture));
+                    final String parallel =
+                            ParallelExpansion.toNQuads(document(fixture), new JsonLdOptions());
+                    assertTrue(model(serial).isIsomorphicWith(model(parallel)));
+                }));
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("CanvasesAreExpandedInChunks")
+    void testChunked() throws IOException, JsonLdError {
+        final String parallel =
+                ParallelExpansion.toNQuads(document("0008-in.jsonld"), new JsonLdOptions());
+        assertTrue(parallel.contains("_:c1_"));
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.jena.rdf.model.ModelFactory.createDefaultModel;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+
+import org.apache.jena.graph.GraphUtil;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * ParallelParserTest.
+ *
+ * @author christopher-johnson
+ */
+public class ParallelParserTest {
+
+    // Blank nodes are linked across many lines, so they span chunk boundaries
+    private static byte[] nquads(final int lines) {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            sb.append("_:b").append(i % 100).append(" <http://example.org/p> _:b")
+                    .append((i + 1) % 100).append(" .\n");
+            sb.append("<http://example.org/s").append(i).append("> <http://example.org/q> \"")
+                    .append(i).append("\" .\n");
+        }
+        return sb.toString().getBytes(UTF_8);
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("ChunksEndAtLineFeeds")
+    void testChunks() {
+        final byte[] bytes = nquads(20000);
+        final List<int[]> chunks = ParallelParser.chunks(bytes);
+        assertEquals(0, chunks.get(0)[0]);
+        assertEquals(bytes.length, chunks.get(chunks.size() - 1)[1]);
+        for (int i = 0; i < chunks.size(); i++) {
+            assertEquals('\n', bytes[chunks.get(i)[1] - 1]);
+            if (i > 0) {
+                assertEquals(chunks.get(i - 1)[1], chunks.get(i)[0]);
+            }
+        }
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("ParallelParseIsIsomorphicToSerial")
+    void testIsomorphic() {
+        final byte[] bytes = nquads(20000);
+        final Model serial = createDefaultModel();
+        RDFDataMgr.read(serial, new ByteArrayInputStream(bytes), Lang.NQUADS);
+        final List<Triple> triples = ParallelParser.parse(bytes);
+        final Model parallel = createDefaultModel();
+        GraphUtil.add(parallel.getGraph(), triples);
+        assertEquals(serial.size(), parallel.size());
+        assertTrue(serial.isIsomorphicWith(parallel));
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static de.ubleipzig.validator.IO.expandDocumentToN3fromFile;
+import static de.ubleipzig.validator.IO.getGraph;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+
+import com.github.jsonldjava.core.JsonLdError;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+
+/**
+ * ProjectionTest.
+ *
+ * @author christopher-johnson
+ */
+public class ProjectionTest {
+
+    private static final String TEST_DIR = "/iiif/p2/testcases";
+
+    private byte[] nquads(final String resource) throws IOException, JsonLdError {
+        return expandDocumentToN3fromFile(getClass().getResourceAsStream(TEST_DIR + "/" +
+                resource)).readAllBytes();
+    }
+
+    private static List<String> results(final List<Rule> rules, final ValidationTarget target) {
+        return rules.stream().map(r -> r.getId() + "=" + r.evaluate(target).isPassed())
+                .collect(toList());
+    }
+
+    @TestFactory
+    @Tag("self")
+    @DisplayName("ProjectedGraphGivesSameResults")
+    Stream<DynamicTest> testSameResults() {
+        final List<Rule> rules = ManifestRules.structural();
+        final Projection projection = Projection.of(rules);
+        return IntStream.rangeClosed(1, 33).mapToObj(i -> String.format("%04d-in.jsonld", i))
+                .map(fixture -> dynamicTest(fixture, () -> {
+                    final byte[] nquads = nquads(fixture);
+                    final ValidationTarget full = new ValidationTarget(null,
+                            getGraph(new ByteArrayInputStream(nquads)));
+                    final ValidationTarget projected =
+                            projection.load(null, new ByteArrayInputStream(nquads));
+                    assertEquals(results(rules, full), results(rules, projected));
+                }));
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("UnreadTriplesAreDropped")
+    void testDropped() throws IOException, JsonLdError {
+        final Projection projection = Projection.of(List.of(ManifestRules.byId("r0001")));
+        final byte[] nquads = nquads("0029-in.jsonld");
+        final ValidationTarget projected = projection.load(null, new ByteArrayInputStream(nquads));
+        assertTrue(projected.getGraph().size() < getGraph(new ByteArrayInputStream(nquads)).size());
+        assertTrue(projected.getViolations().isPresent());
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("UndeclaredPredicatesDisableProjection")
+    void testUndeclared() {
+        final List<Rule> rules = new ArrayList<>(ManifestRules.structural());
+        rules.add(RuleDefinition.predicate("r9999", "Opaque", Severity.MAY, "",
+                RuleDefinition.SCAN, t -> true));
+        final Projection projection = Projection.of(rules);
+        assertFalse(projection.getPredicates().isPresent());
+    }
+}
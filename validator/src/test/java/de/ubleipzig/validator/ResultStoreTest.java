@@ -0,0 +1,123 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * ResultStoreTest.
+ *
+ * @author christopher-johnson
+ */
+public class ResultStoreTest {
+
+    private static final String BASE = "http://example.org/manifest/";
+
+    private Path directory;
+
+    @BeforeEach
+    void createDirectory() throws IOException {
+        directory = TempDirectory.create("results");
+    }
+
+    @AfterEach
+    void deleteDirectory() throws IOException {
+        TempDirectory.delete(directory);
+    }
+
+    // Every manifest fails r0004 if its number is divisible by the divisor
+    private static List<RuleResult> results(final int manifest, final int divisor) {
+        return ManifestRules.structural().stream().map(rule -> new RuleResult(rule,
+                !(rule.getId().equals("r0004") && manifest % divisor == 0), null))
+                .collect(toList());
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("QueriesRecordedRuns")
+    void testQueries() throws InterruptedException {
+        final String first;
+        final String second;
+        try (ResultStore store = ResultStore.open(directory)) {
+            try (ResultStore.Run run = store.start()) {
+                first = run.getId();
+                for (int i = 0; i < 2000; i++) {
+                    run.add(BASE + i, results(i, 1000));
+                }
+            }
+            // runs are ordered by their start time
+            Thread.sleep(5);
+            try (ResultStore.Run run = store.start()) {
+                second = run.getId();
+                for (int i = 0; i < 10; i++) {
+                    run.add(BASE + i, results(i, 2));
+                }
+            }
+        }
+        try (ResultStore store = ResultStore.open(directory)) {
+            assertEquals(List.of(first, second), store.getRuns());
+            assertEquals(Optional.of(second), store.getLastRun());
+            assertEquals(Set.of(BASE + 0, BASE + 1000),
+                    Set.copyOf(store.findManifests(first, "r0004", false)));
+            assertEquals(5, store.findFailing(second, Severity.MUST).size());
+            assertTrue(store.findFailing(second, Severity.SHOULD).isEmpty());
+            assertEquals(10, store.findManifests(second, "r0001", true).size());
+            final Map<String, Boolean> results = store.getResults(first, BASE + 1000);
+            assertEquals(ManifestRules.structural().size(), results.size());
+            assertEquals(false, results.get("r0004"));
+            assertEquals(Map.of(first, true, second, false), store.getHistory(BASE + 2, "r0004"));
+        }
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("KeepsRuleSeveritiesPerRun")
+    void testSeverityPerRun() {
+        final RuleDefinition relaxed = RuleDefinition.predicate("r0004", "ManifestShouldHaveLabel",
+                Severity.SHOULD, "3.1", RuleDefinition.LOOKUP, target -> true);
+        final String first;
+        final String second;
+        try (ResultStore store = ResultStore.open(directory)) {
+            try (ResultStore.Run run = store.start()) {
+                first = run.getId();
+                run.add(BASE + 0, results(0, 1));
+            }
+            try (ResultStore.Run run = store.start()) {
+                second = run.getId();
+                run.add(BASE + 0, List.of(new RuleResult(relaxed, false, null)));
+            }
+            // redefining r0004 in the second run leaves the first run's severity alone
+            assertEquals(List.of(BASE + 0), store.findFailing(first, Severity.MUST));
+            assertTrue(store.findFailing(first, Severity.SHOULD).isEmpty());
+            assertEquals(List.of(BASE + 0), store.findFailing(second, Severity.SHOULD));
+            assertTrue(store.findFailing(second, Severity.MUST).isEmpty());
+        }
+    }
+}
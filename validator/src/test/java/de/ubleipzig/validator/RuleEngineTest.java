@@ -0,0 +1,123 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static de.ubleipzig.validator.IO.expandDocumentToN3fromFile;
+import static de.ubleipzig.validator.IO.getGraph;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+
+import com.github.jsonldjava.core.JsonLdError;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.jena.JenaRDF;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+
+/**
+ * RuleEngineTest.
+ *
+ * @author christopher-johnson
+ */
+public class RuleEngineTest {
+
+    private static final String TEST_DIR = "/iiif/p2/testcases";
+
+    private static final List<String> passing = List.of("r0001", "r0003", "r0004", "r0005",
+            "r0006", "r0007", "r0008", "r0009", "r0010", "r0011", "r0012", "r0013", "r0014",
+            "r0015", "r0016", "r0018", "r0019", "r0020", "r0021", "r0022", "r0023", "r0024",
+            "r0025", "r0026", "r0027", "r0028", "r0029");
+
+    private static ValidationTarget target(final String resource) {
+        try {
+            return new ValidationTarget(null, getGraph(expandDocumentToN3fromFile(
+                    RuleEngineTest.class.getResourceAsStream(TEST_DIR + "/" + resource))));
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        } catch (final JsonLdError ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static RuleResult evaluate(final RuleEngine engine, final String id,
+                                       final ValidationTarget target) {
+        return engine.evaluate(target).stream().filter(r -> r.getRule().getId().equals(id))
+                .findFirst().orElseThrow(() -> new IllegalStateException(id + " not found"));
+    }
+
+    @TestFactory
+    @Tag("self")
+    @DisplayName("Rules pass on their test case")
+    Stream<DynamicTest> testRulesOnTestCases() {
+        final RuleEngine engine = new RuleEngine(ManifestRules.structural());
+        return passing.stream().map(id -> dynamicTest(id, () -> {
+            final RuleResult result = evaluate(engine, id, target(id.substring(1) + "-in.jsonld"));
+            assertTrue(result.isPassed(), result::toString);
+        }));
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("Engine agrees with individual evaluation")
+    void testSharedScans() {
+        final ValidationTarget target = target("0029-in.jsonld");
+        final RuleEngine engine = new RuleEngine(ManifestRules.structural());
+        final List<RuleResult> results = engine.evaluate(target);
+        assertEquals(ManifestRules.structural().size(), results.size());
+        results.forEach(r -> assertEquals(r.getRule().evaluate(target).isPassed(), r.isPassed(),
+                r::toString));
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("Invalid range is reported")
+    void testInvalidRange() {
+        final RuleEngine engine = new RuleEngine(ManifestRules.structural());
+        assertFalse(evaluate(engine, "r0032", target("0032-in.jsonld")).isPassed());
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("Concurrent evaluation agrees with sequential evaluation")
+    void testConcurrent() {
+        final ValidationTarget target = target("0029-in.jsonld");
+        final Graph mutable = new JenaRDF().createGraph();
+        target.getGraph().stream().forEach(mutable::add);
+        final RuleEngine engine = new RuleEngine(ManifestRules.structural());
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<RuleResult> results = engine.evaluate(new ValidationTarget(null, mutable),
+                    executor).join();
+            assertEquals(engine.evaluate(target).stream().map(RuleResult::isPassed)
+                    .collect(toList()), results.stream().map(RuleResult::isPassed)
+                    .collect(toList()));
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.ubleipzig.validator.RunDiff.Change;
+import de.ubleipzig.validator.RunDiff.Difference;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * RunDiffTest.
+ *
+ * @author christopher-johnson
+ */
+public class RunDiffTest {
+
+    private Path directory;
+
+    @BeforeEach
+    void createDirectory() throws IOException {
+        directory = TempDirectory.create("runs");
+    }
+
+    @AfterEach
+    void deleteDirectory() throws IOException {
+        TempDirectory.delete(directory);
+    }
+
+    private static String manifest(final int i) {
+        return "https://iiif.ub.uni-leipzig.de/" + String.format("%010d", i) + "/manifest.json";
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("WritesSortedRunFiles")
+    void testWriteSorted() throws IOException {
+        final Path file = directory.resolve("a.run");
+        try (RunFile.Writer writer = RunFile.write(file, 3)) {
+            writer.add("http://example.org/m2", "r0002", false);
+            writer.add("http://example.org/m1", "r0002", true);
+            writer.add("http://example.org/m2", "r0001", true);
+            writer.add("http://example.org/m10", "r0001", false);
+            writer.add("http://example.org/m1", "r0001", false);
+            writer.add("http://example.org/m2", "r0002", false);
+            writer.add("http://example.org/m\u00e4", "r0001", true);
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+        final List<String> entries = new ArrayList<>();
+        try (RunFile.Reader reader = RunFile.read(file)) {
+            reader.forEachRemaining(e -> entries.add(e.toString()));
+        }
+        assertEquals(List.of("http://example.org/m1 r0001 failed",
+                "http://example.org/m1 r0002 passed", "http://example.org/m10 r0001 failed",
+                "http://example.org/m2 r0001 passed", "http://example.org/m2 r0002 failed",
+                "http://example.org/m\u00e4 r0001 passed"), entries);
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("ClassifiesFailures")
+    void testDiff() throws IOException {
+        final Path before = directory.resolve("before.run");
+        final Path after = directory.resolve("after.run");
+        try (RunFile.Writer writer = RunFile.write(before)) {
+            writer.add("http://example.org/m1", "r0001", false);
+            writer.add("http://example.org/m1", "r0002", false);
+            writer.add("http://example.org/m1", "r0003", true);
+            writer.add("http://example.org/m2", "r0001", false);
+            writer.add("http://example.org/m3", "r0001", true);
+        }
+        try (RunFile.Writer writer = RunFile.write(after)) {
+            writer.add("http://example.org/m1", "r0001", false);
+            writer.add("http://example.org/m1", "r0002", true);
+            writer.add("http://example.org/m1", "r0003", false);
+            writer.add("http://example.org/m3", "r0001", true);
+            writer.add("http://example.org/m4", "r0001", false);
+            writer.add("http://example.org/m4", "r0002", true);
+        }
+        final List<String> differences = new ArrayList<>();
+        final Map<Change, Long> counts = RunDiff.diff(before, after,
+                d -> differences.add(d.toString()));
+        assertEquals(List.of("PERSISTING http://example.org/m1 r0001",
+                "FIXED http://example.org/m1 r0002", "NEW http://example.org/m1 r0003",
+                "DROPPED http://example.org/m2 r0001", "NEW http://example.org/m4 r0001"),
+                differences);
+        assertEquals(Map.of(Change.NEW, 2L, Change.FIXED, 1L, Change.PERSISTING, 1L,
+                Change.DROPPED, 1L), counts);
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("ComparesLargeRuns")
+    void testLargeRuns() throws IOException {
+        final int manifests = 200_000;
+        final String[] rules = {"r0001", "r0002", "r0003", "r0004", "r0005"};
+        final Path before = directory.resolve("before.run");
+        final Path after = directory.resolve("after.run");
+        try (RunFile.Writer a = RunFile.write(before, 100_000);
+                RunFile.Writer b = RunFile.write(after, 100_000)) {
+            for (int i = manifests - 1; i >= 0; i--) {
+                for (final String rule : rules) {
+                    a.add(manifest(i), rule, i % 10 != 0);
+                    b.add(manifest(i), rule, i % 15 != 0);
+                }
+            }
+        }
+        assertTrue(Files.size(before) < 20L * manifests * rules.length);
+        final long start = System.nanoTime();
+        final long[] seen = new long[1];
+        final Map<Change, Long> counts = RunDiff.diff(before, after, d -> seen[0]++);
+        final long millis = (System.nanoTime() - start) / 1_000_000;
+        // multiples of 30 fail in both runs, of 10 only before, of 15 only after
+        final long both = (long) (manifests / 30 + 1) * rules.length;
+        assertEquals(both, (long) counts.get(Change.PERSISTING));
+        assertEquals((long) (manifests / 10) * rules.length - both,
+                (long) counts.get(Change.FIXED));
+        assertEquals((long) (manifests / 15 + 1) * rules.length - both,
+                (long) counts.get(Change.NEW));
+        assertEquals(0L, (long) counts.get(Change.DROPPED));
+        assertEquals(seen[0], counts.values().stream().mapToLong(Long::longValue).sum());
+        assertTrue(millis < 10_000, "diff took " + millis + " ms");
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("RejectsOtherFiles")
+    void testNotARunFile() throws IOException {
+        final Path file = directory.resolve("results.txt");
+        Files.write(file, "passed".getBytes(UTF_8));
+        assertThrows(IOException.class, () -> RunFile.read(file));
+        final Path run = directory.resolve("empty.run");
+        RunFile.write(run).close();
+        try (RunFile.Reader reader = RunFile.read(run)) {
+            assertFalse(reader.hasNext());
+        }
+        final Difference[] none = new Difference[1];
+        assertEquals(0L, (long) RunDiff.diff(run, run, d -> none[0] = d).get(Change.NEW));
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static de.ubleipzig.validator.IO.expandDocumentToN3fromFile;
+import static de.ubleipzig.validator.IO.getGraph;
+import static java.util.stream.Collectors.toList;
+import static org.apache.jena.rdf.model.ModelFactory.createDefaultModel;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.jsonldjava.core.JsonLdError;
+import de.ubleipzig.vocabulary.SC;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.jena.JenaRDF;
+import org.apache.jena.rdf.model.Model;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.trellisldp.api.ConstraintService;
+import org.trellisldp.api.ConstraintViolation;
+import org.trellisldp.api.RuntimeRepositoryException;
+import org.trellisldp.vocabulary.RDFS;
+import org.trellisldp.vocabulary.Trellis;
+
+/**
+ * ShaclConstraintsTest.
+ *
+ * @author christopher-johnson
+ */
+public class ShaclConstraintsTest {
+
+    private static final String TEST_DIR = "/iiif/p2/testcases";
+
+    private final ConstraintService svc = new ShaclConstraints();
+
+    private Graph graph(final String resource) throws IOException, JsonLdError {
+        return getGraph(expandDocumentToN3fromFile(
+                getClass().getResourceAsStream(TEST_DIR + "/" + resource)));
+    }
+
+    private List<ConstraintViolation> violations(final String resource)
+            throws IOException, JsonLdError {
+        return svc.constrainedBy(SC.Manifest, null, graph(resource)).collect(toList());
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("MissingSequencesIsInvalidCardinality")
+    void testMissingSequences() throws IOException, JsonLdError {
+        assertTrue(violations("0001-in.jsonld").stream()
+                .anyMatch(v -> v.getConstraint().equals(Trellis.InvalidCardinality)));
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("MissingCanvasLabelIsInvalidCardinality")
+    void testMissingCanvasLabel() throws IOException, JsonLdError {
+        assertTrue(violations("0029-in.jsonld").stream()
+                .anyMatch(v -> v.getConstraint().equals(Trellis.InvalidCardinality) &&
+                        v.getTriples().stream().noneMatch(t -> t.getPredicate()
+                                .equals(RDFS.label))));
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("InvalidLiteralRange")
+    void testInvalidLiteralRange() throws IOException, JsonLdError {
+        assertTrue(violations("0032-in.jsonld").stream()
+                .anyMatch(v -> v.getConstraint().equals(Trellis.InvalidRange)));
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("InvalidBNodeRange")
+    void testInvalidBNodeRange() throws IOException, JsonLdError {
+        assertTrue(violations("0033-in.jsonld").stream()
+                .anyMatch(v -> v.getConstraint().equals(Trellis.InvalidRange)));
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("UnsupportedConstraintIsRejected")
+    void testUnsupportedConstraint() {
+        final Model shapes = createDefaultModel();
+        shapes.read(new StringReader("@prefix sh: <http://www.w3.org/ns/shacl#> .\n"
+                + "<urn:s> sh:targetClass <urn:c> ; sh:pattern \"^x\" ."), null, "TTL");
+        assertThrows(RuntimeRepositoryException.class, () -> ShapesCompiler.compile(shapes));
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("MissingHasValueIsInvalidRange")
+    void testMissingHasValue() {
+        final Model shapes = createDefaultModel();
+        shapes.read(new StringReader("@prefix sh: <http://www.w3.org/ns/shacl#> .\n"
+                + "@prefix rdf: <http://www.w3.org/1999/02/22-rdf-syntax-ns#> .\n"
+                + "<urn:s> sh:targetObjectsOf <urn:body> ;\n"
+                + "    sh:property [ sh:path rdf:type ; sh:hasValue <urn:Image> ] ."), null, "TTL");
+        final Model data = createDefaultModel();
+        data.read(new StringReader("<urn:a> <urn:body> <urn:b> ."), null, "TTL");
+        final List<ConstraintViolation> violations = ShapesCompiler.compile(shapes)
+                .validate(new JenaRDF().asGraph(data), EnumSet.allOf(Severity.class))
+                .collect(toList());
+        assertEquals(1, violations.size());
+        assertEquals(Trellis.InvalidRange, violations.get(0).getConstraint());
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("PropertySeverityIsRejected")
+    void testPropertySeverity() {
+        final Model shapes = createDefaultModel();
+        shapes.read(new StringReader("@prefix sh: <http://www.w3.org/ns/shacl#> .\n"
+                + "<urn:s> sh:targetClass <urn:c> ; sh:property [ sh:path <urn:p> ; "
+                + "sh:minCount 1 ; sh:severity sh:Warning ] ."), null, "TTL");
+        assertThrows(RuntimeRepositoryException.class, () -> ShapesCompiler.compile(shapes));
+    }
+}
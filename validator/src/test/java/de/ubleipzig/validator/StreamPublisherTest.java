@@ -0,0 +1,223 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static de.ubleipzig.validator.IO.expandDocumentToN3fromFile;
+import static de.ubleipzig.validator.IO.getGraph;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.jsonldjava.core.JsonLdError;
+
+import de.ubleipzig.vocabulary.SC;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import org.apache.commons.rdf.api.Graph;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.trellisldp.api.ConstraintViolation;
+
+/**
+ * StreamPublisherTest.
+ *
+ * @author christopher-johnson
+ */
+public class StreamPublisherTest {
+
+    private static final String TEST_DIR = "/iiif/p2/testcases";
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private byte[] nquads(final String resource) throws IOException, JsonLdError {
+        return expandDocumentToN3fromFile(getClass().getResourceAsStream(TEST_DIR + "/" +
+                resource)).readAllBytes();
+    }
+
+    // Requests one element at a time and cancels after a limit
+    private static final class Recorder<T> implements Flow.Subscriber<T> {
+
+        private final int limit;
+
+        private final List<T> items = new CopyOnWriteArrayList<>();
+
+        private final CompletableFuture<Void> finished = new CompletableFuture<>();
+
+        private Flow.Subscription subscription;
+
+        private Recorder(final int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(final T item) {
+            items.add(item);
+            if (items.size() == limit) {
+                subscription.cancel();
+                finished.complete(null);
+            } else {
+                subscription.request(1);
+            }
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            finished.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            finished.complete(null);
+        }
+    }
+
+    @Test
+    @Tag("constraint")
+    @DisplayName("PublishesAllViolationsOnDemand")
+    void testViolations() throws Exception {
+        final ManifestConstraints constraints = new ManifestConstraints();
+        final Graph graph = getGraph(new ByteArrayInputStream(nquads("0032-in.jsonld")));
+        final Recorder<ConstraintViolation> recorder = new Recorder<>(Integer.MAX_VALUE);
+        constraints.publish(SC.Manifest, null, graph, executor).subscribe(recorder);
+        recorder.finished.get(10, SECONDS);
+        final List<String> expected = constraints.constrainedBy(SC.Manifest, null, graph)
+                .map(ConstraintViolation::toString).collect(toList());
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, recorder.items.stream().map(ConstraintViolation::toString)
+                .collect(toList()));
+    }
+
+    @Test
+    @Tag("constraint")
+    @DisplayName("CancellationClosesTheDocument")
+    void testCancel() throws Exception {
+        final AtomicBoolean closed = new AtomicBoolean();
+        final InputStream nquads = new ByteArrayInputStream(nquads("0032-in.jsonld")) {
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+        final Recorder<ConstraintViolation> recorder = new Recorder<>(1);
+        new ManifestConstraints().publish(SC.Manifest, null, nquads, executor)
+                .subscribe(recorder);
+        recorder.finished.get(10, SECONDS);
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, SECONDS));
+        assertEquals(1, recorder.items.size());
+        assertTrue(closed.get());
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("RuleResultsAreEvaluatedOnDemand")
+    void testRuleResults() throws Exception {
+        final Graph graph = getGraph(new ByteArrayInputStream(nquads("0029-in.jsonld")));
+        final RuleEngine engine = new RuleEngine(ManifestRules.structural());
+        final Recorder<RuleResult> recorder = new Recorder<>(3);
+        engine.publish(new ValidationTarget(null, graph), executor).subscribe(recorder);
+        recorder.finished.get(10, SECONDS);
+        assertEquals(engine.getRules().subList(0, 3), recorder.items.stream()
+                .map(RuleResult::getRule).collect(toList()));
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("NonPositiveRequestIsAnError")
+    void testInvalidRequest() throws Exception {
+        final CompletableFuture<Throwable> error = new CompletableFuture<>();
+        new StreamPublisher<>(() -> IntStream.range(0, 10).boxed(), executor)
+                .subscribe(new Flow.Subscriber<Integer>() {
+                    @Override
+                    public void onSubscribe(final Flow.Subscription subscription) {
+                        subscription.request(0);
+                    }
+
+                    @Override
+                    public void onNext(final Integer item) {
+                        error.completeExceptionally(new AssertionError("Unexpected " + item));
+                    }
+
+                    @Override
+                    public void onError(final Throwable throwable) {
+                        error.complete(throwable);
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        error.completeExceptionally(new AssertionError("Unexpected completion"));
+                    }
+                });
+        assertTrue(error.get(10, SECONDS) instanceof IllegalArgumentException);
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("CompletesWhenDemandEndsWithTheStream")
+    void testExactDemand() throws Exception {
+        final List<Integer> items = new CopyOnWriteArrayList<>();
+        final CompletableFuture<Void> completed = new CompletableFuture<>();
+        new StreamPublisher<>(() -> IntStream.range(0, 3).boxed(), executor)
+                .subscribe(new Flow.Subscriber<Integer>() {
+                    @Override
+                    public void onSubscribe(final Flow.Subscription subscription) {
+                        subscription.request(3);
+                    }
+
+                    @Override
+                    public void onNext(final Integer item) {
+                        items.add(item);
+                    }
+
+                    @Override
+                    public void onError(final Throwable throwable) {
+                        completed.completeExceptionally(throwable);
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        completed.complete(null);
+                    }
+                });
+        completed.get(10, SECONDS);
+        assertEquals(List.of(0, 1, 2), items);
+    }
+}
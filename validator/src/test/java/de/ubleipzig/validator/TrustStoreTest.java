@@ -0,0 +1,73 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static java.util.stream.Collectors.toSet;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.security.cert.X509Certificate;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import javax.net.ssl.SSLContext;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * TrustStoreTest.
+ *
+ * @author christopher-johnson
+ */
+public class TrustStoreTest {
+
+    @Test
+    @Tag("self")
+    @DisplayName("TrustsSystemAndBundledCertificates")
+    void testTrustedCertificates() {
+        final Set<String> system = Stream.of(TrustStore.trustManager(List.of())
+                .getAcceptedIssuers()).map(c -> c.getSubjectX500Principal().getName())
+                .collect(toSet());
+        final X509Certificate[] trusted =
+                TrustStore.trustManager(TrustStore.CERTIFICATES).getAcceptedIssuers();
+        final Set<String> subjects = Stream.of(trusted)
+                .map(c -> c.getSubjectX500Principal().getName()).collect(toSet());
+        assertTrue(subjects.containsAll(system));
+        assertTrue(subjects.stream().anyMatch(s -> s.contains("CN=iiif.ub.uni-leipzig.de")));
+        assertTrue(subjects.stream().anyMatch(s -> s.contains("CN=*.w3.org")));
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("CachesClientSessions")
+    void testSessionCache() {
+        final SSLContext context = TrustStore.context();
+        assertTrue(context == TrustStore.context());
+        assertTrue(context.getClientSessionContext().getSessionCacheSize() > 0);
+        assertEquals(24 * 60 * 60, context.getClientSessionContext().getSessionTimeout());
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("RejectsMissingCertificates")
+    void testMissingCertificate() {
+        assertThrows(IllegalStateException.class,
+                () -> TrustStore.trustManager(List.of("/no-such-certificate")));
+    }
+}
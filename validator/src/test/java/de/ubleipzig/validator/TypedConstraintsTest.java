@@ -0,0 +1,118 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static de.ubleipzig.validator.IO.expandDocumentToN3fromFile;
+import static de.ubleipzig.validator.IO.getGraph;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.jsonldjava.core.JsonLdError;
+
+import de.ubleipzig.vocabulary.SC;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.jena.JenaRDF;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.trellisldp.api.ConstraintService;
+import org.trellisldp.api.ConstraintViolation;
+import org.trellisldp.vocabulary.OA;
+import org.trellisldp.vocabulary.RDF;
+import org.trellisldp.vocabulary.Trellis;
+
+/**
+ * TypedConstraintsTest.
+ *
+ * @author christopher-johnson
+ */
+public class TypedConstraintsTest {
+
+    private static final String TEST_DIR = "/iiif/p2/testcases";
+
+    private static final JenaRDF rdf = new JenaRDF();
+
+    private final ConstraintService svc = new TypedConstraints();
+
+    private final IRI subject = rdf.createIRI("http://example.org/s");
+
+    private final IRI object = rdf.createIRI("http://example.org/o");
+
+    private List<ConstraintViolation> violations(final Graph graph) {
+        return svc.constrainedBy(SC.Manifest, null, graph).collect(toList());
+    }
+
+    @Test
+    @Tag("constraint")
+    @DisplayName("PropertyOutsideDomainIsInvalid")
+    void testDomain() {
+        final Graph graph = rdf.createGraph();
+        graph.add(subject, RDF.type, SC.Sequence);
+        graph.add(subject, SC.hasImageAnnotations, object);
+        final List<ConstraintViolation> violations = violations(graph);
+        assertEquals(1, violations.size());
+        assertEquals(Trellis.InvalidProperty, violations.get(0).getConstraint());
+        assertEquals(SC.hasImageAnnotations, violations.get(0).getTriples().get(0).getPredicate());
+    }
+
+    @Test
+    @Tag("constraint")
+    @DisplayName("PropertyInDomainOfAnyTypeIsValid")
+    void testMultipleTypes() {
+        final Graph graph = rdf.createGraph();
+        graph.add(subject, RDF.type, SC.Sequence);
+        graph.add(subject, RDF.type, SC.Canvas);
+        graph.add(subject, SC.hasImageAnnotations, object);
+        assertTrue(violations(graph).isEmpty());
+    }
+
+    @Test
+    @Tag("constraint")
+    @DisplayName("UntypedSubjectIsNotChecked")
+    void testUntyped() {
+        final Graph graph = rdf.createGraph();
+        graph.add(subject, SC.hasImageAnnotations, object);
+        assertTrue(violations(graph).isEmpty());
+    }
+
+    @Test
+    @Tag("constraint")
+    @DisplayName("DisallowedPropertyDependsOnType")
+    void testTypeTable() {
+        final Graph graph = rdf.createGraph();
+        graph.add(subject, RDF.type, SC.Manifest);
+        graph.add(subject, OA.hasPurpose, object);
+        graph.add(object, RDF.type, OA.Annotation);
+        graph.add(object, OA.hasPurpose, subject);
+        final List<ConstraintViolation> violations = violations(graph);
+        assertEquals(1, violations.size());
+        assertEquals(subject, violations.get(0).getTriples().get(0).getSubject());
+    }
+
+    @Test
+    @Tag("constraint")
+    @DisplayName("ValidManifestHasNoTypedViolations")
+    void testValidManifest() throws IOException, JsonLdError {
+        final Graph graph = getGraph(expandDocumentToN3fromFile(
+                getClass().getResourceAsStream(TEST_DIR + "/0008-in.jsonld")));
+        assertTrue(violations(graph).isEmpty());
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static de.ubleipzig.validator.IO.expandDocumentToN3fromFile;
+import static de.ubleipzig.validator.IO.getGraph;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.jsonldjava.core.JsonLdError;
+
+import de.ubleipzig.vocabulary.EXIF;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.Triple;
+import org.apache.commons.rdf.jena.JenaRDF;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.trellisldp.vocabulary.XSD;
+
+/**
+ * TypedLiteralsTest.
+ *
+ * @author christopher-johnson
+ */
+public class TypedLiteralsTest {
+
+    private static final String TEST_DIR = "/iiif/p2/testcases";
+
+    private static final JenaRDF rdf = new JenaRDF();
+
+    private Graph graph(final String resource) throws IOException, JsonLdError {
+        return getGraph(expandDocumentToN3fromFile(
+                getClass().getResourceAsStream(TEST_DIR + "/" + resource)));
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("LexicalForms")
+    void testLexicalForms() {
+        List.of("0", "+12", "-7", "000750").forEach(l -> assertTrue(TypedLiterals.isInteger(l), l));
+        List.of("", "+", "1.0", "1e3", " 1", "abc").forEach(l ->
+                assertFalse(TypedLiterals.isInteger(l), l));
+        List.of("0", "-0", "+1000").forEach(l ->
+                assertTrue(TypedLiterals.isNonNegativeInteger(l), l));
+        List.of("-1", "-01").forEach(l -> assertFalse(TypedLiterals.isNonNegativeInteger(l), l));
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("MimeTypes")
+    void testMimeTypes() {
+        List.of("image/jpeg", "application/ld+json", "text/html; charset=UTF-8",
+                "application/ld+json;profile=\"http://iiif.io/api/presentation/2/context.json\"")
+                .forEach(m -> assertTrue(TypedLiterals.isMimeType(m), m));
+        List.of("", "jpeg", "image/", "/jpeg", "image/jp eg", "image/jpeg; charset")
+                .forEach(m -> assertFalse(TypedLiterals.isMimeType(m), m));
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("CanvasBoundsAreChecked")
+    void testCanvasBounds() throws IOException, JsonLdError {
+        final Graph graph = graph("0020-in.jsonld");
+        final List<BlankNodeOrIRI> canvases = TypedLiterals.canvases(graph);
+        assertFalse(canvases.isEmpty());
+        assertTrue(TypedLiterals.hasIntegerBounds(graph, canvases));
+        final Graph invalid = rdf.createGraph();
+        graph.stream().filter(t -> !t.getPredicate().equals(EXIF.height)).forEach(invalid::add);
+        graph.stream(null, EXIF.height, null).map(Triple::getSubject).forEach(s ->
+                invalid.add(s, EXIF.height, rdf.createLiteral("-1000", XSD.integer)));
+        assertFalse(TypedLiterals.hasIntegerBounds(invalid, TypedLiterals.canvases(invalid)));
+    }
+
+    @Test
+    @Tag("self")
+    @DisplayName("BodyFormatsAreChecked")
+    void testBodyFormats() throws IOException, JsonLdError {
+        final Graph graph = graph("0028-in.jsonld");
+        final List<BlankNodeOrIRI> bodies = TypedLiterals.bodies(graph,
+                TypedLiterals.canvases(graph));
+        assertFalse(bodies.isEmpty());
+        assertTrue(TypedLiterals.hasFormats(graph, bodies));
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.ubleipzig.validator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.ubleipzig.vocabulary.EXIF;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import org.apache.commons.rdf.api.Triple;
+import org.apache.commons.rdf.jena.JenaRDF;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.trellisldp.api.ConstraintViolation;
+import org.trellisldp.vocabulary.Trellis;
+
+/**
+ * ViolationSummaryTest.
+ *
+ * @author christopher-johnson
+ */
+public class ViolationSummaryTest {
+
+    private static final JenaRDF rdf = new JenaRDF();
+
+    private static ConstraintViolation canvas(final int i) {
+        return new ConstraintViolation(Trellis.InvalidRange, rdf.createTriple(
+                rdf.createIRI("http://example.org/canvas/" + i), EXIF.height,
+                rdf.createIRI("http://example.org/height")));
+    }
+
+    @Test
+    @Tag("constraint")
+    @DisplayName("RepeatedDefectIsOneGroup")
+    void testGrouping() {
+        final ViolationSummary summary = new ViolationSummary(5, new Random(1));
+        IntStream.range(0, 20000).mapToObj(ViolationSummaryTest::canvas).forEach(summary);
+        summary.accept(new ConstraintViolation(Trellis.InvalidRange, rdf.createTriple(
+                rdf.createIRI("http://example.org/canvas/0"), EXIF.height,
+                rdf.createLiteral("x"))));
+        final List<ViolationSummary.Group> groups = summary.getGroups();
+        assertEquals(2, groups.size());
+        assertEquals(20000, groups.get(0).getCount());
+        assertEquals(ViolationSummary.ObjectKind.IRI, groups.get(0).getObjectKind());
+        assertEquals(5, groups.get(0).getSamples().size());
+        assertEquals(ViolationSummary.ObjectKind.LITERAL, groups.get(1).getObjectKind());
+        assertEquals(20001, summary.getCount());
+    }
+
+    @Test
+    @Tag("constraint")
+    @DisplayName("SamplesCoverTheWholeStream")
+    void testReservoir() {
+        final Set<Triple> seen = new HashSet<>();
+        for (int run = 0; run < 50; run++) {
+            final ViolationSummary summary = new ViolationSummary(2, new Random(run));
+            IntStream.range(0, 100).mapToObj(ViolationSummaryTest::canvas).forEach(summary);
+            seen.addAll(summary.getGroups().get(0).getSamples());
+        }
+        // a first-n buffer would only ever keep the first two
+        assertTrue(seen.size() > 20, () -> seen.size() + " distinct samples");
+    }
+
+    @Test
+    @Tag("constraint")
+    @DisplayName("ParallelCollectionMergesCounts")
+    void testCollector() {
+        final ViolationSummary summary = IntStream.range(0, 10000).parallel()
+                .mapToObj(ViolationSummaryTest::canvas)
+                .collect(ViolationSummary.summarizing(3));
+        assertEquals(1, summary.getGroups().size());
+        assertEquals(10000, summary.getCount());
+        assertEquals(3, summary.getGroups().get(0).getSamples().size());
+    }
+}